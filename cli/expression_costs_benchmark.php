@@ -0,0 +1,119 @@
+<?php
+
+/*
+ * Regenerates src/main/resources/costModel/expression-costs.properties from timings measured on the running
+ * PHP version. Run it with each supported major version, then merge the tables (the slowest entry is kept).
+ *
+ * Usage: php expression_costs_benchmark.php <version> [iterations] [functions file] > costs-php8.properties
+ *        php expression_costs_benchmark.php --merge costs-php7.properties costs-php8.properties > expression-costs.properties
+ *
+ * Functions are listed in expression_costs_functions.php unless another file is given. Costs are normalized so
+ * that a call of a user-defined function costs 5 (the scale used by the inspection), constructs cheaper than
+ * a half of the scale step are rounded to 0. "construct.unknown" is not measurable and stays 10.
+ */
+
+/* keeps the slowest of tables generated on different PHP versions */
+function ea_merge(array $files) {
+    $versions = [];
+    $merged   = [];
+    foreach ($files as $file) {
+        foreach (file($file, FILE_IGNORE_NEW_LINES | FILE_SKIP_EMPTY_LINES) as $line) {
+            if (preg_match('/on PHP (\S+),/', $line, $matches)) {
+                $versions[] = $matches[1];
+            }
+            if ($line[0] === '#' || strpos($line, '=') === false) {
+                continue;
+            }
+            list($key, $value) = explode('=', $line, 2);
+            $merged[$key]      = isset($merged[$key]) ? max($merged[$key], (int) $value) : (int) $value;
+        }
+    }
+
+    echo "# Generated by cli/expression_costs_benchmark.php on PHP " . implode(', ', $versions) . ": the slowest entries are kept\n\n";
+    echo "version={$merged['version']}\n\n";
+    unset($merged['version']);
+    foreach ($merged as $key => $value) {
+        echo $key, '=', $value, "\n";
+    }
+}
+
+if ($argc > 2 && $argv[1] === '--merge') {
+    ea_merge(array_slice($argv, 2));
+    exit(0);
+}
+if ($argc < 2 || !ctype_digit($argv[1])) {
+    fwrite(STDERR, "Usage: php {$argv[0]} <version> [iterations] [functions file]\n");
+    fwrite(STDERR, "       php {$argv[0]} --merge <table> <table> [...]\n");
+    exit(1);
+}
+$version       = (int) $argv[1];
+$iterations    = $argc > 2 ? (int) $argv[2] : 2000000;
+$functionsFile = $argc > 3 ? $argv[3] : __DIR__ . '/expression_costs_functions.php';
+
+function ea_user_function($value) { return $value; }
+class EaObject { public $property; public function method($value) { return $value; } }
+
+$variable = 'value';
+$array    = ['key' => 'value', 1 => 'value'];
+$object   = new EaObject();
+$_GET     = ['key' => 'value'];
+
+/* each case is a condition as written in if statements */
+$constructs = [
+    'value'             => function () use ($variable) { return $variable; },
+    'arrayAccess'       => function () use ($array) { return $array['key']; },
+    'superglobalAccess' => function () { return $_GET['key']; },
+    'isset'             => function () use ($variable) { return isset($variable); },
+    'empty'             => function () use ($variable) { return empty($variable); },
+    'unset'             => function () use ($variable) { unset($variable); },
+    'functionCall'      => function () use ($variable) { return ea_user_function($variable); },
+    'methodCall'        => function () use ($object, $variable) { return $object->method($variable); },
+];
+$functions = [];
+foreach (require $functionsFile as $name => $case) {
+    if (function_exists($name)) {
+        $functions[$name] = $case;
+    } else {
+        fwrite(STDERR, "{$name} is not available on PHP " . PHP_VERSION . ", skipped\n");
+    }
+}
+
+/* nanoseconds per operation, the closure invocation overhead excluded */
+function ea_measure(callable $case, $iterations) {
+    $now   = function_exists('hrtime') ? function () { return hrtime(true); } : function () { return (int) (microtime(true) * 1e9); };
+    $empty = function () {};
+    for ($index = 0; $index < $iterations / 10; ++$index) { $case(); $empty(); }
+
+    $start = $now();
+    for ($index = 0; $index < $iterations; ++$index) { $empty(); }
+    $baseline = $now() - $start;
+
+    $start = $now();
+    for ($index = 0; $index < $iterations; ++$index) { $case(); }
+    $measured = $now() - $start;
+
+    return max(0, $measured - $baseline) / $iterations;
+}
+
+$timings = [];
+foreach ($constructs as $name => $case) {
+    $timings['construct.' . $name] = ea_measure($case, $iterations);
+}
+foreach ($functions as $name => $case) {
+    $timings['function.' . $name] = ea_measure($case, $iterations);
+}
+
+/* conditions are compared to each other: only relative costs matter */
+$scale = 5 / max($timings['construct.functionCall'], 1e-9);
+$value = $timings['construct.value'];
+
+echo "# Generated by cli/expression_costs_benchmark.php on PHP " . PHP_VERSION . ", {$iterations} iterations\n\n";
+echo "version={$version}\n\n";
+foreach ($timings as $key => $nanoseconds) {
+    /* array access and constructs are counted additionally to their arguments: exclude reading a variable */
+    $own = $key === 'construct.value' ? $nanoseconds : max(0, $nanoseconds - $value);
+    echo $key, '=', (int) round($own * $scale), "\n";
+    if ($key === 'construct.methodCall') {
+        echo "construct.unknown=10\n";
+    }
+}
@@ -0,0 +1,37 @@
+<?php
+
+/*
+ * Functions measured by expression_costs_benchmark.php: name => a call as written in conditions. Functions which
+ * are not available on the running PHP version are skipped. Pass another file to measure a different list.
+ */
+
+$variable = 'value';
+$array    = ['key' => 'value', 1 => 'value'];
+$object   = new EaObject();
+$resource = STDIN;
+
+return [
+    'array_key_exists' => function () use ($array) { return array_key_exists('key', $array); },
+    'defined'          => function () { return defined('PHP_VERSION'); },
+    'is_array'         => function () use ($array) { return is_array($array); },
+    'is_string'        => function () use ($variable) { return is_string($variable); },
+    'is_bool'          => function () use ($variable) { return is_bool($variable); },
+    'is_int'           => function () use ($variable) { return is_int($variable); },
+    'is_float'         => function () use ($variable) { return is_float($variable); },
+    'is_null'          => function () use ($variable) { return is_null($variable); },
+    'is_resource'      => function () use ($resource) { return is_resource($resource); },
+    'is_numeric'       => function () use ($variable) { return is_numeric($variable); },
+    'is_scalar'        => function () use ($variable) { return is_scalar($variable); },
+    'is_object'        => function () use ($object) { return is_object($object); },
+    'is_iterable'      => function () use ($array) { return is_iterable($array); },
+    'is_countable'     => function () use ($array) { return is_countable($array); },
+    'is_callable'      => function () use ($object) { return is_callable([$object, 'method']); },
+    'count'            => function () use ($array) { return count($array); },
+    'strlen'           => function () use ($variable) { return strlen($variable); },
+    'in_array'         => function () use ($array) { return in_array('value', $array, true); },
+    'function_exists'  => function () { return function_exists('ea_user_function'); },
+    'class_exists'     => function () { return class_exists('EaObject'); },
+    'method_exists'    => function () use ($object) { return method_exists($object, 'method'); },
+    'property_exists'  => function () use ($object) { return property_exists($object, 'property'); },
+    'file_exists'      => function () { return file_exists(__FILE__); },
+];
@@ -1,24 +1,29 @@
 #!/bin/bash
 
-PROJECT_DIR=/home/kalessil/PhpstormProjects/symfony2
-PHP_STORM_DIR=/home/kalessil/Apps/PhpStorm-143.1480
+# Headless analysis with EA inspections, reports are streamed as check-style XML or SARIF.
+#
+# Usage: ps_inspect.sh <project folder> [options]
+#   --dir <path>               directory to analyze, defaults to the project folder
+#   --format checkstyle|sarif  report format, defaults to checkstyle
+#   --output <file>            report file, defaults to stdout
+#   --inspections <A,B,...>    inspections short names, defaults to EA inspections enabled by default
+#   --threads <N>              analysis threads, defaults to number of cores
+#   --since <revision>         analyze only files changed since the git revision (and files depending on them)
+#   --cache <dir>              reuse results for unchanged files content, stored in the directory
+#
+# PHP_STORM_DIR must point to PhpStorm installation with the plugin installed, e.g.:
+#   PHP_STORM_DIR=~/Apps/PhpStorm ./ps_inspect.sh ~/PhpstormProjects/symfony2 --dir src --output report.xml
 
-# Raw output will be stored under ./Default folder.
-# Parameters are:
-# 1. Project folder with .idea folder (.idea is needed, or inspection fails)
-# 2. File with profiles and profile (we can have our own at any place)
-# 3. Additional params: verbosity, which folder in the project to inspect
-$PHP_STORM_DIR/bin/inspect.sh \
-    $PROJECT_DIR \
-    ~/WebIde100/config/inspection/Default.xml Default \
-    -v2 -d $PROJECT_DIR/src
+if [ -z "$PHP_STORM_DIR" ]; then
+    echo "PHP_STORM_DIR is not set" >&2
+    exit 1
+fi
+if [ -z "$1" ]; then
+    echo "Usage: $0 <project folder> [options]" >&2
+    exit 1
+fi
 
-# Target format we want to convert into is check-style; each PS xml converted individually
-# <?xml version="1.0" encoding="UTF-8"?>
-# <checkstyle version="*">
-#   <file name="File name">
-#       <error line="Line number" severity="info|level|error" message="Reported message" source="Inspection Title" />
-#       ...
-#   </file>
-#   ...
-# </checkstyle>
\ No newline at end of file
+PROJECT_DIR=$1
+shift
+
+exec "$PHP_STORM_DIR/bin/phpstorm.sh" ea-inspect "$PROJECT_DIR" "$@"
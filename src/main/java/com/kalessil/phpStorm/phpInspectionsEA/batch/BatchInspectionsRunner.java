@@ -0,0 +1,306 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInspection.*;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.psi.*;
+import com.jetbrains.php.lang.PhpFileType;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.report.ReportWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs selected inspections over files as a pipeline with bounded queues between stages:
+ * loading (file contents into VFS caches) -> analysis on a work-stealing pool (PSI building and one
+ * PSI walk for all inspections in a read action) -> writing in the original files order.
+ */
+final public class BatchInspectionsRunner {
+    private static final Logger LOG = Logger.getInstance(BatchInspectionsRunner.class);
+
+    /* files per thread which can be loaded or analyzed ahead of the writer */
+    private static final int queuedFilesPerThread = 16;
+
+    private final Project project;
+    private final List<InspectionDescriptor> inspections;
+    private final int threads;
+    private final ResultsCache cache;
+    private final AtomicInteger cachedFilesCount = new AtomicInteger();
+
+    /* inspections might keep state between callbacks, hence own instances per worker */
+    private final ThreadLocal<List<LocalInspectionTool>> tools = new ThreadLocal<List<LocalInspectionTool>>() {
+        @Override
+        protected List<LocalInspectionTool> initialValue() {
+            final List<LocalInspectionTool> threadTools = new ArrayList<>();
+            for (InspectionDescriptor inspection : inspections) {
+                threadTools.add(inspection.createTool());
+            }
+            return threadTools;
+        }
+    };
+
+    /** @param cache null to analyze all files */
+    public BatchInspectionsRunner(
+        @NotNull Project project,
+        @NotNull List<InspectionDescriptor> inspections,
+        int threads,
+        @Nullable ResultsCache cache
+    ) {
+        this.project     = project;
+        this.inspections = inspections;
+        this.threads     = Math.max(1, threads);
+        this.cache       = cache;
+    }
+
+    /** @return files served from the results cache during the last run */
+    public int getCachedFilesCount() {
+        return cachedFilesCount.get();
+    }
+
+    /** @return PHP files in the directory, sorted by path (keeps reports stable between runs) */
+    @NotNull
+    public static List<VirtualFile> collectFiles(@NotNull VirtualFile root) {
+        final List<VirtualFile> files = new ArrayList<>();
+        VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor() {
+            @Override
+            public boolean visitFile(@NotNull VirtualFile file) {
+                if (!file.isDirectory() && file.getFileType() == PhpFileType.INSTANCE) {
+                    files.add(file);
+                }
+                return true;
+            }
+        });
+
+        sortByPath(files);
+        return files;
+    }
+
+    /* stable files order keeps reports stable between runs */
+    static void sortByPath(@NotNull List<VirtualFile> files) {
+        Collections.sort(files, new Comparator<VirtualFile>() {
+            @Override
+            public int compare(VirtualFile first, VirtualFile second) {
+                return first.getPath().compareTo(second.getPath());
+            }
+        });
+    }
+
+    /**
+     * @param dependentFiles files analyzed because of changes in other files: their cached results are outdated
+     * @return number of reported problems
+     */
+    public int run(
+        @NotNull VirtualFile root,
+        @NotNull final List<VirtualFile> files,
+        @NotNull final Set<VirtualFile> dependentFiles,
+        @NotNull ReportWriter writer
+    ) throws IOException {
+        final int queueCapacity                                      = threads * queuedFilesPerThread;
+        final BlockingQueue<VirtualFile> loaded                      = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Future<List<ReportedProblem>>> analyzed  = new ArrayBlockingQueue<>(queueCapacity);
+        final ForkJoinPool pool                                      = new ForkJoinPool(threads);
+
+        final Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (VirtualFile file : files) {
+                        preload(file);
+                        loaded.put(file);
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable failure) {
+                    handOver(analyzed, failure);
+                }
+            }
+        }, "EA batch: loading");
+
+        /* queues are FIFO, so futures are reaching the writer in the files order */
+        final Thread dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int index = 0; index < files.size(); ++index) {
+                        final VirtualFile file = loaded.take();
+                        analyzed.put(pool.submit(new Callable<List<ReportedProblem>>() {
+                            @Override
+                            public List<ReportedProblem> call() throws IOException {
+                                return analyzeCached(file, dependentFiles.contains(file));
+                            }
+                        }));
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable failure) {
+                    handOver(analyzed, failure);
+                }
+            }
+        }, "EA batch: dispatching");
+
+        int problemsCount = 0;
+        cachedFilesCount.set(0);
+        writer.start(inspections);
+        loader.start();
+        dispatcher.start();
+        try {
+            for (VirtualFile file : files) {
+                final List<ReportedProblem> problems = analyzed.take().get();
+                writer.fileCompleted(getRelativePath(root, file), problems);
+                problemsCount += problems.size();
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analysis has been interrupted");
+        } catch (ExecutionException failure) {
+            throw new IOException("Analysis has failed", failure.getCause());
+        } finally {
+            loader.interrupt();
+            dispatcher.interrupt();
+            pool.shutdownNow();
+        }
+        writer.finish();
+
+        return problemsCount;
+    }
+
+    /* the writer is waiting for futures: failures of the loading and dispatching threads are handed over as failed ones */
+    private static void handOver(@NotNull BlockingQueue<Future<List<ReportedProblem>>> analyzed, @NotNull Throwable failure) {
+        final CompletableFuture<List<ReportedProblem>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(failure);
+        try {
+            analyzed.put(failed);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @param isDependent the content is the same, but results might differ: analyzed, the cache entry is refreshed */
+    @NotNull
+    private List<ReportedProblem> analyzeCached(@NotNull VirtualFile file, boolean isDependent) throws IOException {
+        if (null == cache) {
+            return analyze(file, tools.get());
+        }
+
+        final String contentHash       = ResultsCache.hash(file.contentsToByteArray());
+        List<ReportedProblem> problems = isDependent ? null : cache.get(contentHash);
+        if (null == problems) {
+            problems = analyze(file, tools.get());
+            cache.put(contentHash, problems);
+        } else {
+            cachedFilesCount.incrementAndGet();
+        }
+        return problems;
+    }
+
+    /* reads file content ahead of analysis, so workers are not waiting for IO */
+    private static void preload(@NotNull VirtualFile file) {
+        try {
+            file.contentsToByteArray();
+        } catch (IOException failure) {
+            LOG.warn("Unable to load " + file.getPath(), failure);
+        }
+    }
+
+    @NotNull
+    static String getRelativePath(@NotNull VirtualFile root, @NotNull VirtualFile file) {
+        final String relativePath = VfsUtilCore.getRelativePath(file, root, '/');
+        return null == relativePath ? file.getPath() : relativePath;
+    }
+
+    @NotNull
+    List<ReportedProblem> analyze(@NotNull final VirtualFile file, @NotNull final List<LocalInspectionTool> tools) {
+        return DumbService.getInstance(project).runReadActionInSmartMode(new Computable<List<ReportedProblem>>() {
+            @Override
+            public List<ReportedProblem> compute() {
+                final PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+                if (null == psiFile) {
+                    return Collections.emptyList();
+                }
+                return analyze(psiFile, tools);
+            }
+        });
+    }
+
+    @NotNull
+    private List<ReportedProblem> analyze(@NotNull PsiFile file, @NotNull List<LocalInspectionTool> tools) {
+        final InspectionManager manager = InspectionManager.getInstance(project);
+        final int toolsCount            = tools.size();
+
+        final ProblemsHolder[] holders                = new ProblemsHolder[toolsCount];
+        final LocalInspectionToolSession[] sessions   = new LocalInspectionToolSession[toolsCount];
+        final List<PsiElementVisitor> visitors        = new ArrayList<>(toolsCount);
+        for (int index = 0; index < toolsCount; ++index) {
+            holders[index]  = new ProblemsHolder(manager, file, false);
+            sessions[index] = new LocalInspectionToolSession(file, 0, file.getTextLength());
+            tools.get(index).inspectionStarted(sessions[index], false);
+            visitors.add(tools.get(index).buildVisitor(holders[index], false, sessions[index]));
+        }
+
+        /* one walk, every element is dispatched to all visitors */
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                for (int index = 0; index < toolsCount; ++index) {
+                    try {
+                        element.accept(visitors.get(index));
+                    } catch (ProcessCanceledException cancelled) {
+                        throw cancelled;
+                    } catch (RuntimeException failure) {
+                        LOG.warn(inspections.get(index).getShortName() + " failed on " + file.getName(), failure);
+                    }
+                }
+                super.visitElement(element);
+            }
+        });
+
+        final Document document              = PsiDocumentManager.getInstance(project).getDocument(file);
+        final List<ReportedProblem> problems = new ArrayList<>();
+        for (int index = 0; index < toolsCount; ++index) {
+            tools.get(index).inspectionFinished(sessions[index], holders[index]);
+
+            final InspectionDescriptor inspection = inspections.get(index);
+            for (ProblemDescriptor descriptor : holders[index].getResults()) {
+                final PsiElement element = descriptor.getPsiElement();
+                if (null == element) {
+                    continue;
+                }
+
+                final TextRange range = element.getTextRange();
+                final int offset      = null == range ? 0 : range.getStartOffset();
+                int line              = descriptor.getLineNumber() + 1;
+                int column            = 1;
+                if (null != document && offset <= document.getTextLength()) {
+                    line   = document.getLineNumber(offset) + 1;
+                    column = offset - document.getLineStartOffset(line - 1) + 1;
+                }
+
+                problems.add(new ReportedProblem(
+                    inspection.getShortName(),
+                    inspection.getSeverity(),
+                    ProblemDescriptorUtil.renderDescriptionMessage(descriptor, element),
+                    line,
+                    column
+                ));
+            }
+        }
+
+        return problems;
+    }
+}
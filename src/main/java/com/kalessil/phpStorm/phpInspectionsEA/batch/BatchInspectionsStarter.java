@@ -0,0 +1,180 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationStarterEx;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.jetbrains.php.lang.PhpFileType;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.report.CheckstyleReportWriter;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.report.ReportWriter;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.report.SarifReportWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Headless entry point: <ide launcher> ea-inspect <project path> [options], see BatchOptions for details.
+ */
+public class BatchInspectionsStarter extends ApplicationStarterEx {
+    @Override
+    public String getCommandName() {
+        return "ea-inspect";
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public void premain(String[] args) {
+        try {
+            BatchOptions.parse(Arrays.copyOfRange(args, 1, args.length));
+        } catch (IllegalArgumentException invalidArguments) {
+            System.err.println(invalidArguments.getMessage());
+            System.err.println(BatchOptions.usage);
+            System.exit(1);
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        int exitCode = 0;
+        try {
+            run(BatchOptions.parse(Arrays.copyOfRange(args, 1, args.length)));
+        } catch (Throwable failure) {
+            failure.printStackTrace(System.err);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * @param dependentFiles receives files added by the dependencies expansion: their content is not changed
+     * @return changed PHP files and files depending on them, sorted by path
+     */
+    @NotNull
+    private static List<VirtualFile> collectChangedFiles(
+        @NotNull final Project project,
+        @NotNull final VirtualFile root,
+        @NotNull String sinceRevision,
+        @NotNull List<InspectionDescriptor> inspections,
+        @NotNull Set<VirtualFile> dependentFiles
+    ) throws IOException {
+        final GitRevision revision = GitRevision.open(new File(root.getPath()), sinceRevision);
+
+        final List<VirtualFile> changedFiles = new ArrayList<>();
+        for (File changedFile : revision.getChangedFiles()) {
+            final VirtualFile file = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(changedFile);
+            if (null != file && file.getFileType() == PhpFileType.INSTANCE && VfsUtilCore.isAncestor(root, file, true)) {
+                changedFiles.add(file);
+            }
+        }
+        final List<File> removedFiles = new ArrayList<>();
+        for (File removedFile : revision.getRemovedFiles()) {
+            if (FileTypeManager.getInstance().getFileTypeByFileName(removedFile.getName()) == PhpFileType.INSTANCE) {
+                removedFiles.add(removedFile);
+            }
+        }
+        System.err.println(changedFiles.size() + " PHP files changed and " + removedFiles.size() + " removed since " + sinceRevision);
+
+        final DependentFilesCollector collector = new DependentFilesCollector(project, revision, inspections);
+        final Ref<IOException> failure          = new Ref<>();
+        final Set<VirtualFile> expanded         = DumbService.getInstance(project).runReadActionInSmartMode(new Computable<Set<VirtualFile>>() {
+            @Override
+            public Set<VirtualFile> compute() {
+                try {
+                    return collector.collect(changedFiles, removedFiles);
+                } catch (IOException collectingFailure) {
+                    failure.set(collectingFailure);
+                    return null;
+                }
+            }
+        });
+        if (null != failure.get()) {
+            throw failure.get();
+        }
+
+        final List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile file : expanded) {
+            if (VfsUtilCore.isAncestor(root, file, true)) {
+                files.add(file);
+                if (!changedFiles.contains(file)) {
+                    dependentFiles.add(file);
+                }
+            }
+        }
+        BatchInspectionsRunner.sortByPath(files);
+        return files;
+    }
+
+    private void run(@NotNull BatchOptions options) throws IOException {
+        final Project project = ProjectUtil.openOrImport(new File(options.getProjectPath()).getAbsolutePath(), null, false);
+        if (null == project) {
+            throw new IOException("Unable to open project " + options.getProjectPath());
+        }
+
+        try {
+            final VirtualFile root = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(new File(options.getDirectory()));
+            if (null == root || !root.isDirectory()) {
+                throw new IOException("Directory not found: " + options.getDirectory());
+            }
+
+            final List<InspectionDescriptor> inspections = InspectionDescriptor.select(project, options.getInspections());
+            final Set<VirtualFile> dependentFiles        = new HashSet<>();
+            final List<VirtualFile> files                = null == options.getSinceRevision()
+                    ? BatchInspectionsRunner.collectFiles(root)
+                    : collectChangedFiles(project, root, options.getSinceRevision(), inspections, dependentFiles);
+            System.err.println(
+                "Analyzing " + files.size() + " files with " + inspections.size() + " inspections, " +
+                options.getThreads() + " threads"
+            );
+
+            final Writer output = null == options.getOutput()
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(options.getOutput())), StandardCharsets.UTF_8);
+            try {
+                final ReportWriter writer = options.getFormat() == BatchOptions.Format.SARIF
+                        ? new SarifReportWriter(output)
+                        : new CheckstyleReportWriter(output);
+                final ResultsCache cache = null == options.getCacheDirectory()
+                        ? null
+                        : ResultsCache.open(new File(options.getCacheDirectory()), project, inspections);
+                try {
+                    final BatchInspectionsRunner runner = new BatchInspectionsRunner(project, inspections, options.getThreads(), cache);
+                    final long started                  = System.currentTimeMillis();
+                    final int problems                  = runner.run(root, files, dependentFiles, writer);
+                    final long spent                    = Math.max(1, System.currentTimeMillis() - started);
+                    System.err.println(String.format(
+                        "Reported %d problems, %.1f files per second, %d files served from cache",
+                        problems, files.size() * 1000.0 / spent, runner.getCachedFilesCount()
+                    ));
+                } finally {
+                    if (null != cache) {
+                        cache.close();
+                    }
+                }
+            } finally {
+                if (null == options.getOutput()) {
+                    output.flush();
+                } else {
+                    output.close();
+                }
+            }
+        } finally {
+            ProjectUtil.closeAndDispose(project);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** Command line options of the batch analysis, see usage for details */
+final public class BatchOptions {
+    public static final String usage =
+        "Usage: <ide launcher> ea-inspect <project path> [options]\n" +
+        "  --dir <path>               directory to analyze, defaults to the project path\n" +
+        "  --format checkstyle|sarif  report format, defaults to checkstyle\n" +
+        "  --output <file>            report file, defaults to stdout\n" +
+        "  --inspections <A,B,...>    inspections short names, defaults to EA inspections enabled in the project profile\n" +
+        "  --threads <N>              analysis threads, defaults to number of cores\n" +
+        "  --since <revision>         analyze only files changed since the git revision (and files depending on them)\n" +
+        "  --cache <dir>              reuse results for unchanged files content, stored in the directory\n";
+
+    public enum Format { CHECKSTYLE, SARIF }
+
+    private String projectPath;
+    private String directory;
+    private String output;
+    private String sinceRevision;
+    private String cacheDirectory;
+    private Format format                 = Format.CHECKSTYLE;
+    private int threads                   = Runtime.getRuntime().availableProcessors();
+    private final Set<String> inspections = new LinkedHashSet<>();
+
+    private BatchOptions() {
+    }
+
+    /** @param args arguments without the command name */
+    @NotNull
+    public static BatchOptions parse(@NotNull String[] args) {
+        final BatchOptions options = new BatchOptions();
+        for (int index = 0; index < args.length; ++index) {
+            final String argument = args[index];
+            if (!argument.startsWith("--")) {
+                if (null != options.projectPath) {
+                    throw new IllegalArgumentException("Unexpected argument: " + argument);
+                }
+                options.projectPath = argument;
+                continue;
+            }
+
+            if (index + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + argument);
+            }
+            final String value = args[++index];
+            switch (argument) {
+                case "--dir":
+                    options.directory = value;
+                    break;
+                case "--output":
+                    options.output = value;
+                    break;
+                case "--since":
+                    options.sinceRevision = value;
+                    break;
+                case "--cache":
+                    options.cacheDirectory = value;
+                    break;
+                case "--format":
+                    try {
+                        options.format = Format.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException invalidFormat) {
+                        throw new IllegalArgumentException("Unknown format: " + value);
+                    }
+                    break;
+                case "--threads":
+                    try {
+                        options.threads = Integer.parseInt(value);
+                    } catch (NumberFormatException invalidNumber) {
+                        options.threads = 0;
+                    }
+                    if (options.threads < 1) {
+                        throw new IllegalArgumentException("Invalid threads number: " + value);
+                    }
+                    break;
+                case "--inspections":
+                    for (String shortName : value.split(",")) {
+                        if (!shortName.trim().isEmpty()) {
+                            options.inspections.add(shortName.trim());
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + argument);
+            }
+        }
+
+        if (null == options.projectPath) {
+            throw new IllegalArgumentException("Project path is not specified");
+        }
+        return options;
+    }
+
+    @NotNull
+    public String getProjectPath() {
+        return projectPath;
+    }
+
+    @NotNull
+    public String getDirectory() {
+        return null == directory ? projectPath : directory;
+    }
+
+    /** @return null for stdout */
+    @Nullable
+    public String getOutput() {
+        return output;
+    }
+
+    /** @return null for full analysis */
+    @Nullable
+    public String getSinceRevision() {
+        return sinceRevision;
+    }
+
+    /** @return null if results should not be cached */
+    @Nullable
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    @NotNull
+    public Format getFormat() {
+        return format;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /** @return empty for EA inspections enabled in the project profile */
+    @NotNull
+    public Set<String> getInspections() {
+        return inspections;
+    }
+}
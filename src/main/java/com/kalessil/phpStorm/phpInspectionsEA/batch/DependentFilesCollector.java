@@ -0,0 +1,231 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocReturnTag;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Expands changed files with files whose inspection results might change together with them:
+ *  - subclasses of changed classes, when inheritance-based inspections are selected;
+ *  - callers of functions/methods with changed @throws, when exceptions workflow inspection is selected.
+ * Removed files (deleted, old paths of renamed) are expanded from their content in the revision: subclasses
+ * of removed classes and files mentioning removed functions/methods declaring @throws.
+ *
+ * Must be invoked in a read action in smart mode.
+ */
+final public class DependentFilesCollector {
+    private static final Set<String> hierarchyInspections = new HashSet<>();
+    static {
+        hierarchyInspections.add("LongInheritanceChainInspection");
+        hierarchyInspections.add("ClassReImplementsParentInterfaceInspection");
+    }
+    private static final String throwsInspection = "ExceptionsAnnotatingAndHandlingInspection";
+
+    private final Project project;
+    private final GitRevision revision;
+    private final boolean expandHierarchy;
+    private final boolean expandCallers;
+
+    public DependentFilesCollector(@NotNull Project project, @NotNull GitRevision revision, @NotNull List<InspectionDescriptor> inspections) {
+        this.project  = project;
+        this.revision = revision;
+
+        boolean expandHierarchy = false;
+        boolean expandCallers   = false;
+        for (InspectionDescriptor inspection : inspections) {
+            expandHierarchy = expandHierarchy || hierarchyInspections.contains(inspection.getShortName());
+            expandCallers   = expandCallers || throwsInspection.equals(inspection.getShortName());
+        }
+        this.expandHierarchy = expandHierarchy;
+        this.expandCallers   = expandCallers;
+    }
+
+    /** @return changed and dependent files, without duplicates */
+    @NotNull
+    public Set<VirtualFile> collect(@NotNull Collection<VirtualFile> changedFiles, @NotNull Collection<File> removedFiles) throws IOException {
+        final Set<VirtualFile> result = new LinkedHashSet<>(changedFiles);
+        if (!expandHierarchy && !expandCallers) {
+            return result;
+        }
+
+        for (File removedFile : removedFiles) {
+            this.collectForRemoved(removedFile, result);
+        }
+
+        final PhpIndex index          = PhpIndex.getInstance(project);
+        final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        for (VirtualFile changedFile : changedFiles) {
+            final PsiFile file = PsiManager.getInstance(project).findFile(changedFile);
+            if (null == file) {
+                continue;
+            }
+
+            if (expandHierarchy) {
+                for (PhpClass clazz : PsiTreeUtil.findChildrenOfType(file, PhpClass.class)) {
+                    for (PhpClass subClass : index.getAllSubclasses(clazz.getFQN())) {
+                        addContainingFile(subClass, result);
+                    }
+                }
+            }
+
+            if (expandCallers) {
+                for (Function function : getThrowsChangedFunctions(file, changedFile)) {
+                    for (PsiReference reference : ReferencesSearch.search(function, scope).findAll()) {
+                        addContainingFile(reference.getElement(), result);
+                    }
+                    /* constructors are invoked via new-expressions, which are referencing the class */
+                    final PhpClass clazz = function instanceof Method ? ((Method) function).getContainingClass() : null;
+                    if (null != clazz && clazz.getConstructor() == function) {
+                        for (PsiReference reference : ReferencesSearch.search(clazz, scope).findAll()) {
+                            addContainingFile(reference.getElement(), result);
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /* declarations are gone, so subclasses and callers are found by names from the revision content */
+    private void collectForRemoved(@NotNull File removedFile, @NotNull Set<VirtualFile> result) throws IOException {
+        final String previousContent = revision.getContent(removedFile);
+        if (null == previousContent) {
+            return;
+        }
+
+        final PsiFile previous = PsiFileFactory.getInstance(project).createFileFromText(removedFile.getName(), PhpFileType.INSTANCE, previousContent);
+        if (expandHierarchy) {
+            final PhpIndex index = PhpIndex.getInstance(project);
+            for (PhpClass clazz : PsiTreeUtil.findChildrenOfType(previous, PhpClass.class)) {
+                for (PhpClass subClass : index.getAllSubclasses(clazz.getFQN())) {
+                    addContainingFile(subClass, result);
+                }
+            }
+        }
+
+        if (expandCallers) {
+            for (Function function : PsiTreeUtil.findChildrenOfType(previous, Function.class)) {
+                if (function.isClosure() || getThrows(function).isEmpty()) {
+                    continue;
+                }
+                /* constructors are invoked via new-expressions, which are mentioning the class */
+                final PhpClass clazz = function instanceof Method ? ((Method) function).getContainingClass() : null;
+                final String word    = null != clazz && "__construct".equalsIgnoreCase(function.getName()) ? clazz.getName() : function.getName();
+                addFilesWithWord(word, result);
+            }
+        }
+    }
+
+    /* word index: a superset of the files referencing the name */
+    private void addFilesWithWord(@NotNull String word, @NotNull final Set<VirtualFile> files) {
+        if (word.isEmpty()) {
+            return;
+        }
+        PsiSearchHelper.SERVICE.getInstance(project).processAllFilesWithWord(word, GlobalSearchScope.projectScope(project), new Processor<PsiFile>() {
+            @Override
+            public boolean process(PsiFile file) {
+                if (null != file.getVirtualFile()) {
+                    files.add(file.getVirtualFile());
+                }
+                return true;
+            }
+        }, false);
+    }
+
+    private static void addContainingFile(@NotNull PsiElement element, @NotNull Set<VirtualFile> files) {
+        final PsiFile file = element.getContainingFile();
+        if (null != file && null != file.getVirtualFile()) {
+            files.add(file.getVirtualFile());
+        }
+    }
+
+    /* functions whose @throws differ from the base revision; @inheritDoc overrides are included */
+    @NotNull
+    private List<Function> getThrowsChangedFunctions(@NotNull PsiFile file, @NotNull VirtualFile changedFile) throws IOException {
+        final String previousContent             = revision.getContent(new File(changedFile.getPath()));
+        final Map<String, String> previousThrows = null == previousContent
+                ? Collections.<String, String>emptyMap()
+                : getThrowsByFqn(PsiFileFactory.getInstance(project).createFileFromText(file.getName(), PhpFileType.INSTANCE, previousContent));
+
+        final List<Function> changed = new ArrayList<>();
+        for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+            final String previous = previousThrows.get(function.getFQN());
+            if (!function.isClosure() && !getThrows(function).equals(null == previous ? "" : previous)) {
+                changed.add(function);
+            }
+        }
+
+        /* overrides with @inheritDoc are inheriting @throws from the changed methods */
+        final PhpIndex index = PhpIndex.getInstance(project);
+        for (int position = 0, size = changed.size(); position < size; ++position) {
+            final Function function = changed.get(position);
+            final PhpClass clazz    = function instanceof Method ? ((Method) function).getContainingClass() : null;
+            if (null != clazz) {
+                for (PhpClass subClass : index.getAllSubclasses(clazz.getFQN())) {
+                    final Method override   = subClass.findOwnMethodByName(function.getName());
+                    final PhpDocComment doc = null == override ? null : override.getDocComment();
+                    if (null != doc && doc.hasInheritDocTag()) {
+                        changed.add(override);
+                    }
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    @NotNull
+    private static Map<String, String> getThrowsByFqn(@Nullable PsiFile file) {
+        final Map<String, String> throwsByFqn = new HashMap<>();
+        if (null != file) {
+            for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+                throwsByFqn.put(function.getFQN(), getThrows(function));
+            }
+        }
+        return throwsByFqn;
+    }
+
+    /** @return sorted @throws types as written in the doc-block, empty string if none */
+    @NotNull
+    private static String getThrows(@NotNull Function function) {
+        final PhpDocComment doc = function.getDocComment();
+        if (null == doc) {
+            return "";
+        }
+
+        final List<String> types = new ArrayList<>();
+        for (PhpDocReturnTag tag : PsiTreeUtil.findChildrenOfType(doc, PhpDocReturnTag.class)) {
+            if (tag.getName().equals("@throws")) {
+                for (PhpDocType type : PsiTreeUtil.findChildrenOfType(tag, PhpDocType.class)) {
+                    types.add(type.getText());
+                }
+            }
+        }
+        Collections.sort(types);
+        return types.isEmpty() ? "" : types.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Base revision of the incremental analysis: changes against the working tree and previous files content */
+final public class GitRevision {
+    private final File repositoryRoot;
+    private final String revision;
+
+    private GitRevision(@NotNull File repositoryRoot, @NotNull String revision) {
+        this.repositoryRoot = repositoryRoot;
+        this.revision       = revision;
+    }
+
+    /** @param directory any directory inside the git working tree */
+    @NotNull
+    public static GitRevision open(@NotNull File directory, @NotNull String revision) throws IOException {
+        final String topLevel = execute(directory, "rev-parse", "--show-toplevel");
+        if (null == topLevel) {
+            throw new IOException(directory.getPath() + " is not a git working tree");
+        }
+        if (null == execute(directory, "rev-parse", "--verify", "--quiet", revision + "^{commit}")) {
+            throw new IOException("Unknown revision: " + revision);
+        }
+        return new GitRevision(new File(topLevel.trim()), revision);
+    }
+
+    /** @return added, copied, modified, renamed (new paths) and untracked files: working tree against the revision */
+    @NotNull
+    public List<File> getChangedFiles() throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (String[] change : getChanges()) {
+            if ('D' != change[0].charAt(0)) {
+                files.add(new File(repositoryRoot, change[change.length - 1]));
+            }
+        }
+
+        final String untracked = execute(repositoryRoot, "ls-files", "-z", "--others", "--exclude-standard");
+        if (null == untracked) {
+            throw new IOException("Unable to collect untracked files");
+        }
+        for (String path : untracked.split("\0")) {
+            if (!path.isEmpty()) {
+                files.add(new File(repositoryRoot, path));
+            }
+        }
+        return files;
+    }
+
+    /** @return deleted files and old paths of renamed files: they exist only in the revision (see getContent) */
+    @NotNull
+    public List<File> getRemovedFiles() throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (String[] change : getChanges()) {
+            final char status = change[0].charAt(0);
+            if ('D' == status || 'R' == status) {
+                files.add(new File(repositoryRoot, change[1]));
+            }
+        }
+        return files;
+    }
+
+    /** @return status followed by the path, renames and copies are having old and new paths */
+    @NotNull
+    private List<String[]> getChanges() throws IOException {
+        final String output = execute(repositoryRoot, "diff", "-z", "--name-status", "-M", "--diff-filter=ACDMR", revision, "--");
+        if (null == output) {
+            throw new IOException("Unable to collect changes since " + revision);
+        }
+
+        /* -z output: status NUL path NUL, or status NUL old path NUL new path NUL for renames and copies */
+        final List<String[]> changes = new ArrayList<>();
+        final String[] parts         = output.split("\0");
+        for (int index = 0; index < parts.length; ++index) {
+            final String status = parts[index];
+            if (status.isEmpty()) {
+                continue;
+            }
+            final boolean hasTwoPaths = 'R' == status.charAt(0) || 'C' == status.charAt(0);
+            if (index + (hasTwoPaths ? 2 : 1) >= parts.length) {
+                break;
+            }
+            changes.add(hasTwoPaths
+                    ? new String[]{status, parts[index + 1], parts[index + 2]}
+                    : new String[]{status, parts[index + 1]});
+            index += hasTwoPaths ? 2 : 1;
+        }
+        return changes;
+    }
+
+    /** @return null if the file did not exist in the revision */
+    @Nullable
+    public String getContent(@NotNull File file) throws IOException {
+        final String path = FileUtil.getRelativePath(repositoryRoot, file);
+        if (null == path || path.startsWith("..")) {
+            return null;
+        }
+
+        /* ls-tree is silent for missing files, unlike show */
+        final String gitPath = FileUtil.toSystemIndependentName(path);
+        final String listing = execute(repositoryRoot, "ls-tree", "--name-only", revision, "--", gitPath);
+        if (null == listing || listing.trim().isEmpty()) {
+            return null;
+        }
+        return execute(repositoryRoot, "show", revision + ":" + gitPath);
+    }
+
+    /** @return stdout, or null if git exited with an error */
+    @Nullable
+    private static String execute(@NotNull File directory, @NotNull String... arguments) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        for (String argument : arguments) {
+            command.add(argument);
+        }
+
+        final Process process = new ProcessBuilder(command)
+                .directory(directory)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        final String output;
+        try (InputStream stdout = process.getInputStream()) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] chunk                 = new byte[8192];
+            int read;
+            while ((read = stdout.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            output = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        try {
+            return 0 == process.waitFor() ? output : null;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("git " + arguments[0] + " has been interrupted");
+        }
+    }
+}
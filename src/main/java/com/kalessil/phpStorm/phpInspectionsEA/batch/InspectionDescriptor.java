@@ -0,0 +1,135 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInsight.daemon.HighlightDisplayKey;
+import com.intellij.codeInspection.InspectionProfile;
+import com.intellij.codeInspection.InspectionProfileEntry;
+import com.intellij.codeInspection.LocalInspectionEP;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ex.InspectionToolWrapper;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.InvalidDataException;
+import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.util.WriteExternalException;
+import com.intellij.profile.codeInspection.InspectionProjectProfileManager;
+import com.intellij.psi.PsiElement;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * EA inspection registered in plugin.xml, as seen by the batch runner: options, severity and enabled state
+ * are taken from the project inspection profile, the same way the IDE runs it.
+ */
+final public class InspectionDescriptor {
+    private static final String pluginPackage = "com.kalessil.phpStorm.phpInspectionsEA.";
+
+    private final String shortName;
+    private final String displayName;
+    private final String severity;
+    private final LocalInspectionEP extension;
+    /* configured by the profile, used as the options source only: workers are getting own copies */
+    private final InspectionProfileEntry profileTool;
+
+    private InspectionDescriptor(@NotNull LocalInspectionEP extension, @NotNull InspectionProfile profile) {
+        this.extension   = extension;
+        this.shortName   = extension.getShortName();
+        this.displayName = null == extension.getDisplayName() ? shortName : extension.getDisplayName();
+
+        final InspectionToolWrapper wrapper = profile.getInspectionTool(this.shortName, (PsiElement) null);
+        this.profileTool = null == wrapper ? extension.instantiateTool() : wrapper.getTool();
+
+        final HighlightDisplayKey key = HighlightDisplayKey.find(this.shortName);
+        this.severity = toSeverity(null == key ? extension.level : profile.getErrorLevel(key, (PsiElement) null).getName());
+    }
+
+    /**
+     * @param shortNames inspections to select, null or empty for all EA inspections enabled in the project profile
+     */
+    @NotNull
+    public static List<InspectionDescriptor> select(@NotNull Project project, @Nullable Collection<String> shortNames) {
+        final InspectionProfile profile           = InspectionProjectProfileManager.getInstance(project).getInspectionProfile();
+        final boolean selectDefaults              = null == shortNames || shortNames.isEmpty();
+        final List<InspectionDescriptor> selected = new ArrayList<>();
+        for (LocalInspectionEP extension : LocalInspectionEP.LOCAL_INSPECTION.getExtensions()) {
+            if (null == extension.implementationClass || !extension.implementationClass.startsWith(pluginPackage)) {
+                continue;
+            }
+
+            final boolean isSelected = selectDefaults ? isEnabled(profile, extension) : shortNames.contains(extension.getShortName());
+            if (isSelected) {
+                selected.add(new InspectionDescriptor(extension, profile));
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isEnabled(@NotNull InspectionProfile profile, @NotNull LocalInspectionEP extension) {
+        final HighlightDisplayKey key = HighlightDisplayKey.find(extension.getShortName());
+        return null == key ? extension.enabledByDefault : profile.isToolEnabled(key);
+    }
+
+    @NotNull
+    private static String toSeverity(@Nullable String level) {
+        if ("ERROR".equals(level)) {
+            return "error";
+        }
+        if ("WARNING".equals(level)) {
+            return "warning";
+        }
+        return "info";
+    }
+
+    /** tools might keep state between visitor callbacks, so every worker needs an own instance */
+    @NotNull
+    public LocalInspectionTool createTool() {
+        final InspectionProfileEntry tool = extension.instantiateTool();
+        if (!(tool instanceof LocalInspectionTool)) {
+            throw new IllegalStateException(shortName + " is not a local inspection");
+        }
+
+        /* options are copied from the profile through their serialized form, as the IDE stores them */
+        try {
+            tool.readSettings(writeSettings());
+        } catch (InvalidDataException failure) {
+            throw new IllegalStateException("Unable to copy settings of " + shortName, failure);
+        }
+        return (LocalInspectionTool) tool;
+    }
+
+    /** @return options values as saved into the project inspection profile, empty for inspections without options */
+    @NotNull
+    public String getSettings() {
+        return JDOMUtil.writeElement(writeSettings());
+    }
+
+    @NotNull
+    private Element writeSettings() {
+        final Element settings = new Element("settings");
+        try {
+            profileTool.writeSettings(settings);
+        } catch (WriteExternalException failure) {
+            throw new IllegalStateException("Unable to serialize settings of " + shortName, failure);
+        }
+        return settings;
+    }
+
+    @NotNull
+    public String getShortName() {
+        return shortName;
+    }
+
+    @NotNull
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /** @return one of error, warning, info */
+    @NotNull
+    public String getSeverity() {
+        return severity;
+    }
+}
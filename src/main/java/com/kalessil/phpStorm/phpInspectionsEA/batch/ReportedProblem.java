@@ -0,0 +1,47 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+/** One problem reported by an inspection, detached from PSI so it can outlive a read action */
+final public class ReportedProblem {
+    private final String inspection;
+    private final String severity;
+    private final String message;
+    private final int line;
+    private final int column;
+
+    public ReportedProblem(@NotNull String inspection, @NotNull String severity, @NotNull String message, int line, int column) {
+        this.inspection = inspection;
+        this.severity   = severity;
+        this.message    = message;
+        this.line       = line;
+        this.column     = column;
+    }
+
+    /** @return inspection short name */
+    @NotNull
+    public String getInspection() {
+        return inspection;
+    }
+
+    /** @return one of error, warning, info */
+    @NotNull
+    public String getSeverity() {
+        return severity;
+    }
+
+    @NotNull
+    public String getMessage() {
+        return message;
+    }
+
+    /** @return 1-based line number */
+    public int getLine() {
+        return line;
+    }
+
+    /** @return 1-based column number */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,129 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManager;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.PersistentHashMap;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk cache of batch analysis results, keyed by the file content hash. Entries are valid for one
+ * configuration only (plugin version, PHP language level, inspections and their options): when it
+ * changes, the storage is dropped instead of accumulating entries which will never be used again.
+ *
+ * Results which depend on other files (e.g. hierarchy, resolved types) are served from cache as long as
+ * the file itself is not changed. With --since, files added by the dependencies expansion (subclasses,
+ * callers) are always re-analyzed and their entries refreshed; full runs can not know which files are
+ * affected by changes elsewhere, drop the cache directory when it matters.
+ */
+final public class ResultsCache {
+    private static final String pluginId          = "com.kalessil.phpStorm.phpInspectionsEA";
+    private static final String configurationFile = "configuration.sha256";
+    private static final String storageFile       = "results";
+
+    private final PersistentHashMap<String, List<ReportedProblem>> storage;
+
+    private ResultsCache(@NotNull PersistentHashMap<String, List<ReportedProblem>> storage) {
+        this.storage = storage;
+    }
+
+    @NotNull
+    public static ResultsCache open(
+        @NotNull File directory,
+        @NotNull Project project,
+        @NotNull List<InspectionDescriptor> inspections
+    ) throws IOException {
+        final String configuration = getConfigurationHash(project, inspections);
+        final File configurationIo = new File(directory, configurationFile);
+        final File storageIo       = new File(directory, storageFile);
+        if (!configurationIo.isFile() || !configuration.equals(FileUtil.loadFile(configurationIo, "UTF-8"))) {
+            PersistentHashMap.deleteFilesStartingWith(storageIo);
+            FileUtil.writeToFile(configurationIo, configuration);
+        }
+
+        return new ResultsCache(new PersistentHashMap<>(storageIo, EnumeratorStringDescriptor.INSTANCE, new ProblemsExternalizer()));
+    }
+
+    @NotNull
+    private static String getConfigurationHash(@NotNull Project project, @NotNull List<InspectionDescriptor> inspections) {
+        final IdeaPluginDescriptor plugin = PluginManager.getPlugin(PluginId.getId(pluginId));
+        final StringBuilder configuration = new StringBuilder()
+                .append(null == plugin ? "" : plugin.getVersion()).append('\n')
+                .append(PhpProjectConfigurationFacade.getInstance(project).getLanguageLevel().name()).append('\n');
+        for (InspectionDescriptor inspection : inspections) {
+            configuration.append(inspection.getShortName()).append(':').append(inspection.getSettings()).append('\n');
+        }
+        return hash(configuration.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    public static String hash(@NotNull byte[] content) {
+        try {
+            final StringBuilder hex = new StringBuilder(64);
+            for (byte digestByte : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(Character.forDigit((digestByte >> 4) & 0xF, 16)).append(Character.forDigit(digestByte & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException notSupported) {
+            throw new IllegalStateException(notSupported);
+        }
+    }
+
+    /** @return null if there are no results for the content */
+    @Nullable
+    public synchronized List<ReportedProblem> get(@NotNull String contentHash) throws IOException {
+        return storage.get(contentHash);
+    }
+
+    public synchronized void put(@NotNull String contentHash, @NotNull List<ReportedProblem> problems) throws IOException {
+        storage.put(contentHash, problems);
+    }
+
+    public synchronized void close() throws IOException {
+        storage.close();
+    }
+
+    private static class ProblemsExternalizer implements DataExternalizer<List<ReportedProblem>> {
+        @Override
+        public void save(@NotNull DataOutput out, List<ReportedProblem> problems) throws IOException {
+            out.writeInt(problems.size());
+            for (ReportedProblem problem : problems) {
+                IOUtil.writeUTF(out, problem.getInspection());
+                IOUtil.writeUTF(out, problem.getSeverity());
+                IOUtil.writeUTF(out, problem.getMessage());
+                out.writeInt(problem.getLine());
+                out.writeInt(problem.getColumn());
+            }
+        }
+
+        @Override
+        public List<ReportedProblem> read(@NotNull DataInput in) throws IOException {
+            final int size                       = in.readInt();
+            final List<ReportedProblem> problems = new ArrayList<>(size);
+            for (int index = 0; index < size; ++index) {
+                final String inspection = IOUtil.readUTF(in);
+                final String severity   = IOUtil.readUTF(in);
+                final String message    = IOUtil.readUTF(in);
+                problems.add(new ReportedProblem(inspection, severity, message, in.readInt(), in.readInt()));
+            }
+            return problems;
+        }
+    }
+}
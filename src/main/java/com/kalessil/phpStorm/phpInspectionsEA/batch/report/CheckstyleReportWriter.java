@@ -0,0 +1,60 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch.report;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.InspectionDescriptor;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.ReportedProblem;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/*
+ * <?xml version="1.0" encoding="UTF-8"?>
+ * <checkstyle version="*">
+ *   <file name="File name">
+ *       <error line="Line number" column="Column" severity="info|warning|error" message="Reported message" source="Inspection short name" />
+ *       ...
+ *   </file>
+ *   ...
+ * </checkstyle>
+ */
+final public class CheckstyleReportWriter implements ReportWriter {
+    private final Writer output;
+
+    public CheckstyleReportWriter(@NotNull Writer output) {
+        this.output = output;
+    }
+
+    @Override
+    public void start(@NotNull List<InspectionDescriptor> inspections) throws IOException {
+        output.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        output.write("<checkstyle version=\"4.3\">\n");
+        output.flush();
+    }
+
+    @Override
+    public void fileCompleted(@NotNull String path, @NotNull List<ReportedProblem> problems) throws IOException {
+        if (problems.isEmpty()) {
+            return;
+        }
+
+        output.write("  <file name=\"" + StringUtil.escapeXml(path) + "\">\n");
+        for (ReportedProblem problem : problems) {
+            output.write(
+                "    <error line=\"" + problem.getLine() + "\" column=\"" + problem.getColumn() + "\"" +
+                " severity=\"" + problem.getSeverity() + "\"" +
+                " message=\"" + StringUtil.escapeXml(problem.getMessage()) + "\"" +
+                " source=\"" + StringUtil.escapeXml(problem.getInspection()) + "\" />\n"
+            );
+        }
+        output.write("  </file>\n");
+        output.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        output.write("</checkstyle>\n");
+        output.flush();
+    }
+}
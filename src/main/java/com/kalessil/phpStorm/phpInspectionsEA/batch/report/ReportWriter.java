@@ -0,0 +1,21 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch.report;
+
+import com.kalessil.phpStorm.phpInspectionsEA.batch.InspectionDescriptor;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.ReportedProblem;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streaming report: results are written (and flushed) as soon as a file is analyzed,
+ * nothing except the current file problems is kept in memory.
+ */
+public interface ReportWriter {
+    void start(@NotNull List<InspectionDescriptor> inspections) throws IOException;
+
+    /** @param path file path relative to the analyzed directory */
+    void fileCompleted(@NotNull String path, @NotNull List<ReportedProblem> problems) throws IOException;
+
+    void finish() throws IOException;
+}
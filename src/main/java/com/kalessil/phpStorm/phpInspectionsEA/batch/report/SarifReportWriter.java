@@ -0,0 +1,105 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch.report;
+
+import com.kalessil.phpStorm.phpInspectionsEA.batch.InspectionDescriptor;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.ReportedProblem;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * SARIF 2.1.0 log with a single run: rules are known upfront and written first,
+ * results array is streamed file by file.
+ */
+final public class SarifReportWriter implements ReportWriter {
+    private static final String toolName = "Php Inspections (EA Extended)";
+
+    private final Writer output;
+    private boolean hasResults = false;
+
+    public SarifReportWriter(@NotNull Writer output) {
+        this.output = output;
+    }
+
+    @Override
+    public void start(@NotNull List<InspectionDescriptor> inspections) throws IOException {
+        output.write("{\n");
+        output.write("  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",\n");
+        output.write("  \"version\": \"2.1.0\",\n");
+        output.write("  \"runs\": [{\n");
+        output.write("    \"tool\": {\"driver\": {\"name\": " + quote(toolName) + ", \"rules\": [");
+
+        boolean isFirst = true;
+        for (InspectionDescriptor inspection : inspections) {
+            output.write(isFirst ? "\n" : ",\n");
+            output.write(
+                "      {\"id\": " + quote(inspection.getShortName()) +
+                ", \"shortDescription\": {\"text\": " + quote(inspection.getDisplayName()) + "}" +
+                ", \"defaultConfiguration\": {\"level\": " + quote(toLevel(inspection.getSeverity())) + "}}"
+            );
+            isFirst = false;
+        }
+
+        output.write("\n    ]}},\n");
+        output.write("    \"results\": [");
+        output.flush();
+    }
+
+    @Override
+    public void fileCompleted(@NotNull String path, @NotNull List<ReportedProblem> problems) throws IOException {
+        if (problems.isEmpty()) {
+            return;
+        }
+
+        for (ReportedProblem problem : problems) {
+            output.write(hasResults ? ",\n" : "\n");
+            output.write(
+                "      {\"ruleId\": " + quote(problem.getInspection()) +
+                ", \"level\": " + quote(toLevel(problem.getSeverity())) +
+                ", \"message\": {\"text\": " + quote(problem.getMessage()) + "}" +
+                ", \"locations\": [{\"physicalLocation\": {" +
+                    "\"artifactLocation\": {\"uri\": " + quote(path) + "}, " +
+                    "\"region\": {\"startLine\": " + problem.getLine() + ", \"startColumn\": " + problem.getColumn() + "}" +
+                "}}]}"
+            );
+            hasResults = true;
+        }
+        output.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        output.write("\n    ]\n");
+        output.write("  }]\n");
+        output.write("}\n");
+        output.flush();
+    }
+
+    @NotNull
+    private static String toLevel(@NotNull String severity) {
+        return severity.equals("info") ? "note" : severity;
+    }
+
+    @NotNull
+    private static String quote(@NotNull String value) {
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int index = 0; index < value.length(); ++index) {
+            final char character = value.charAt(index);
+            switch (character) {
+                case '"':  quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n");  break;
+                case '\r': quoted.append("\\r");  break;
+                case '\t': quoted.append("\\t");  break;
+                default:
+                    if (character < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        quoted.append(character);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
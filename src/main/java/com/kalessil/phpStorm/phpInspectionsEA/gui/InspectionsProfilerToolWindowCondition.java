@@ -0,0 +1,13 @@
+package com.kalessil.phpStorm.phpInspectionsEA.gui;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+
+/** the profiler tool window is shown only when profiling was requested with -Dea.profiling */
+public class InspectionsProfilerToolWindowCondition implements Condition<Project> {
+    @Override
+    public boolean value(Project project) {
+        return InspectionsProfiler.isAvailable();
+    }
+}
@@ -0,0 +1,131 @@
+package com.kalessil.phpStorm.phpInspectionsEA.gui;
+
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionStatistics;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class InspectionsProfilerToolWindowFactory implements ToolWindowFactory {
+    @Override
+    public void createToolWindowContent(@NotNull final Project project, @NotNull ToolWindow toolWindow) {
+        final StatisticsModel model = new StatisticsModel();
+        final JBTable table         = new JBTable(model);
+        table.setAutoCreateRowSorter(true);
+
+        final JCheckBox enabled = new JCheckBox("Collect statistics", InspectionsProfiler.isEnabled());
+        enabled.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                InspectionsProfiler.setEnabled(enabled.isSelected());
+            }
+        });
+
+        final JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                model.refresh();
+            }
+        });
+
+        final JButton reset = new JButton("Reset");
+        reset.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                InspectionsProfiler.reset();
+                model.refresh();
+            }
+        });
+
+        final JButton dump = new JButton("Save as JSON");
+        dump.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                final FileSaverDescriptor descriptor = new FileSaverDescriptor("Save Statistics", "Inspections statistics as JSON", "json");
+                final VirtualFileWrapper target      = FileChooserFactory.getInstance()
+                        .createSaveFileDialog(descriptor, project)
+                        .save(null, "ea-inspections-statistics.json");
+                if (null != target) {
+                    try {
+                        FileUtil.writeToFile(target.getFile(), InspectionsProfiler.toJson());
+                    } catch (IOException failure) {
+                        Messages.showErrorDialog(project, failure.getMessage(), "Save Statistics");
+                    }
+                }
+            }
+        });
+
+        final JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(enabled);
+        controls.add(refresh);
+        controls.add(reset);
+        controls.add(dump);
+
+        final JPanel panel = new JPanel(new BorderLayout());
+        panel.add(controls, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+
+        final Content content = ContentFactory.SERVICE.getInstance().createContent(panel, "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+
+    private static class StatisticsModel extends AbstractTableModel {
+        private static final String[] columns = {"Inspection", "Files", "Callbacks", "Problems", "Wall, ms", "CPU (sampled), ms"};
+
+        private List<InspectionStatistics> rows = new ArrayList<>();
+
+        void refresh() {
+            rows = InspectionsProfiler.getSnapshot();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return 0 == column ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final InspectionStatistics entry = rows.get(row);
+            switch (column) {
+                case 0:  return entry.getShortName();
+                case 1:  return entry.getFiles();
+                case 2:  return entry.getCallbacks();
+                case 3:  return entry.getProblems();
+                case 4:  return entry.getWallNanos() / 1000000;
+                default: return entry.getCpuNanos() / 1000000;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexes;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.PsiTreeChangeEventImpl;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modification count of classes and interfaces declarations (names, namespaces, parents, implemented interfaces),
+ * and of PHP files set. Unlike PSI modification counters, it's not changing when functions bodies or top-level
+ * code (e.g. configuration arrays) are edited, so project-wide caches of declared classes are not rebuilt on
+ * every keystroke.
+ */
+final public class ClassDeclarationsTracker extends PsiTreeChangeAdapter implements ModificationTracker {
+    private static final Key<ClassDeclarationsTracker> trackerKey = Key.create("EA.ClassDeclarationsTracker");
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    private ClassDeclarationsTracker() {
+    }
+
+    @NotNull
+    public static synchronized ClassDeclarationsTracker getInstance(@NotNull Project project) {
+        ClassDeclarationsTracker tracker = project.getUserData(trackerKey);
+        if (null == tracker) {
+            tracker = new ClassDeclarationsTracker();
+            PsiManager.getInstance(project).addPsiTreeChangeListener(tracker, project);
+            project.putUserData(trackerKey, tracker);
+        }
+        return tracker;
+    }
+
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /* removed and replaced elements are inspected before the change: afterwards they might be invalid */
+    @Override
+    public void beforeChildRemoval(@NotNull PsiTreeChangeEvent event) {
+        track(event.getParent(), event.getChild());
+    }
+
+    @Override
+    public void beforeChildReplacement(@NotNull PsiTreeChangeEvent event) {
+        track(event.getParent(), event.getOldChild());
+    }
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        track(event.getParent(), event.getChild());
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        track(event.getParent(), event.getNewChild());
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        track(event.getNewParent(), event.getChild());
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        /* generic events are following the fine-grained ones */
+        if (!(event instanceof PsiTreeChangeEventImpl) || !((PsiTreeChangeEventImpl) event).isGenericChange()) {
+            track(event.getParent(), null);
+        }
+    }
+
+    @Override
+    public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        /* files renaming and moving, roots changes */
+        modificationCount.incrementAndGet();
+    }
+
+    private void track(@Nullable PsiElement parent, @Nullable PsiElement child) {
+        if (isDeclarationChanged(parent, child)) {
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    private static boolean isDeclarationChanged(@Nullable PsiElement parent, @Nullable PsiElement child) {
+        if (child instanceof PsiDirectory || child instanceof PhpFile) {
+            return true;
+        }
+        if (child instanceof PhpClass || (null != child && null != PsiTreeUtil.findChildOfType(child, PhpClass.class))) {
+            return true;
+        }
+
+        /* class and namespace headers; bodies of functions, namespaces and class members are not declarations */
+        for (PsiElement current = parent; null != current && !(current instanceof PsiFile); current = current.getParent()) {
+            if (current instanceof GroupStatement || current instanceof Function || current instanceof Field) {
+                return false;
+            }
+            if (current instanceof PhpClass || current instanceof PhpNamespace) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
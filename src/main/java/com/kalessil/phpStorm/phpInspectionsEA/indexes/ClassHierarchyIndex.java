@@ -0,0 +1,252 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexes;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.ClassReference;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Class FQN => parent class FQN and implemented (for interfaces: extended) interfaces FQNs, as written in
+ * the class declaration, and if the class uses traits. Hierarchy inspections are following parents through
+ * the index, without resolving PSI of other files.
+ *
+ * Keys are lower-cased, as PHP class names are case-insensitive; values are keeping names as written.
+ * Classes declared several times with different hierarchies (e.g. conditionally) are stored as ambiguous.
+ */
+public class ClassHierarchyIndex extends FileBasedIndexExtension<String, ClassHierarchyIndex.Entry> {
+    public static final ID<String, Entry> NAME = ID.create("com.kalessil.phpStorm.phpInspectionsEA.classHierarchy");
+
+    @NotNull
+    @Override
+    public ID<String, Entry> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Entry, FileContent> getIndexer() {
+        return new DataIndexer<String, Entry, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, Entry> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, Entry> entries = new HashMap<>();
+                for (PhpClass clazz : PsiTreeUtil.findChildrenOfType(file, PhpClass.class)) {
+                    final String classFqn = clazz.getFQN();
+                    if (clazz.isTrait() || StringUtil.isEmpty(classFqn)) {
+                        continue;
+                    }
+
+                    final boolean isInterface     = clazz.isInterface();
+                    final List<String> parents    = getFqns(clazz.getExtendsList().getReferenceElements());
+                    final List<String> interfaces = isInterface ? parents : getFqns(clazz.getImplementsList().getReferenceElements());
+                    final String parentFqn        = isInterface || parents.isEmpty() ? null : parents.get(0);
+                    final boolean isUsingTraits   = clazz.getTraitNames().length > 0;
+                    final Entry entry             = new Entry(isInterface, parentFqn, interfaces, isUsingTraits);
+                    final Entry previous          = entries.put(classFqn.toLowerCase(), entry);
+                    if (null != previous && !previous.equals(entry)) {
+                        entries.put(classFqn.toLowerCase(), Entry.AMBIGUOUS);
+                    }
+                }
+                return entries;
+            }
+        };
+    }
+
+    @NotNull
+    private static List<String> getFqns(@NotNull List<ClassReference> references) {
+        final List<String> fqns = new ArrayList<>(references.size());
+        for (ClassReference reference : references) {
+            final String fqn = reference.getFQN();
+            if (!StringUtil.isEmpty(fqn)) {
+                fqns.add(fqn);
+            }
+        }
+        return fqns;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Entry> getValueExternalizer() {
+        return new DataExternalizer<Entry>() {
+            @Override
+            public void save(@NotNull DataOutput out, Entry entry) throws IOException {
+                out.writeBoolean(entry.isAmbiguous);
+                if (entry.isAmbiguous) {
+                    return;
+                }
+                out.writeBoolean(entry.isInterface);
+                IOUtil.writeUTF(out, null == entry.parentFqn ? "" : entry.parentFqn);
+                out.writeInt(entry.interfaces.size());
+                for (String interfaceFqn : entry.interfaces) {
+                    IOUtil.writeUTF(out, interfaceFqn);
+                }
+                out.writeBoolean(entry.isUsingTraits);
+            }
+
+            @Override
+            public Entry read(@NotNull DataInput in) throws IOException {
+                if (in.readBoolean()) {
+                    return Entry.AMBIGUOUS;
+                }
+                final boolean isInterface     = in.readBoolean();
+                final String parentFqn        = IOUtil.readUTF(in);
+                final int interfacesCount     = in.readInt();
+                final List<String> interfaces = new ArrayList<>(interfacesCount);
+                for (int index = 0; index < interfacesCount; ++index) {
+                    interfaces.add(IOUtil.readUTF(in));
+                }
+                final boolean isUsingTraits = in.readBoolean();
+                return new Entry(isInterface, parentFqn.isEmpty() ? null : parentFqn, interfaces, isUsingTraits);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    /** @return null if the class is not known, or it's declared several times with different hierarchies */
+    @Nullable
+    public static Entry getEntry(@NotNull Project project, @NotNull String classFqn) {
+        final List<Entry> entries = FileBasedIndex.getInstance().getValues(NAME, classFqn.toLowerCase(), GlobalSearchScope.allScope(project));
+        if (entries.isEmpty() || entries.contains(Entry.AMBIGUOUS)) {
+            return null;
+        }
+        return 1 == entries.size() || 1 == new HashSet<>(entries).size() ? entries.get(0) : null;
+    }
+
+    /**
+     * The class own parent is taken from PSI: the visited class might be declared several times.
+     *
+     * @return FQNs of parent classes, the nearest first; stops at unknown or ambiguous classes and inheritance cycles
+     */
+    @NotNull
+    public static List<String> getParentClasses(@NotNull PhpClass clazz) {
+        final List<String> parents = new ArrayList<>();
+        if (clazz.isInterface()) {
+            return parents;
+        }
+        final List<String> extended = getFqns(clazz.getExtendsList().getReferenceElements());
+        if (extended.isEmpty()) {
+            return parents;
+        }
+
+        final Project project     = clazz.getProject();
+        final Set<String> visited = new HashSet<>();
+        visited.add(clazz.getFQN().toLowerCase());
+
+        String parentFqn = extended.get(0);
+        while (null != parentFqn && visited.add(parentFqn.toLowerCase())) {
+            parents.add(parentFqn);
+            final Entry entry = getEntry(project, parentFqn);
+            parentFqn         = null == entry ? null : entry.parentFqn;
+        }
+        return parents;
+    }
+
+    public static class Entry {
+        /* several different declarations in one file */
+        static final Entry AMBIGUOUS = new Entry(false, null, Collections.<String>emptyList(), false, true);
+
+        private final boolean isAmbiguous;
+        private final boolean isInterface;
+        private final String parentFqn;
+        private final List<String> interfaces;
+        private final boolean isUsingTraits;
+
+        Entry(boolean isInterface, @Nullable String parentFqn, @NotNull List<String> interfaces, boolean isUsingTraits) {
+            this(isInterface, parentFqn, interfaces, isUsingTraits, false);
+        }
+
+        private Entry(boolean isInterface, @Nullable String parentFqn, @NotNull List<String> interfaces, boolean isUsingTraits, boolean isAmbiguous) {
+            this.isAmbiguous   = isAmbiguous;
+            this.isInterface   = isInterface;
+            this.parentFqn     = parentFqn;
+            this.interfaces    = Collections.unmodifiableList(interfaces);
+            this.isUsingTraits = isUsingTraits;
+        }
+
+        public boolean isInterface() {
+            return isInterface;
+        }
+
+        /** @return null for interfaces and classes without parent */
+        @Nullable
+        public String getParentFqn() {
+            return parentFqn;
+        }
+
+        /** @return implemented interfaces for classes, extended interfaces for interfaces; in declaration order */
+        @NotNull
+        public List<String> getInterfaces() {
+            return interfaces;
+        }
+
+        /** trait methods are not known to the index: members lookups have to fall back to PSI */
+        public boolean isUsingTraits() {
+            return isUsingTraits;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+
+            final Entry otherEntry = (Entry) other;
+            return isAmbiguous == otherEntry.isAmbiguous &&
+                   isInterface == otherEntry.isInterface &&
+                   isUsingTraits == otherEntry.isUsingTraits &&
+                   Objects.equals(parentFqn, otherEntry.parentFqn) &&
+                   interfaces.equals(otherEntry.interfaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isAmbiguous, isInterface, parentFqn, interfaces, isUsingTraits);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexes;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Bloom filter of classes and interfaces FQNs known to ClassHierarchyIndex, lower-cased as PHP names are
+ * case-insensitive. Answers "definitely not declared" without index lookups, so inspections can reject most
+ * of string literals and resolved types before asking PhpIndex.
+ *
+ * Rebuilt when classes declarations (see ClassDeclarationsTracker) or project roots are changing; the index keys
+ * may contain already removed classes, which only makes the filter more permissive.
+ */
+final public class ClassNamesFilter {
+    private static final Key<CachedValue<ClassNamesFilter>> filterKey = Key.create("EA.ClassNamesFilter");
+
+    /* ~1% of false positives with 10 bits per name and 7 probes */
+    private static final int bitsPerName  = 10;
+    private static final int probesCount  = 7;
+
+    private final long[] bits;
+    private final int bitsCount;
+
+    private ClassNamesFilter(@NotNull Collection<String> names) {
+        this.bitsCount = Math.max(64, names.size() * bitsPerName);
+        this.bits      = new long[(this.bitsCount + 63) / 64];
+        for (String name : names) {
+            final String normalized = name.toLowerCase();
+            final int first         = normalized.hashCode();
+            final int second        = getSecondHash(normalized);
+            for (int probe = 0; probe < probesCount; ++probe) {
+                final int bit = Math.floorMod(first + probe * second, bitsCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /** @return false if no class or interface with the FQN (the leading slash is optional) is declared */
+    public static boolean mightExist(@NotNull Project project, @NotNull String fqn) {
+        final String normalized = fqn.toLowerCase();
+        return getInstance(project).contains(normalized.startsWith("\\") ? normalized : '\\' + normalized);
+    }
+
+    @NotNull
+    private static ClassNamesFilter getInstance(@NotNull final Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, filterKey, new CachedValueProvider<ClassNamesFilter>() {
+            @Nullable
+            @Override
+            public Result<ClassNamesFilter> compute() {
+                final Collection<String> names = FileBasedIndex.getInstance().getAllKeys(ClassHierarchyIndex.NAME, project);
+                return Result.create(
+                    new ClassNamesFilter(names),
+                    ClassDeclarationsTracker.getInstance(project),
+                    ProjectRootManager.getInstance(project)
+                );
+            }
+        }, false);
+    }
+
+    private boolean contains(@NotNull String normalized) {
+        final int first  = normalized.hashCode();
+        final int second = getSecondHash(normalized);
+        for (int probe = 0; probe < probesCount; ++probe) {
+            final int bit = Math.floorMod(first + probe * second, bitsCount);
+            if (0 == (bits[bit >>> 6] & (1L << bit))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* FNV-1a, independent from String.hashCode; odd, so probes are not repeating for power of two sizes */
+    private static int getSecondHash(@NotNull String normalized) {
+        int hash = 0x811c9dc5;
+        for (int index = 0; index < normalized.length(); ++index) {
+            hash = (hash ^ normalized.charAt(index)) * 0x01000193;
+        }
+        return hash | 1;
+    }
+}
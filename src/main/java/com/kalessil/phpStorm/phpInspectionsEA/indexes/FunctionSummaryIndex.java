@@ -0,0 +1,409 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexes;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Function FQN (for methods: "\Class\FQN::method") => signature summary: parameters with by-reference flags,
+ * types, defaults and variadics, return type and if it's returned by reference. Keys are lower-cased, as
+ * PHP names are case-insensitive. Functions declared several times in a file (e.g. conditionally) are stored
+ * as ambiguous.
+ *
+ * Call-site inspections are reading summaries instead of resolving callees and loading PSI of other files.
+ */
+public class FunctionSummaryIndex extends FileBasedIndexExtension<String, FunctionSummaryIndex.Summary> {
+    public static final ID<String, Summary> NAME = ID.create("com.kalessil.phpStorm.phpInspectionsEA.functionSummary");
+
+    /* a method of a known class, e.g. #M#C\Class\FQN.method; other signatures are resolved through PSI */
+    private static final Pattern methodSignature = Pattern.compile("#M#C(\\\\[^.|#]+)\\.([^.|#]+)");
+
+    @NotNull
+    @Override
+    public ID<String, Summary> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Summary, FileContent> getIndexer() {
+        return new DataIndexer<String, Summary, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, Summary> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, Summary> entries = new HashMap<>();
+                for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+                    final String key = getKey(function);
+                    if (null != key) {
+                        entries.put(key, entries.containsKey(key) ? Summary.AMBIGUOUS : Summary.of(function));
+                    }
+                }
+                return entries;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Summary> getValueExternalizer() {
+        return new DataExternalizer<Summary>() {
+            @Override
+            public void save(@NotNull DataOutput out, Summary summary) throws IOException {
+                out.writeBoolean(summary.isAmbiguous);
+                if (summary.isAmbiguous) {
+                    return;
+                }
+                IOUtil.writeUTF(out, summary.name);
+                out.writeBoolean(summary.isReturningReference);
+                IOUtil.writeUTF(out, summary.returnType);
+                out.writeInt(summary.parameters.size());
+                for (ParameterSummary parameter : summary.parameters) {
+                    IOUtil.writeUTF(out, parameter.name);
+                    out.writeBoolean(parameter.isPassByRef);
+                    out.writeBoolean(parameter.isVariadic);
+                    IOUtil.writeUTF(out, parameter.type);
+                    out.writeBoolean(null != parameter.defaultValue);
+                    if (null != parameter.defaultValue) {
+                        IOUtil.writeUTF(out, parameter.defaultValue);
+                    }
+                }
+            }
+
+            @Override
+            public Summary read(@NotNull DataInput in) throws IOException {
+                if (in.readBoolean()) {
+                    return Summary.AMBIGUOUS;
+                }
+                final String name                  = IOUtil.readUTF(in);
+                final boolean isReturningReference = in.readBoolean();
+                final String returnType            = IOUtil.readUTF(in);
+                final int parametersCount          = in.readInt();
+                final List<ParameterSummary> parameters = new ArrayList<>(parametersCount);
+                for (int index = 0; index < parametersCount; ++index) {
+                    final String name         = IOUtil.readUTF(in);
+                    final boolean isPassByRef = in.readBoolean();
+                    final boolean isVariadic  = in.readBoolean();
+                    final String type         = IOUtil.readUTF(in);
+                    final String defaultValue = in.readBoolean() ? IOUtil.readUTF(in) : null;
+                    parameters.add(new ParameterSummary(name, isPassByRef, isVariadic, type, defaultValue));
+                }
+                return new Summary(name, isReturningReference, returnType, parameters);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    /** @return null for closures and methods outside of classes */
+    @Nullable
+    private static String getKey(@NotNull Function function) {
+        if (function.isClosure() || StringUtil.isEmpty(function.getName())) {
+            return null;
+        }
+        if (function instanceof Method) {
+            final PhpClass clazz = ((Method) function).getContainingClass();
+            final String fqn     = null == clazz ? null : clazz.getFQN();
+            return StringUtil.isEmpty(fqn) ? null : (fqn + "::" + function.getName()).toLowerCase();
+        }
+        final String fqn = function.getFQN();
+        return StringUtil.isEmpty(fqn) ? null : fqn.toLowerCase();
+    }
+
+    /**
+     * Functions are looked up by FQN (with the global fallback for unqualified calls), methods of known classes
+     * by the class hierarchy from ClassHierarchyIndex. Other calls are resolved through PSI, including methods
+     * not found before reaching a class using traits: trait methods are taking precedence over inherited ones.
+     *
+     * @return null if the callee is not known or ambiguous (declared several times)
+     */
+    @Nullable
+    public static Summary getSummary(@NotNull FunctionReference reference) {
+        final Project project = reference.getProject();
+        final String name     = reference.getName();
+        if (StringUtil.isEmpty(name)) {
+            return null;
+        }
+
+        final List<String> keys = new ArrayList<>();
+        if (reference instanceof MethodReference) {
+            final Matcher matcher = methodSignature.matcher(reference.getSignature());
+            if (matcher.matches() && matcher.group(2).equalsIgnoreCase(name)) {
+                /* own methods first, then trait methods (not indexed, stop there), then inherited ones */
+                final Set<String> visited = new HashSet<>();
+                String classFqn           = matcher.group(1);
+                while (null != classFqn && visited.add(classFqn)) {
+                    keys.add(classFqn + "::" + name);
+                    final ClassHierarchyIndex.Entry entry = ClassHierarchyIndex.getEntry(project, classFqn);
+                    classFqn = null == entry || entry.isUsingTraits() ? null : entry.getParentFqn();
+                }
+            }
+        } else {
+            /* unqualified calls are falling back to global functions */
+            final String fqn            = reference.getFQN();
+            final ASTNode nameNode      = reference.getNameNode();
+            final boolean isUnqualified = null != nameNode && reference.getFirstChild() == nameNode.getPsi();
+            if (!StringUtil.isEmpty(fqn)) {
+                keys.add(fqn);
+                if (isUnqualified && !fqn.equalsIgnoreCase('\\' + name)) {
+                    keys.add('\\' + name);
+                }
+            }
+        }
+
+        final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+        for (String key : keys) {
+            final List<Summary> summaries = FileBasedIndex.getInstance().getValues(NAME, key.toLowerCase(), scope);
+            if (!summaries.isEmpty()) {
+                return 1 == summaries.size() && !summaries.get(0).isAmbiguous ? summaries.get(0) : null;
+            }
+        }
+
+        /* traits, magic and dynamic calls: the index can not help here */
+        final PsiElement callable = reference.resolve();
+        return callable instanceof Function ? Summary.of((Function) callable) : null;
+    }
+
+    public static class Summary {
+        /* several declarations in one file */
+        static final Summary AMBIGUOUS = new Summary("", false, "", Collections.<ParameterSummary>emptyList(), true);
+
+        private final boolean isAmbiguous;
+        private final String name;
+        private final boolean isReturningReference;
+        private final String returnType;
+        private final List<ParameterSummary> parameters;
+
+        Summary(@NotNull String name, boolean isReturningReference, @NotNull String returnType, @NotNull List<ParameterSummary> parameters) {
+            this(name, isReturningReference, returnType, parameters, false);
+        }
+
+        private Summary(
+            @NotNull String name,
+            boolean isReturningReference,
+            @NotNull String returnType,
+            @NotNull List<ParameterSummary> parameters,
+            boolean isAmbiguous
+        ) {
+            this.isAmbiguous          = isAmbiguous;
+            this.name                 = name;
+            this.isReturningReference = isReturningReference;
+            this.returnType           = returnType;
+            this.parameters           = Collections.unmodifiableList(parameters);
+        }
+
+        @NotNull
+        public static Summary of(@NotNull Function function) {
+            final List<ParameterSummary> parameters = new ArrayList<>();
+            for (Parameter parameter : function.getParameters()) {
+                final PsiElement defaultValue = parameter.getDefaultValue();
+                parameters.add(new ParameterSummary(
+                    StringUtil.notNullize(parameter.getName()),
+                    parameter.isPassByRef(),
+                    hasChild(parameter, "..."),
+                    parameter.getType().toString(),
+                    null == defaultValue ? null : defaultValue.getText()
+                ));
+            }
+
+            /* function &name(...), then the declared type after the colon: function name(...): type */
+            final PsiElement nameIdentifier = function.getNameIdentifier();
+            PsiElement previous             = null == nameIdentifier ? null : nameIdentifier.getPrevSibling();
+            if (previous instanceof PsiWhiteSpace) {
+                previous = previous.getPrevSibling();
+            }
+            final boolean isReturningReference = null != previous && PhpTokenTypes.opBIT_AND == previous.getNode().getElementType();
+
+            return new Summary(StringUtil.notNullize(function.getName()), isReturningReference, getReturnType(function), parameters);
+        }
+
+        /** @return the name as declared, which might differ from the call in case */
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public boolean isReturningReference() {
+            return isReturningReference;
+        }
+
+        /** @return the declared return type as written, empty string if not declared */
+        @NotNull
+        public String getReturnType() {
+            return returnType;
+        }
+
+        @NotNull
+        public List<ParameterSummary> getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Summary)) {
+                return false;
+            }
+
+            final Summary otherSummary = (Summary) other;
+            return isAmbiguous == otherSummary.isAmbiguous &&
+                   isReturningReference == otherSummary.isReturningReference &&
+                   name.equals(otherSummary.name) &&
+                   returnType.equals(otherSummary.returnType) &&
+                   parameters.equals(otherSummary.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isAmbiguous, name, isReturningReference, returnType, parameters);
+        }
+    }
+
+    public static class ParameterSummary {
+        private final String name;
+        private final boolean isPassByRef;
+        private final boolean isVariadic;
+        private final String type;
+        private final String defaultValue;
+
+        ParameterSummary(@NotNull String name, boolean isPassByRef, boolean isVariadic, @NotNull String type, @Nullable String defaultValue) {
+            this.name         = name;
+            this.isPassByRef  = isPassByRef;
+            this.isVariadic   = isVariadic;
+            this.type         = type;
+            this.defaultValue = defaultValue;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPassByRef() {
+            return isPassByRef;
+        }
+
+        public boolean isVariadic() {
+            return isVariadic;
+        }
+
+        /** @return types from the declaration and doc-block, as PhpType.toString() renders them (e.g. \int|null) */
+        @NotNull
+        public String getType() {
+            return type;
+        }
+
+        /** @return the default value as written, null if the parameter has none */
+        @Nullable
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ParameterSummary)) {
+                return false;
+            }
+
+            final ParameterSummary otherParameter = (ParameterSummary) other;
+            return isPassByRef == otherParameter.isPassByRef &&
+                   isVariadic == otherParameter.isVariadic &&
+                   name.equals(otherParameter.name) &&
+                   type.equals(otherParameter.type) &&
+                   Objects.equals(defaultValue, otherParameter.defaultValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, isPassByRef, isVariadic, type, defaultValue);
+        }
+    }
+
+    private static boolean hasChild(@NotNull PsiElement element, @NotNull String text) {
+        for (PsiElement child = element.getFirstChild(); null != child; child = child.getNextSibling()) {
+            if (text.equals(child.getText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* tokens between the colon following the parameters list and the body (or the semicolon of abstract methods) */
+    @NotNull
+    private static String getReturnType(@NotNull Function function) {
+        PsiElement current = function.getFirstChild();
+        while (null != current && PhpTokenTypes.chRPAREN != current.getNode().getElementType()) {
+            current = current.getNextSibling();
+        }
+        current = null == current ? null : current.getNextSibling();
+        if (current instanceof PsiWhiteSpace) {
+            current = current.getNextSibling();
+        }
+        if (null == current || !":".equals(current.getText())) {
+            return "";
+        }
+
+        final StringBuilder type = new StringBuilder();
+        for (current = current.getNextSibling(); null != current; current = current.getNextSibling()) {
+            if (current instanceof GroupStatement || ";".equals(current.getText()) || "{".equals(current.getText())) {
+                break;
+            }
+            if (!(current instanceof PsiWhiteSpace)) {
+                type.append(current.getText());
+            }
+        }
+        return type.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexes;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.GroupStatement;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.Parameter;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Method fingerprint => methods having it, as "\Class\FQN::method". The fingerprint is a hash of parameters
+ * and body tokens, whitespaces and comments excluded: identical implementations are found by a single lookup,
+ * without loading PSI of other files.
+ */
+public class MethodBodyFingerprintIndex extends FileBasedIndexExtension<String, List<String>> {
+    public static final ID<String, List<String>> NAME = ID.create("com.kalessil.phpStorm.phpInspectionsEA.methodBodyFingerprint");
+
+    /* FNV-1a, 64 bits: collisions are not practically possible for method bodies of a project */
+    private static final long offsetBasis = 0xcbf29ce484222325L;
+    private static final long prime       = 0x100000001b3L;
+
+    @NotNull
+    @Override
+    public ID<String, List<String>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<String>, FileContent> getIndexer() {
+        return new DataIndexer<String, List<String>, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, List<String>> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, List<String>> entries = new HashMap<>();
+                for (Method method : PsiTreeUtil.findChildrenOfType(file, Method.class)) {
+                    final String fingerprint = getFingerprint(method);
+                    final String member      = getMember(method);
+                    if (null == fingerprint || null == member) {
+                        continue;
+                    }
+
+                    List<String> members = entries.get(fingerprint);
+                    if (null == members) {
+                        members = new ArrayList<>();
+                        entries.put(fingerprint, members);
+                    }
+                    members.add(member);
+                }
+                return entries;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<String>> getValueExternalizer() {
+        return new DataExternalizer<List<String>>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<String> members) throws IOException {
+                out.writeInt(members.size());
+                for (String member : members) {
+                    IOUtil.writeUTF(out, member);
+                }
+            }
+
+            @Override
+            public List<String> read(@NotNull DataInput in) throws IOException {
+                final int membersCount     = in.readInt();
+                final List<String> members = new ArrayList<>(membersCount);
+                for (int index = 0; index < membersCount; ++index) {
+                    members.add(IOUtil.readUTF(in));
+                }
+                return members;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    /** @return null for abstract methods, methods without body or outside of classes */
+    @Nullable
+    public static String getFingerprint(@NotNull Method method) {
+        final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(method);
+        if (null == body || method.isAbstract() || null == method.getContainingClass()) {
+            return null;
+        }
+
+        final long[] hash = new long[]{offsetBasis};
+        for (Parameter parameter : method.getParameters()) {
+            update(hash, parameter);
+        }
+        update(hash, ")");
+        update(hash, body);
+        return Long.toHexString(hash[0]);
+    }
+
+    /** @return "\Class\FQN::method", null for methods outside of classes */
+    @Nullable
+    public static String getMember(@NotNull Method method) {
+        final PhpClass clazz = method.getContainingClass();
+        final String fqn     = null == clazz ? null : clazz.getFQN();
+        return StringUtil.isEmpty(fqn) ? null : fqn + "::" + method.getName();
+    }
+
+    /** @return all methods with the fingerprint in the scope, including the one the fingerprint was taken from */
+    @NotNull
+    public static Set<String> getMembers(@NotNull String fingerprint, @NotNull GlobalSearchScope scope) {
+        final Set<String> members = new LinkedHashSet<>();
+        for (List<String> fileMembers : FileBasedIndex.getInstance().getValues(NAME, fingerprint, scope)) {
+            members.addAll(fileMembers);
+        }
+        return members;
+    }
+
+    private static void update(@NotNull long[] hash, @NotNull PsiElement element) {
+        if (element instanceof PsiWhiteSpace || element instanceof PsiComment) {
+            return;
+        }
+        PsiElement child = element.getFirstChild();
+        if (null == child) {
+            update(hash, element.getText());
+            return;
+        }
+        for (; null != child; child = child.getNextSibling()) {
+            update(hash, child);
+        }
+    }
+
+    private static void update(@NotNull long[] hash, @NotNull String token) {
+        for (int index = 0; index < token.length(); ++index) {
+            hash[0] = (hash[0] ^ token.charAt(index)) * prime;
+        }
+        /* tokens separator: 'a' 'b' and 'ab' are different */
+        hash[0] = (hash[0] ^ 0xFFFF) * prime;
+    }
+}
@@ -25,6 +25,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.ThrowsResolveUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.CollectPossibleThrowsUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.MethodThrowsSummary;
 import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 
@@ -60,7 +61,7 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
 
                 final HashSet<PsiElement> processedRegistry             = new HashSet<>();
                 final HashMap<PhpClass, HashSet<PsiElement>> exceptions =
-                        CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(element, processedRegistry, holder);
+                        CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(element, processedRegistry);
 
                 /* report individual statements */
                 if (exceptions.size() > 0) {
@@ -102,15 +103,13 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
                 }
 
                 /* collect announced cases */
-                final HashSet<PhpClass> annotatedExceptions = new HashSet<>();
-                if (ThrowsResolveUtil.ResolveType.NOT_RESOLVED == ThrowsResolveUtil.resolveThrownExceptions(method, annotatedExceptions)) {
+                final MethodThrowsSummary summary = MethodThrowsSummary.of(method);
+                if (ThrowsResolveUtil.ResolveType.NOT_RESOLVED == summary.getResolveType()) {
                     return;
                 }
+                final Set<PhpClass> annotatedExceptions = summary.getDeclaredExceptions();
 
-                HashSet<PsiElement> processedRegistry = new HashSet<>();
-                HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions =
-                        CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder);
-                processedRegistry.clear();
+                HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions = summary.getThrownExceptions();
 
 
                 /* exclude annotated exceptions, identify which has not been thrown */
@@ -157,12 +156,11 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
                                 }
 
                                 /* check thrown parents, as annotated not processed here */
-                                final HashSet<PhpClass> thrownVariants = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(thrown, true);
+                                final Set<PhpClass> thrownVariants = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(thrown, true);
                                 if (!thrownVariants.contains(annotated)) {
                                     unhandledExceptions.put(thrown, throwsExceptionsPair.getValue());
                                     throwsExceptions.put(thrown, null);
                                 }
-                                thrownVariants.clear();
                             }
                         }
                     } else {
@@ -202,8 +200,6 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
 
                     throwsExceptions.clear();
                 }
-
-                annotatedExceptions.clear();
             }
         };
     }
@@ -95,11 +95,7 @@ public class ForeachSourceInspector extends BasePhpInspection {
                         if (classes.size() > 0) {
                             /* collect all interfaces*/
                             for (PhpClass clazz : classes) {
-                                final HashSet<PhpClass> interfaces = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, false);
-                                if (interfaces.size() > 0) {
-                                    poolToCheck.addAll(interfaces);
-                                    interfaces.clear();
-                                }
+                                poolToCheck.addAll(InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, false));
                             }
 
                             classes.clear();
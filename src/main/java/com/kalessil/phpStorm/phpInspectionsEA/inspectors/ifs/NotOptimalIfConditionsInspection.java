@@ -12,6 +12,7 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.strategy.AndOrWordsUsageStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.strategy.IssetAndNullComparisonStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostModel;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionsCouplingCheckUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
@@ -26,9 +27,9 @@ import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 
 public class NotOptimalIfConditionsInspection extends BasePhpInspection {
     // configuration flags automatically saved by IDE
@@ -52,27 +53,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
         return "NotOptimalIfConditionsInspection";
     }
 
-    private HashSet<String> functionsSet = null;
-    private HashSet<String> getFunctionsSet() {
-        if (null == functionsSet) {
-            functionsSet = new HashSet<>();
-
-            functionsSet.add("array_key_exists");
-            functionsSet.add("defined");
-            functionsSet.add("is_array");
-            functionsSet.add("is_string");
-            functionsSet.add("is_bool");
-            functionsSet.add("is_int");
-            functionsSet.add("is_float");
-            functionsSet.add("is_resource");
-            functionsSet.add("is_numeric");
-            functionsSet.add("is_scalar");
-            functionsSet.add("is_object");
-        }
-
-        return functionsSet;
-    }
-
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -241,7 +221,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
 
 
                 // process entries, perform subject container clean up on each iteration
-                HashMap<PhpClass, HashSet<PhpClass>> resolvedInheritanceChains = new HashMap<>();
                 for (HashMap<PsiElement, PhpClass> subjectContainer : mappedChecks.values()) {
                     // investigate one subject when it has multiple instanceof-expressions
                     if (subjectContainer.size() > 1) {
@@ -251,12 +230,8 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                             final PhpClass clazz                  = instanceOf2class.getValue();
                             final PsiElement instanceOfExpression = instanceOf2class.getKey();
 
-                            // extract current condition details
-                            HashSet<PhpClass> clazzParents = resolvedInheritanceChains.get(clazz);
-                            if (null == clazzParents) {
-                                clazzParents = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true);
-                                resolvedInheritanceChains.put(clazz, clazzParents);
-                            }
+                            // extract current condition details, inheritance chains are cached
+                            final Set<PhpClass> clazzParents = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true);
 
                             // inner loop for verification
                             for (Map.Entry<PsiElement, PhpClass> instanceOf2classInner : subjectContainer.entrySet()) {
@@ -275,11 +250,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     }
                     subjectContainer.clear();
                 }
-                // release inheritance cache as well
-                for (HashSet<PhpClass> resolvedInheritance: resolvedInheritanceChains.values()) {
-                    resolvedInheritance.clear();
-                }
-                resolvedInheritanceChains.clear();
                 // release mapping as well
                 mappedChecks.clear();
             }
@@ -554,12 +524,12 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                 }
 
                 /* verify if costs estimated are optimal */
-                int intPreviousCost                 = 0;
-                PsiElement objPreviousCond          = null;
-                HashSet<String> functionsSetToAllow = getFunctionsSet();
+                int intPreviousCost             = 0;
+                PsiElement objPreviousCond      = null;
+                final ExpressionCostModel costs = ExpressionCostModel.getInstance(holder.getProject());
 
                 for (PsiElement condition : objPartsCollection) {
-                    int intLoopCurrentCost = ExpressionCostEstimateUtil.getExpressionCost(condition, functionsSetToAllow);
+                    int intLoopCurrentCost = ExpressionCostEstimateUtil.getExpressionCost(condition, costs);
 
                     if (
                         null != objPreviousCond && intLoopCurrentCost < intPreviousCost &&
@@ -29,9 +29,10 @@ final public class ExpressionCostEstimateUtil {
      * to more than 10.
      *
      * @param objExpression to estimate for execution cost
+     * @param costs         costs table of constructs and functions
      * @return costs
      */
-    public static int getExpressionCost(@Nullable PsiElement objExpression, @NotNull Set<String> functionsSetToAllow) {
+    public static int getExpressionCost(@Nullable PsiElement objExpression, @NotNull ExpressionCostModel costs) {
         objExpression = ExpressionSemanticUtil.getExpressionTroughParenthesis(objExpression);
 
         if (
@@ -41,16 +42,16 @@ final public class ExpressionCostEstimateUtil {
             objExpression instanceof ClassReference ||
             objExpression instanceof Variable
         ) {
-            return 0;
+            return costs.getValueCost();
         }
 
         /* additional factor is due to hash-maps internals not considered */
         if (objExpression instanceof ClassConstantReference) {
-            return 0;
+            return costs.getValueCost();
         }
         if (objExpression instanceof FieldReference) {
             /* $x->y and $x->y->z to have the same cost. Because of magic methods, which are slower. */
-            return getExpressionCost(((FieldReference) objExpression).getFirstPsiChild(), functionsSetToAllow);
+            return getExpressionCost(((FieldReference) objExpression).getFirstPsiChild(), costs);
         }
 
         /* additional factor is due to hash-maps internals */
@@ -58,84 +59,73 @@ final public class ExpressionCostEstimateUtil {
             final ArrayAccessExpression arrayAccess = (ArrayAccessExpression) objExpression;
             final ArrayIndex arrayIndex             =  arrayAccess.getIndex();
 
-            int intOwnCosts = getExpressionCost(arrayAccess.getValue(), functionsSetToAllow);
+            int intOwnCosts = getExpressionCost(arrayAccess.getValue(), costs);
             if (null != arrayIndex) {
-                intOwnCosts += getExpressionCost(arrayIndex.getValue(), functionsSetToAllow);
+                intOwnCosts += getExpressionCost(arrayIndex.getValue(), costs);
             }
 
-            /* default additional cost */
-            int additionalCosts = 1;
-
-            /* for pre-defined variables add no costs:
+            /* pre-defined variables have own costs:
                 @see https://bitbucket.org/kalessil/phpinspectionsea/issues/239/non-optimal-if-conditions-incorrect */
+            boolean isSuperglobal = false;
             if (arrayAccess.getValue() instanceof Variable) {
                 final String variableName = arrayAccess.getValue().getName();
-                if (
-                    !StringUtil.isEmpty(variableName) && variableName.charAt(0) == '_' &&
-                    predefinedVars.contains(variableName)
-                ) {
-                    additionalCosts = 0;
-                }
+                isSuperglobal             = !StringUtil.isEmpty(variableName) && variableName.charAt(0) == '_' &&
+                                            predefinedVars.contains(variableName);
             }
 
-            return (additionalCosts + intOwnCosts);
+            return (costs.getArrayAccessCost(isSuperglobal) + intOwnCosts);
         }
 
         /* empty counts too much as empty, so it still sensitive overhead, but not add any factor */
         if (objExpression instanceof PhpEmpty) {
             int intArgumentsCost = 0;
             for (PsiElement objParameter : ((PhpEmpty) objExpression).getVariables()) {
-                intArgumentsCost += getExpressionCost(objParameter, functionsSetToAllow);
+                intArgumentsCost += getExpressionCost(objParameter, costs);
             }
 
-            return intArgumentsCost;
+            return costs.getEmptyCost() + intArgumentsCost;
         }
 
         /* isset brings no additional costs, often used for aggressive optimization */
         if (objExpression instanceof PhpIsset) {
             int intArgumentsCost = 0;
             for (PsiElement objParameter : ((PhpIsset) objExpression).getVariables()) {
-                intArgumentsCost += getExpressionCost(objParameter, functionsSetToAllow);
+                intArgumentsCost += getExpressionCost(objParameter, costs);
             }
 
-            return intArgumentsCost;
+            return costs.getIssetCost() + intArgumentsCost;
         }
 
         /* didn't see anu usages in if, but who knows */
         if (objExpression instanceof PhpUnset) {
             int intArgumentsCost = 0;
             for (PsiElement objParameter : ((PhpUnset) objExpression).getArguments()) {
-                intArgumentsCost += getExpressionCost(objParameter, functionsSetToAllow);
+                intArgumentsCost += getExpressionCost(objParameter, costs);
             }
 
-            return intArgumentsCost;
+            return costs.getUnsetCost() + intArgumentsCost;
         }
 
         if (objExpression instanceof FunctionReference) {
             int intArgumentsCost = 0;
             for (PsiElement objParameter : ((FunctionReference) objExpression).getParameters()) {
-                intArgumentsCost += getExpressionCost(objParameter, functionsSetToAllow);
+                intArgumentsCost += getExpressionCost(objParameter, costs);
             }
 
             /* quite complex part - differentiate methods, functions and specially type-check functions */
             if (objExpression instanceof MethodReference) {
-                intArgumentsCost += getExpressionCost(((MethodReference) objExpression).getFirstPsiChild(), functionsSetToAllow);
-                intArgumentsCost += 5;
+                intArgumentsCost += getExpressionCost(((MethodReference) objExpression).getFirstPsiChild(), costs);
+                intArgumentsCost += costs.getMethodCallCost();
             } else {
-                final String strFunctionName = ((FunctionReference) objExpression).getName();
                 /* type-check functions and rest functions */
-                if (!StringUtil.isEmpty(strFunctionName) && functionsSetToAllow.contains(strFunctionName)) {
-                    intArgumentsCost += 0;
-                } else {
-                    intArgumentsCost += 5;
-                }
+                intArgumentsCost += costs.getFunctionCallCost(((FunctionReference) objExpression).getName());
             }
 
             return intArgumentsCost;
         }
 
         if (objExpression instanceof UnaryExpression) {
-            return getExpressionCost(((UnaryExpression) objExpression).getValue(), functionsSetToAllow);
+            return getExpressionCost(((UnaryExpression) objExpression).getValue(), costs);
         }
 
 /*        if (objExpression instanceof TernaryExpression) {
@@ -150,15 +140,15 @@ final public class ExpressionCostEstimateUtil {
 
         if (objExpression instanceof BinaryExpression) {
             return
-                getExpressionCost(((BinaryExpression) objExpression).getRightOperand(), functionsSetToAllow) +
-                getExpressionCost(((BinaryExpression) objExpression).getLeftOperand(), functionsSetToAllow);
+                getExpressionCost(((BinaryExpression) objExpression).getRightOperand(), costs) +
+                getExpressionCost(((BinaryExpression) objExpression).getLeftOperand(), costs);
         }
 
         if (objExpression instanceof ArrayCreationExpression) {
             int intCosts = 0;
             for (ArrayHashElement objEntry : ((ArrayCreationExpression) objExpression).getHashElements()) {
-                intCosts += getExpressionCost(objEntry.getKey(), functionsSetToAllow);
-                intCosts += getExpressionCost(objEntry.getValue(), functionsSetToAllow);
+                intCosts += getExpressionCost(objEntry.getKey(), costs);
+                intCosts += getExpressionCost(objEntry.getValue(), costs);
             }
             return intCosts;
         }
@@ -167,13 +157,13 @@ final public class ExpressionCostEstimateUtil {
             objExpression instanceof PhpExpression &&
             objExpression.getNode().getElementType() == PhpElementTypes.NUMBER
         ) {
-            return 0;
+            return costs.getValueCost();
         }
 
         if (objExpression instanceof AssignmentExpression) {
-            return getExpressionCost(((AssignmentExpression) objExpression).getValue(), functionsSetToAllow);
+            return getExpressionCost(((AssignmentExpression) objExpression).getValue(), costs);
         }
 
-        return 10;
+        return costs.getUnknownCost();
     }
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Versioned table of conditions execution costs: per-construct and per-function entries. The table is
+ * shipped as costModel/expression-costs.properties and can be partially overridden per project with
+ * .phpinspectionsea/expression-costs.properties (entries which are not overridden keep default values).
+ */
+final public class ExpressionCostModel {
+    private static final Logger LOG = Logger.getInstance(ExpressionCostModel.class);
+
+    private static final String defaultTable  = "/costModel/expression-costs.properties";
+    private static final String projectTable  = ".phpinspectionsea/expression-costs.properties";
+    private static final String constructKeys = "construct.";
+    private static final String functionKeys  = "function.";
+
+    private static ExpressionCostModel defaultModel;
+
+    private final Properties table;
+    private final String version;
+    private final int valueCost;
+    private final int arrayAccessCost;
+    private final int superglobalAccessCost;
+    private final int issetCost;
+    private final int emptyCost;
+    private final int unsetCost;
+    private final int functionCallCost;
+    private final int methodCallCost;
+    private final int unknownCost;
+    private final Map<String, Integer> functionsCosts;
+
+    @NotNull
+    public static synchronized ExpressionCostModel getDefault() {
+        if (null == defaultModel) {
+            final Properties table = new Properties();
+            try (InputStream stream = ExpressionCostModel.class.getResourceAsStream(defaultTable)) {
+                if (null == stream) {
+                    throw new IOException("resource not found");
+                }
+                table.load(stream);
+            } catch (IOException failure) {
+                throw new IllegalStateException("Can not load " + defaultTable, failure);
+            }
+            defaultModel = new ExpressionCostModel(table);
+        }
+        return defaultModel;
+    }
+
+    /** @return the default model with the project overrides applied, re-read when the overrides file changes */
+    @NotNull
+    public static ExpressionCostModel getInstance(@NotNull final Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, new CachedValueProvider<ExpressionCostModel>() {
+            @Nullable
+            @Override
+            public Result<ExpressionCostModel> compute() {
+                /* creating/removing the file changes the project structure, editing it - the file itself */
+                final VirtualFile overrides = null == project.getBaseDir() ? null : project.getBaseDir().findFileByRelativePath(projectTable);
+                if (null == overrides) {
+                    return Result.create(getDefault(), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+                }
+                return Result.create(load(overrides), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT, overrides);
+            }
+        });
+    }
+
+    @NotNull
+    private static ExpressionCostModel load(@NotNull VirtualFile overrides) {
+        final Properties table = new Properties();
+        table.putAll(getDefault().table);
+        try (InputStream stream = overrides.getInputStream()) {
+            table.load(stream);
+            return new ExpressionCostModel(table);
+        } catch (IOException | IllegalStateException failure) {
+            LOG.warn("Can not load " + overrides.getPath() + ", using default costs", failure);
+            return getDefault();
+        }
+    }
+
+    private ExpressionCostModel(@NotNull Properties table) {
+        this.table                 = table;
+        this.version               = table.getProperty("version", "");
+        this.valueCost             = getCost(table, constructKeys + "value");
+        this.arrayAccessCost       = getCost(table, constructKeys + "arrayAccess");
+        this.superglobalAccessCost = getCost(table, constructKeys + "superglobalAccess");
+        this.issetCost             = getCost(table, constructKeys + "isset");
+        this.emptyCost             = getCost(table, constructKeys + "empty");
+        this.unsetCost             = getCost(table, constructKeys + "unset");
+        this.functionCallCost      = getCost(table, constructKeys + "functionCall");
+        this.methodCallCost        = getCost(table, constructKeys + "methodCall");
+        this.unknownCost           = getCost(table, constructKeys + "unknown");
+
+        final Map<String, Integer> functionsCosts = new HashMap<>();
+        for (String key : table.stringPropertyNames()) {
+            if (key.startsWith(functionKeys)) {
+                functionsCosts.put(key.substring(functionKeys.length()), getCost(table, key));
+            }
+        }
+        this.functionsCosts = Collections.unmodifiableMap(functionsCosts);
+    }
+
+    private static int getCost(@NotNull Properties table, @NotNull String key) {
+        final String cost = table.getProperty(key);
+        if (null == cost) {
+            throw new IllegalStateException("Expression costs table has no entry for " + key);
+        }
+        try {
+            return Integer.parseInt(cost.trim());
+        } catch (NumberFormatException failure) {
+            throw new IllegalStateException("Expression costs table has invalid entry " + key + "=" + cost, failure);
+        }
+    }
+
+    @NotNull
+    public String getVersion() {
+        return version;
+    }
+
+    /** variables, literals, constants and class constants */
+    public int getValueCost() {
+        return valueCost;
+    }
+
+    public int getArrayAccessCost(boolean isSuperglobal) {
+        return isSuperglobal ? superglobalAccessCost : arrayAccessCost;
+    }
+
+    public int getIssetCost() {
+        return issetCost;
+    }
+
+    public int getEmptyCost() {
+        return emptyCost;
+    }
+
+    public int getUnsetCost() {
+        return unsetCost;
+    }
+
+    public int getFunctionCallCost(@Nullable String functionName) {
+        final Integer cost = null == functionName ? null : functionsCosts.get(functionName);
+        return null == cost ? functionCallCost : cost;
+    }
+
+    public int getMethodCallCost() {
+        return methodCallCost;
+    }
+
+    public int getUnknownCost() {
+        return unknownCost;
+    }
+}
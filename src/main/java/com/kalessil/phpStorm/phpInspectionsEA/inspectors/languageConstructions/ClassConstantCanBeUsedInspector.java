@@ -20,14 +20,14 @@ import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.config.PhpLanguageFeature;
-import com.jetbrains.php.config.PhpLanguageLevel;
-import com.jetbrains.php.config.PhpProjectConfigurationFacade;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
 import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassNamesFilter;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionSession;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import net.miginfocom.swing.MigLayout;
 import org.apache.commons.lang.StringUtils;
@@ -66,15 +66,14 @@ public class ClassConstantCanBeUsedInspector extends BasePhpInspection {
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        /* ensure selected language level supports the ::class feature*/
+        final InspectionSession session = InspectionSession.of(holder);
+        if (!session.hasFeature(PhpLanguageFeature.CLASS_NAME_CONST)) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
         return new BasePhpElementVisitor() {
             public void visitPhpStringLiteralExpression(StringLiteralExpression expression) {
-                /* ensure selected language level supports the ::class feature*/
-                final Project project             = holder.getProject();
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(project).getLanguageLevel();
-                if (!phpVersion.hasFeature(PhpLanguageFeature.CLASS_NAME_CONST)) {
-                    return;
-                }
-
                 /* Skip certain contexts processing and strings with inline injections */
                 PsiElement parent = expression.getParent();
                 if (
@@ -87,6 +86,11 @@ public class ClassConstantCanBeUsedInspector extends BasePhpInspection {
                 /* Process if has no inline statements and at least 3 chars long (foo, bar and etc. are not a case) */
                 final String contents = expression.getContents();
                 if (contents.length() > 3) {
+                    /* most of strings are not naming any class: reject them before the regex and index lookups */
+                    if (!ClassNamesFilter.mightExist(session.getProject(), contents.replace("\\\\", "\\"))) {
+                        return;
+                    }
+
                     final Matcher regexMatcher = classNameRegex.matcher(contents);
                     if (!regexMatcher.matches() || ExpressionSemanticUtil.getBlockScope(expression) instanceof PhpDocComment) {
                         return;
@@ -111,7 +115,7 @@ public class ClassConstantCanBeUsedInspector extends BasePhpInspection {
                     /* if we could find an appropriate candidate and resolved the class => report (case must match) */
                     if (1 == namesToLookup.size()) {
                         final String fqnToLookup = namesToLookup.iterator().next();
-                        final PhpIndex index     = PhpIndex.getInstance(project);
+                        final PhpIndex index     = session.getIndex();
 
                         /* try searching interfaces and classes for the given FQN */
                         Collection<PhpClass> classes = index.getClassesByFQN(fqnToLookup);
@@ -11,7 +11,6 @@ import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.jetbrains.php.config.PhpLanguageLevel;
-import com.jetbrains.php.config.PhpProjectConfigurationFacade;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.ForeachStatement;
@@ -21,6 +20,7 @@ import com.jetbrains.php.lang.psi.elements.Variable;
 import com.jetbrains.php.lang.psi.elements.impl.StatementImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionSession;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
@@ -37,14 +37,13 @@ public class ShortListSyntaxCanBeUsedInspector extends BasePhpInspection {
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+        /* ensure php version is at least PHP 7.1 */
+        if (!InspectionSession.of(holder).isAtLeast(PhpLanguageLevel.PHP710)) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
         return new BasePhpElementVisitor() {
             public void visitPhpMultiassignmentExpression(MultiassignmentExpression multiassignmentExpression) {
-                /* ensure php version is at least PHP 7.1 */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.compareTo(PhpLanguageLevel.PHP710) < 0) {
-                    return;
-                }
-
                 /* verify if it's dedicated statement and it's the list(...) construction */
                 final PsiElement parent = multiassignmentExpression.getParent();
                 if (!(parent instanceof StatementImpl)) {
@@ -57,12 +56,6 @@ public class ShortListSyntaxCanBeUsedInspector extends BasePhpInspection {
             }
 
             public void visitPhpForeach(ForeachStatement foreach) {
-                /* ensure php version is at least PHP 7.1 */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.compareTo(PhpLanguageLevel.PHP710) < 0) {
-                    return;
-                }
-
                 final List<Variable> variables = foreach.getVariables();
                 if (variables.size() > 0) {
                     PsiElement childNode = foreach.getFirstChild();
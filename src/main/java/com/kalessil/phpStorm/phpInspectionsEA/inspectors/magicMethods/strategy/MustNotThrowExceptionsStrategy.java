@@ -5,7 +5,7 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.CollectPossibleThrowsUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.MethodThrowsSummary;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -19,10 +19,7 @@ public class MustNotThrowExceptionsStrategy {
             return;
         }
 
-        final HashSet<PsiElement> processedRegistry                   = new HashSet<>();
-        final HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions = CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder);
-
-        processedRegistry.clear();
+        final HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions = MethodThrowsSummary.of(method).getThrownExceptions();
         if (throwsExceptions.size() > 0) {
             for (Map.Entry<PhpClass, HashSet<PsiElement>> pair : throwsExceptions.entrySet()) {
                 /* extract pairs */
@@ -10,24 +10,21 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
-import com.intellij.psi.util.PsiTreeUtil;
-import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocRef;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
-import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.strategy.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.MethodDocBlock;
 import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
-import java.util.Collection;
 
 
 public class PhpUnitTestsInspector extends BasePhpInspection {
@@ -57,13 +54,12 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                 }
                 final boolean isMethodNamedAsTest = strMethodName.startsWith("test");
 
-                final PhpPsiElement previous = method.getPrevPsiSibling();
-                if (!(previous instanceof PhpDocComment)) {
+                final MethodDocBlock docBlock = MethodDocBlock.of(method);
+                if (!docBlock.isDefined()) {
                     return;
                 }
 
-                final Collection<PhpDocTag> tags  = PsiTreeUtil.findChildrenOfType(previous, PhpDocTag.class);
-                for (PhpDocTag tag : tags) {
+                for (PhpDocTag tag : docBlock.getTags()) {
                     final String tagName = tag.getName();
 
                     if (tagName.equals("@depends") && tag.getFirstPsiChild() instanceof PhpDocRef) {
@@ -91,7 +87,6 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                         holder.registerProblem(tag.getFirstChild(), message, ProblemHighlightType.LIKE_DEPRECATED, new AmbiguousTestAnnotationLocalFix());
                     }
                 }
-                tags.clear();
             }
 
             public void visitPhpMethodReference(MethodReference reference) {
@@ -10,7 +10,10 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.jetbrains.php.lang.psi.elements.Variable;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.FunctionCallCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.PlainApiUseCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.classesStrategy.ShortClassDefinitionStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.BacktrackLimitCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.CatastrophicBacktrackingCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.GreedyCharactersSetCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.QuantifierCompoundsQuantifierCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.modifiersStrategy.*;
@@ -19,14 +22,21 @@ import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opti
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
+    // configuration flags automatically saved by IDE
+    @SuppressWarnings("WeakerAccess")
+    public boolean SIMULATE_BACKTRACKING = false;
 
     @NotNull
     public String getShortName() {
@@ -103,6 +113,9 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
             }
 
             private void checkCall (String strFunctionName, FunctionReference reference, StringLiteralExpression target, String regex, String modifiers) {
+                /* parsed once, strategies are visiting the syntax tree */
+                final ParsedRegex parsed = ParsedRegex.of(regex, modifiers);
+
                 /* Modifiers validity (done):
                  * + /no-az-chars/i => /no-az-chars/
                  * + /no-dot-char/s => /no-dot-char/
@@ -113,10 +126,10 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  */
                 DeprecatedModifiersCheckStrategy.apply(modifiers, target, holder);
                 AllowedModifierCheckStrategy.apply(modifiers, target, holder);
-                // UselessMultiLineModifierStrategy.apply(modifiers, regex, target, holder); -- we can not analyse if string has new lines
-                UselessDollarEndOnlyModifierStrategy.apply(modifiers, regex, target, holder);
-                UselessDotAllModifierCheckStrategy.apply(modifiers, regex, target, holder);
-                UselessIgnoreCaseModifierCheckStrategy.apply(modifiers, regex, target, holder);
+                // UselessMultiLineModifierStrategy.apply(parsed, target, holder); -- we can not analyse if string has new lines
+                UselessDollarEndOnlyModifierStrategy.apply(parsed, target, holder);
+                UselessDotAllModifierCheckStrategy.apply(parsed, target, holder);
+                UselessIgnoreCaseModifierCheckStrategy.apply(parsed, target, holder);
 
                 /* Plain API simplification (done):
                  * + /^text/ => 0 === strpos(...) (match)
@@ -137,7 +150,7 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + [^\w] => \W
                  * + [^\s] => \S
                  */
-                ShortClassDefinitionStrategy.apply(modifiers, regex, target, holder);
+                ShortClassDefinitionStrategy.apply(parsed, target, holder);
 
                 /* Optimizations:
                  * (...) => (?:...) (if there is no back-reference)
@@ -152,21 +165,56 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  *
                  * + greedy character classes [\d\w][\D\W]
                  * + dangerous (a+)+ pattern
+                 * + catastrophic backtracking found by the automaton analysis
+                 * + pcre.backtrack_limit exceeded on simulated subjects (opt-in, expensive)
                  */
-                SequentialClassesCollapseCheckStrategy.apply(regex, target, holder);
-                AmbiguousAnythingTrimCheckStrategy.apply(strFunctionName, reference, regex, target, holder);
-                //NonGreedyTransformCheckStrategy.apply(regex, target, holder);
-                GreedyCharactersSetCheckStrategy.apply(regex, target, holder);
-                QuantifierCompoundsQuantifierCheckStrategy.apply(regex, target, holder);
+                SequentialClassesCollapseCheckStrategy.apply(parsed, target, holder);
+                AmbiguousAnythingTrimCheckStrategy.apply(strFunctionName, reference, parsed, target, holder);
+                //NonGreedyTransformCheckStrategy.apply(parsed, target, holder);
+                GreedyCharactersSetCheckStrategy.apply(parsed, target, holder);
+                if (
+                    !QuantifierCompoundsQuantifierCheckStrategy.apply(parsed, target, holder) &&
+                    !CatastrophicBacktrackingCheckStrategy.apply(parsed, target, holder) &&
+                    SIMULATE_BACKTRACKING
+                ) {
+                    BacktrackLimitCheckStrategy.apply(strFunctionName, parsed, target, holder);
+                }
 
                 /*
                  * Probably bugs:
                  *  - nested tags check without /s
                  *  - unicode characters without /u
                  */
-                MissingDotAllCheckStrategy.apply(modifiers, regex, target, holder);
-                MissingUnicodeModifierStrategy.apply(modifiers, regex, target, holder);
+                MissingDotAllCheckStrategy.apply(parsed, target, holder);
+                MissingUnicodeModifierStrategy.apply(parsed, target, holder);
             }
         };
     }
+
+    public JComponent createOptionsPanel() {
+        return (new NotOptimalRegularExpressionsInspector.OptionsPanel()).getComponent();
+    }
+
+    public class OptionsPanel {
+        final private JPanel optionsPanel;
+
+        final private JCheckBox simulateBacktracking;
+
+        public OptionsPanel() {
+            optionsPanel = new JPanel();
+            optionsPanel.setLayout(new MigLayout());
+
+            simulateBacktracking = new JCheckBox("Simulate matching to find pcre.backtrack_limit errors (slow)", SIMULATE_BACKTRACKING);
+            simulateBacktracking.addChangeListener(new ChangeListener() {
+                public void stateChanged(ChangeEvent e) {
+                    SIMULATE_BACKTRACKING = simulateBacktracking.isSelected();
+                }
+            });
+            optionsPanel.add(simulateBacktracking, "wrap");
+        }
+
+        public JPanel getComponent() {
+            return optionsPanel;
+        }
+    }
 }
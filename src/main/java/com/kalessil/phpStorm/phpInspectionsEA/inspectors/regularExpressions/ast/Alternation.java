@@ -0,0 +1,32 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/** a|b|c: branches are always sequences */
+final public class Alternation extends RegexNode {
+    private final List<RegexNode> branches;
+
+    Alternation(@NotNull String pattern, int startOffset, int endOffset, @NotNull List<RegexNode> branches) {
+        super(pattern, startOffset, endOffset);
+        this.branches = Collections.unmodifiableList(branches);
+    }
+
+    @NotNull
+    public List<RegexNode> getBranches() {
+        return branches;
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        return branches;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitAlternation(this);
+    }
+}
@@ -0,0 +1,23 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Zero-width assertions: ^, $, \A, \z, \Z, \b, \B, \G and the match start reset \K */
+final public class Anchor extends RegexNode {
+    private final char type;
+
+    Anchor(@NotNull String pattern, int startOffset, int endOffset, char type) {
+        super(pattern, startOffset, endOffset);
+        this.type = type;
+    }
+
+    /** @return '^', '$' or the escape letter */
+    public char getType() {
+        return type;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitAnchor(this);
+    }
+}
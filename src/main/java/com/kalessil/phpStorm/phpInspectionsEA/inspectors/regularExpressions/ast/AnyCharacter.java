@@ -0,0 +1,15 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** The dot */
+final public class AnyCharacter extends RegexNode {
+    AnyCharacter(@NotNull String pattern, int startOffset, int endOffset) {
+        super(pattern, startOffset, endOffset);
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitAnyCharacter(this);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Back-references (\1, \g{-1}, \k<name>, (?P=name)) and subroutine calls ((?R), (?1), (?&name), \g<name>) */
+final public class BackReference extends RegexNode {
+    private final String target;
+    private final boolean isSubroutine;
+
+    BackReference(@NotNull String pattern, int startOffset, int endOffset, @NotNull String target, boolean isSubroutine) {
+        super(pattern, startOffset, endOffset);
+        this.target       = target;
+        this.isSubroutine = isSubroutine;
+    }
+
+    /** @return group number (can be relative, e.g. -1), name or 'R' for the whole pattern recursion */
+    @NotNull
+    public String getTarget() {
+        return target;
+    }
+
+    public boolean isSubroutine() {
+        return isSubroutine;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitBackReference(this);
+    }
+}
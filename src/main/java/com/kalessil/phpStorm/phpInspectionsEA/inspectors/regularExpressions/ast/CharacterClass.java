@@ -0,0 +1,45 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/** [...] and [^...]: items are literals, ranges, escapes (\d, \w, ...) and POSIX classes */
+final public class CharacterClass extends RegexNode {
+    private final boolean isNegated;
+    private final List<RegexNode> items;
+
+    CharacterClass(@NotNull String pattern, int startOffset, int endOffset, boolean isNegated, @NotNull List<RegexNode> items) {
+        super(pattern, startOffset, endOffset);
+        this.isNegated = isNegated;
+        this.items     = Collections.unmodifiableList(items);
+    }
+
+    public boolean isNegated() {
+        return isNegated;
+    }
+
+    @NotNull
+    public List<RegexNode> getItems() {
+        return items;
+    }
+
+    /** @return text between the brackets, including the negation */
+    @NotNull
+    public String getBodyText() {
+        final String text = getText();
+        return text.substring(1, text.length() - 1);
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        return items;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitCharacterClass(this);
+    }
+}
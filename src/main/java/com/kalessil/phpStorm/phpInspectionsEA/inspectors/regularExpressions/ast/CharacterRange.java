@@ -0,0 +1,39 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** a-z inside character classes */
+final public class CharacterRange extends RegexNode {
+    private final Literal from;
+    private final Literal to;
+
+    CharacterRange(@NotNull String pattern, int startOffset, int endOffset, @NotNull Literal from, @NotNull Literal to) {
+        super(pattern, startOffset, endOffset);
+        this.from = from;
+        this.to   = to;
+    }
+
+    @NotNull
+    public Literal getFrom() {
+        return from;
+    }
+
+    @NotNull
+    public Literal getTo() {
+        return to;
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        return Arrays.<RegexNode>asList(from, to);
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitCharacterRange(this);
+    }
+}
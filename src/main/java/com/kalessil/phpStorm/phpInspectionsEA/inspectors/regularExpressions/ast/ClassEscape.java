@@ -0,0 +1,32 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** \d, \D, \w, \W, \s, \S, \h, \H, \v, \V, \R, \N, \X and unicode properties (\p{...}, \P{...}) */
+final public class ClassEscape extends RegexNode {
+    private final char type;
+    private final String property;
+
+    ClassEscape(@NotNull String pattern, int startOffset, int endOffset, char type, @Nullable String property) {
+        super(pattern, startOffset, endOffset);
+        this.type     = type;
+        this.property = property;
+    }
+
+    /** @return the escape letter, e.g. 'd' for \d or 'P' for \P{Lu} */
+    public char getType() {
+        return type;
+    }
+
+    /** @return the property name for \p and \P escapes */
+    @Nullable
+    public String getProperty() {
+        return property;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitClassEscape(this);
+    }
+}
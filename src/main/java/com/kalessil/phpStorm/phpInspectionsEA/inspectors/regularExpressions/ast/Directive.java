@@ -0,0 +1,19 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Inline options settings (?i), (?-x) and control verbs (*UTF8), (*SKIP), ... */
+final public class Directive extends RegexNode {
+    Directive(@NotNull String pattern, int startOffset, int endOffset) {
+        super(pattern, startOffset, endOffset);
+    }
+
+    public boolean isVerb() {
+        return getText().startsWith("(*");
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitDirective(this);
+    }
+}
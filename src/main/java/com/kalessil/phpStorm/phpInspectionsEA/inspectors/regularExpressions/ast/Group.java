@@ -0,0 +1,80 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** (...), (?:...), (?<name>...), look-arounds, atomic, scoped options and conditional groups */
+final public class Group extends RegexNode {
+    public enum Kind {
+        CAPTURING, NAMED, NON_CAPTURING, BRANCH_RESET, ATOMIC, OPTIONS, CONDITIONAL,
+        LOOKAHEAD, NEGATIVE_LOOKAHEAD, LOOKBEHIND, NEGATIVE_LOOKBEHIND
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final RegexNode condition;
+    private final RegexNode body;
+
+    Group(
+        @NotNull String pattern, int startOffset, int endOffset,
+        @NotNull Kind kind, @Nullable String name, @Nullable RegexNode condition, @NotNull RegexNode body
+    ) {
+        super(pattern, startOffset, endOffset);
+        this.kind      = kind;
+        this.name      = name;
+        this.condition = condition;
+        this.body      = body;
+    }
+
+    @NotNull
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isCapturing() {
+        return Kind.CAPTURING == kind || Kind.NAMED == kind;
+    }
+
+    public boolean isLookaround() {
+        return Kind.LOOKAHEAD == kind || Kind.NEGATIVE_LOOKAHEAD == kind || Kind.LOOKBEHIND == kind || Kind.NEGATIVE_LOOKBEHIND == kind;
+    }
+
+    /** @return the name for named groups */
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    /** @return the assertion for conditional groups, if the condition is an assertion */
+    @Nullable
+    public RegexNode getCondition() {
+        return condition;
+    }
+
+    @NotNull
+    public RegexNode getBody() {
+        return body;
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        if (null == condition) {
+            return Collections.singletonList(body);
+        }
+
+        final List<RegexNode> children = new ArrayList<>(2);
+        children.add(condition);
+        children.add(body);
+        return children;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitGroup(this);
+    }
+}
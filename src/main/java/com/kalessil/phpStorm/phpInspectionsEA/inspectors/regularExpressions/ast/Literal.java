@@ -0,0 +1,26 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** A single character: written as is or escaped (\., \x41, \n, ...) */
+final public class Literal extends RegexNode {
+    private final int codePoint;
+
+    Literal(@NotNull String pattern, int startOffset, int endOffset, int codePoint) {
+        super(pattern, startOffset, endOffset);
+        this.codePoint = codePoint;
+    }
+
+    public int getCodePoint() {
+        return codePoint;
+    }
+
+    public boolean isEscaped() {
+        return getText().charAt(0) == '\\';
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitLiteral(this);
+    }
+}
@@ -0,0 +1,98 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pattern with modifiers and its syntax tree. Parsing results are shared through an LRU keyed by pattern
+ * and modifiers: the same patterns are repeated across files and re-inspected on every change.
+ */
+final public class ParsedRegex {
+    private static final int cacheSize = 1024;
+    private static final Map<String, ParsedRegex> cache = new LinkedHashMap<String, ParsedRegex>(cacheSize, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedRegex> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final String pattern;
+    private final String modifiers;
+    private final RegexNode root;
+    private final String error;
+
+    @NotNull
+    public static ParsedRegex of(@NotNull String pattern, @Nullable String modifiers) {
+        final String normalizedModifiers = null == modifiers ? "" : modifiers;
+        /* modifiers are letters only, so the key is unambiguous */
+        final String key = normalizedModifiers + '/' + pattern;
+        synchronized (cache) {
+            final ParsedRegex cached = cache.get(key);
+            if (null != cached) {
+                return cached;
+            }
+        }
+
+        final ParsedRegex parsed = new ParsedRegex(pattern, normalizedModifiers);
+        synchronized (cache) {
+            cache.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    private ParsedRegex(@NotNull String pattern, @NotNull String modifiers) {
+        RegexNode root = null;
+        String error   = null;
+        try {
+            root = RegexParser.parse(pattern, modifiers);
+        } catch (RegexParser.SyntaxException syntaxError) {
+            error = syntaxError.getMessage();
+        }
+
+        this.pattern   = pattern;
+        this.modifiers = modifiers;
+        this.root      = root;
+        this.error     = error;
+    }
+
+    @NotNull
+    public String getPattern() {
+        return pattern;
+    }
+
+    /** @return modifiers, empty string if there are none */
+    @NotNull
+    public String getModifiers() {
+        return modifiers;
+    }
+
+    public boolean hasModifier(char modifier) {
+        return modifiers.indexOf(modifier) >= 0;
+    }
+
+    public boolean isValid() {
+        return null != root;
+    }
+
+    /** @return null if the pattern can not be parsed */
+    @Nullable
+    public RegexNode getRoot() {
+        return root;
+    }
+
+    /** @return the syntax error description for invalid patterns */
+    @Nullable
+    public String getError() {
+        return error;
+    }
+
+    /** visits the syntax tree, does nothing for invalid patterns */
+    public void accept(@NotNull RegexVisitor visitor) {
+        if (null != root) {
+            root.accept(visitor);
+        }
+    }
+}
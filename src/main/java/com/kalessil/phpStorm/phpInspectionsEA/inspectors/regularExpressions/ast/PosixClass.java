@@ -0,0 +1,29 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/** [:digit:], [:^alpha:] and friends inside character classes */
+final public class PosixClass extends RegexNode {
+    private final String name;
+    private final boolean isNegated;
+
+    PosixClass(@NotNull String pattern, int startOffset, int endOffset, @NotNull String name, boolean isNegated) {
+        super(pattern, startOffset, endOffset);
+        this.name      = name;
+        this.isNegated = isNegated;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public boolean isNegated() {
+        return isNegated;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitPosixClass(this);
+    }
+}
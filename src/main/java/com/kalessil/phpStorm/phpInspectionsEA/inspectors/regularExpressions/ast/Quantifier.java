@@ -0,0 +1,71 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/** atom*, atom+, atom?, atom{n}, atom{n,}, atom{n,m}; each can be lazy (?) or possessive (+) */
+final public class Quantifier extends RegexNode {
+    public static final int UNBOUNDED = -1;
+
+    public enum Mode { GREEDY, LAZY, POSSESSIVE }
+
+    private final RegexNode atom;
+    private final int min;
+    private final int max;
+    private final Mode mode;
+    private final String quantifierText;
+
+    Quantifier(
+        @NotNull String pattern, int startOffset, int endOffset,
+        @NotNull RegexNode atom, int min, int max, @NotNull Mode mode, @NotNull String quantifierText
+    ) {
+        super(pattern, startOffset, endOffset);
+        this.atom           = atom;
+        this.min            = min;
+        this.max            = max;
+        this.mode           = mode;
+        this.quantifierText = quantifierText;
+    }
+
+    @NotNull
+    public RegexNode getAtom() {
+        return atom;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    /** @return UNBOUNDED for *, + and {n,} */
+    public int getMax() {
+        return max;
+    }
+
+    public boolean isUnbounded() {
+        return UNBOUNDED == max;
+    }
+
+    @NotNull
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** @return the quantifier without lazy/possessive suffix, e.g. '+' or '{1,10}' */
+    @NotNull
+    public String getQuantifierText() {
+        return quantifierText;
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        return Collections.singletonList(atom);
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitQuantifier(this);
+    }
+}
@@ -0,0 +1,46 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of a parsed PCRE pattern, offsets are relative to the pattern (delimiters and modifiers excluded).
+ */
+public abstract class RegexNode {
+    private final String pattern;
+    private final int startOffset;
+    private final int endOffset;
+
+    RegexNode(@NotNull String pattern, int startOffset, int endOffset) {
+        this.pattern     = pattern;
+        this.startOffset = startOffset;
+        this.endOffset   = endOffset;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    @NotNull
+    public String getText() {
+        return pattern.substring(startOffset, endOffset);
+    }
+
+    @NotNull
+    public List<RegexNode> getChildren() {
+        return Collections.emptyList();
+    }
+
+    public abstract void accept(@NotNull RegexVisitor visitor);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + getText();
+    }
+}
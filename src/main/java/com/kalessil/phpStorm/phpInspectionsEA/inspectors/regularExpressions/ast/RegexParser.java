@@ -0,0 +1,616 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of PCRE patterns (as written in PHP strings, without delimiters). Covers the syntax
+ * used in practice; unknown constructs are parsed as literals rather than reported.
+ */
+final class RegexParser {
+    private final String pattern;
+    private final int length;
+    private final boolean isExtended;
+    private int position = 0;
+
+    static class SyntaxException extends Exception {
+        SyntaxException(@NotNull String message, int offset) {
+            super(message + " at offset " + offset);
+        }
+    }
+
+    private RegexParser(@NotNull String pattern, @NotNull String modifiers) {
+        this.pattern    = pattern;
+        this.length     = pattern.length();
+        this.isExtended = modifiers.indexOf('x') >= 0;
+    }
+
+    @NotNull
+    static RegexNode parse(@NotNull String pattern, @NotNull String modifiers) throws SyntaxException {
+        final RegexParser parser = new RegexParser(pattern, modifiers);
+        final RegexNode root     = parser.parseAlternation();
+        if (parser.position < parser.length) {
+            throw new SyntaxException("unmatched closing parenthesis", parser.position);
+        }
+        return root;
+    }
+
+    @NotNull
+    private RegexNode parseAlternation() throws SyntaxException {
+        final int start                = position;
+        final List<RegexNode> branches = new ArrayList<>();
+        branches.add(parseSequence());
+        while (position < length && pattern.charAt(position) == '|') {
+            ++position;
+            branches.add(parseSequence());
+        }
+        return 1 == branches.size() ? branches.get(0) : new Alternation(pattern, start, position, branches);
+    }
+
+    @NotNull
+    private Sequence parseSequence() throws SyntaxException {
+        final int start             = position;
+        final List<RegexNode> items = new ArrayList<>();
+        while (position < length) {
+            final char current = pattern.charAt(position);
+            if (current == '|' || current == ')') {
+                break;
+            }
+            if (skipExtendedWhitespace()) {
+                continue;
+            }
+
+            /* \Q...\E: quoted sequence, a quantifier is applied to the last character */
+            if (pattern.startsWith("\\Q", position)) {
+                position += 2;
+                while (position < length && !pattern.startsWith("\\E", position)) {
+                    items.add(parseLiteral());
+                }
+                position = Math.min(length, position + 2);
+                if (!items.isEmpty()) {
+                    items.add(parseQuantifiers(items.remove(items.size() - 1)));
+                }
+                continue;
+            }
+
+            final RegexNode atom = parseAtom();
+            if (null != atom) {
+                items.add(parseQuantifiers(atom));
+            }
+        }
+        return new Sequence(pattern, start, position, items);
+    }
+
+    /* x modifier: white-spaces and comments are not a part of the pattern */
+    private boolean skipExtendedWhitespace() {
+        if (!isExtended || position >= length) {
+            return false;
+        }
+
+        final char current = pattern.charAt(position);
+        if (Character.isWhitespace(current)) {
+            ++position;
+            return true;
+        }
+        if (current == '#') {
+            while (position < length && pattern.charAt(position) != '\n') {
+                ++position;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private RegexNode parseAtom() throws SyntaxException {
+        final int start    = position;
+        final char current = pattern.charAt(position);
+        switch (current) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return parseCharacterClass();
+            case '.':
+                ++position;
+                return new AnyCharacter(pattern, start, position);
+            case '^':
+            case '$':
+                ++position;
+                return new Anchor(pattern, start, position, current);
+            case '\\':
+                return parseEscape(false);
+            case '*':
+            case '+':
+            case '?':
+                throw new SyntaxException("quantifier does not follow a repeatable item", position);
+            case '{':
+                if (isQuantifierAt(position)) {
+                    throw new SyntaxException("quantifier does not follow a repeatable item", position);
+                }
+                return parseLiteral();
+            default:
+                return parseLiteral();
+        }
+    }
+
+    @NotNull
+    private Literal parseLiteral() {
+        final int start     = position;
+        final int codePoint = pattern.codePointAt(position);
+        position           += Character.charCount(codePoint);
+        return new Literal(pattern, start, position, codePoint);
+    }
+
+    @NotNull
+    private RegexNode parseQuantifiers(@NotNull RegexNode atom) {
+        RegexNode quantified = atom;
+        while (true) {
+            final int backup = position;
+            while (skipExtendedWhitespace()) {
+                /* white-spaces between an atom and its quantifier are ignored */
+            }
+            if (position >= length) {
+                position = backup;
+                return quantified;
+            }
+
+            final int quantifierStart = position;
+            final char current        = pattern.charAt(position);
+            int min;
+            int max;
+            if (current == '*') {
+                min = 0;
+                max = Quantifier.UNBOUNDED;
+                ++position;
+            } else if (current == '+') {
+                min = 1;
+                max = Quantifier.UNBOUNDED;
+                ++position;
+            } else if (current == '?') {
+                min = 0;
+                max = 1;
+                ++position;
+            } else if (current == '{' && isQuantifierAt(position)) {
+                final int closing  = pattern.indexOf('}', position);
+                final String body  = pattern.substring(position + 1, closing);
+                final int comma    = body.indexOf(',');
+                min                = parseBound(comma < 0 ? body : body.substring(0, comma));
+                max                = comma < 0 ? min : (comma == body.length() - 1 ? Quantifier.UNBOUNDED : parseBound(body.substring(comma + 1)));
+                position           = closing + 1;
+            } else {
+                position = backup;
+                return quantified;
+            }
+            final String quantifierText = pattern.substring(quantifierStart, position);
+
+            Quantifier.Mode mode = Quantifier.Mode.GREEDY;
+            if (position < length && pattern.charAt(position) == '?') {
+                mode = Quantifier.Mode.LAZY;
+                ++position;
+            } else if (position < length && pattern.charAt(position) == '+') {
+                mode = Quantifier.Mode.POSSESSIVE;
+                ++position;
+            }
+
+            quantified = new Quantifier(pattern, atom.getStartOffset(), position, quantified, min, max, mode, quantifierText);
+        }
+    }
+
+    /* huge bounds are compile errors in PCRE, here they are just saturated */
+    private static int parseBound(@NotNull String digits) {
+        return digits.length() > 6 ? Integer.MAX_VALUE : Integer.parseInt(digits);
+    }
+
+    /* {n}, {n,} and {n,m}: anything else is a literal curly brace */
+    private boolean isQuantifierAt(int offset) {
+        int cursor       = offset + 1;
+        int digitsBefore = 0;
+        while (cursor < length && Character.isDigit(pattern.charAt(cursor))) {
+            ++cursor;
+            ++digitsBefore;
+        }
+        if (0 == digitsBefore || cursor >= length) {
+            return false;
+        }
+        if (pattern.charAt(cursor) == '}') {
+            return true;
+        }
+        if (pattern.charAt(cursor) != ',') {
+            return false;
+        }
+
+        ++cursor;
+        while (cursor < length && Character.isDigit(pattern.charAt(cursor))) {
+            ++cursor;
+        }
+        return cursor < length && pattern.charAt(cursor) == '}';
+    }
+
+    @Nullable
+    private RegexNode parseGroup() throws SyntaxException {
+        final int start = position;
+        ++position;
+
+        /* control verbs: (*UTF8), (*SKIP), ... */
+        if (position < length && pattern.charAt(position) == '*') {
+            skipTo(')', start);
+            return new Directive(pattern, start, position);
+        }
+
+        if (position >= length || pattern.charAt(position) != '?') {
+            return finishGroup(start, Group.Kind.CAPTURING, null, null);
+        }
+
+        ++position;
+        if (position >= length) {
+            throw new SyntaxException("unterminated group", start);
+        }
+        final char marker = pattern.charAt(position);
+        switch (marker) {
+            case '#':
+                skipTo(')', start);
+                return null;
+            case ':':
+                ++position;
+                return finishGroup(start, Group.Kind.NON_CAPTURING, null, null);
+            case '|':
+                ++position;
+                return finishGroup(start, Group.Kind.BRANCH_RESET, null, null);
+            case '>':
+                ++position;
+                return finishGroup(start, Group.Kind.ATOMIC, null, null);
+            case '=':
+                ++position;
+                return finishGroup(start, Group.Kind.LOOKAHEAD, null, null);
+            case '!':
+                ++position;
+                return finishGroup(start, Group.Kind.NEGATIVE_LOOKAHEAD, null, null);
+            case '<':
+                ++position;
+                if (position < length && pattern.charAt(position) == '=') {
+                    ++position;
+                    return finishGroup(start, Group.Kind.LOOKBEHIND, null, null);
+                }
+                if (position < length && pattern.charAt(position) == '!') {
+                    ++position;
+                    return finishGroup(start, Group.Kind.NEGATIVE_LOOKBEHIND, null, null);
+                }
+                return finishNamedGroup(start, '>');
+            case '\'':
+                ++position;
+                return finishNamedGroup(start, '\'');
+            case 'P':
+                ++position;
+                if (position < length && pattern.charAt(position) == '<') {
+                    ++position;
+                    return finishNamedGroup(start, '>');
+                }
+                if (position < length && (pattern.charAt(position) == '=' || pattern.charAt(position) == '>')) {
+                    final boolean isSubroutine = pattern.charAt(position) == '>';
+                    final int nameStart        = position + 1;
+                    skipTo(')', start);
+                    return new BackReference(pattern, start, position, pattern.substring(nameStart, position - 1), isSubroutine);
+                }
+                throw new SyntaxException("unrecognized character after (?P", position);
+            case '&':
+            case 'R':
+            case '+':
+            case '-':
+            case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
+                if (marker == '-' && position + 1 < length && !Character.isDigit(pattern.charAt(position + 1))) {
+                    return parseOptions(start);
+                }
+                final int targetStart = marker == '&' ? position + 1 : position;
+                skipTo(')', start);
+                return new BackReference(pattern, start, position, pattern.substring(targetStart, position - 1), true);
+            case '(':
+                return parseConditionalGroup(start);
+            default:
+                return parseOptions(start);
+        }
+    }
+
+    @NotNull
+    private Group finishNamedGroup(int start, char nameTerminator) throws SyntaxException {
+        final int nameStart = position;
+        skipTo(nameTerminator, start);
+        return finishGroup(start, Group.Kind.NAMED, pattern.substring(nameStart, position - 1), null);
+    }
+
+    @NotNull
+    private Group finishGroup(int start, @NotNull Group.Kind kind, @Nullable String name, @Nullable RegexNode condition) throws SyntaxException {
+        final RegexNode body = parseAlternation();
+        if (position >= length || pattern.charAt(position) != ')') {
+            throw new SyntaxException("missing closing parenthesis", start);
+        }
+        ++position;
+        return new Group(pattern, start, position, kind, name, condition, body);
+    }
+
+    @NotNull
+    private Group parseConditionalGroup(int start) throws SyntaxException {
+        /* the condition: an assertion, or a group reference/name/R/DEFINE */
+        RegexNode condition = null;
+        if (position + 1 < length && pattern.charAt(position + 1) == '?' && position + 2 < length && "=!<".indexOf(pattern.charAt(position + 2)) >= 0) {
+            condition = parseGroup();
+        } else {
+            skipTo(')', start);
+        }
+        return finishGroup(start, Group.Kind.CONDITIONAL, null, condition);
+    }
+
+    /* (?imsxUXJ-imsx) and (?imsx-imsx:...) */
+    @NotNull
+    private RegexNode parseOptions(int start) throws SyntaxException {
+        while (position < length && (Character.isLetter(pattern.charAt(position)) || pattern.charAt(position) == '-' || pattern.charAt(position) == '^')) {
+            ++position;
+        }
+        if (position >= length) {
+            throw new SyntaxException("unterminated group", start);
+        }
+        if (pattern.charAt(position) == ')') {
+            ++position;
+            return new Directive(pattern, start, position);
+        }
+        if (pattern.charAt(position) == ':') {
+            ++position;
+            return finishGroup(start, Group.Kind.OPTIONS, null, null);
+        }
+        throw new SyntaxException("unrecognized character after (?", position);
+    }
+
+    /* moves the position after the terminator */
+    private void skipTo(char terminator, int constructStart) throws SyntaxException {
+        final int terminatorOffset = pattern.indexOf(terminator, position);
+        if (terminatorOffset < 0) {
+            throw new SyntaxException("missing terminating " + terminator, constructStart);
+        }
+        position = terminatorOffset + 1;
+    }
+
+    @NotNull
+    private CharacterClass parseCharacterClass() throws SyntaxException {
+        final int start = position;
+        ++position;
+
+        final boolean isNegated = position < length && pattern.charAt(position) == '^';
+        if (isNegated) {
+            ++position;
+        }
+
+        final List<RegexNode> items = new ArrayList<>();
+        boolean isFirst             = true;
+        while (true) {
+            if (position >= length) {
+                throw new SyntaxException("missing terminating ] for character class", start);
+            }
+
+            final char current = pattern.charAt(position);
+            if (current == ']' && !isFirst) {
+                ++position;
+                break;
+            }
+            isFirst = false;
+
+            final RegexNode item = parseClassItem();
+            if (null == item) {
+                continue;
+            }
+
+            /* ranges: literal-literal, otherwise the dash is a literal */
+            final boolean isRange = item instanceof Literal && position + 1 < length &&
+                                    pattern.charAt(position) == '-' && pattern.charAt(position + 1) != ']';
+            if (isRange) {
+                final int dashOffset = position;
+                ++position;
+                final RegexNode to = parseClassItem();
+                if (to instanceof Literal) {
+                    final Literal from = (Literal) item;
+                    if (from.getCodePoint() > ((Literal) to).getCodePoint()) {
+                        throw new SyntaxException("range out of order in character class", item.getStartOffset());
+                    }
+                    items.add(new CharacterRange(pattern, item.getStartOffset(), to.getEndOffset(), from, (Literal) to));
+                    continue;
+                }
+
+                items.add(item);
+                items.add(new Literal(pattern, dashOffset, dashOffset + 1, '-'));
+                if (null != to) {
+                    items.add(to);
+                }
+                continue;
+            }
+
+            items.add(item);
+        }
+        return new CharacterClass(pattern, start, position, isNegated, items);
+    }
+
+    @Nullable
+    private RegexNode parseClassItem() throws SyntaxException {
+        final int start    = position;
+        final char current = pattern.charAt(position);
+        if (current == '[' && position + 1 < length && pattern.charAt(position + 1) == ':') {
+            final int closing = pattern.indexOf(":]", position + 2);
+            if (closing > 0) {
+                final String body = pattern.substring(position + 2, closing);
+                final String name = body.startsWith("^") ? body.substring(1) : body;
+                if (isLettersOnly(name)) {
+                    position = closing + 2;
+                    return new PosixClass(pattern, start, position, name, body.startsWith("^"));
+                }
+            }
+        }
+        if (current == '\\') {
+            return parseEscape(true);
+        }
+        return parseLiteral();
+    }
+
+    private static boolean isLettersOnly(@NotNull String name) {
+        for (int index = 0; index < name.length(); ++index) {
+            if (!Character.isLetter(name.charAt(index))) {
+                return false;
+            }
+        }
+        return !name.isEmpty();
+    }
+
+    @Nullable
+    private RegexNode parseEscape(boolean inClass) throws SyntaxException {
+        final int start = position;
+        ++position;
+        if (position >= length) {
+            throw new SyntaxException("\\ at end of pattern", start);
+        }
+
+        final char escaped = pattern.charAt(position);
+        ++position;
+        switch (escaped) {
+            /* character types */
+            case 'd': case 'D': case 'w': case 'W': case 's': case 'S': case 'h': case 'H': case 'v': case 'V':
+                return new ClassEscape(pattern, start, position, escaped, null);
+            case 'N': case 'R': case 'X':
+                return inClass ? new Literal(pattern, start, position, escaped) : new ClassEscape(pattern, start, position, escaped, null);
+            case 'p': case 'P':
+                if (position < length && pattern.charAt(position) == '{') {
+                    final int nameStart = position + 1;
+                    skipTo('}', start);
+                    return new ClassEscape(pattern, start, position, escaped, pattern.substring(nameStart, position - 1));
+                }
+                if (position >= length) {
+                    throw new SyntaxException("malformed \\" + escaped + " sequence", start);
+                }
+                ++position;
+                return new ClassEscape(pattern, start, position, escaped, pattern.substring(position - 1, position));
+
+            /* assertions, \b is a backspace in classes */
+            case 'b':
+                return inClass ? new Literal(pattern, start, position, '\b') : new Anchor(pattern, start, position, escaped);
+            case 'B': case 'A': case 'z': case 'Z': case 'G': case 'K':
+                return inClass ? new Literal(pattern, start, position, escaped) : new Anchor(pattern, start, position, escaped);
+
+            /* back-references and subroutines */
+            case 'g':
+                if (inClass) {
+                    return new Literal(pattern, start, position, escaped);
+                }
+                if (position < length && "{<'".indexOf(pattern.charAt(position)) >= 0) {
+                    final char opening      = pattern.charAt(position);
+                    final char closing      = opening == '{' ? '}' : (opening == '<' ? '>' : '\'');
+                    final int targetStart   = position + 1;
+                    skipTo(closing, start);
+                    return new BackReference(pattern, start, position, pattern.substring(targetStart, position - 1), opening != '{');
+                }
+                final int numberStart = position;
+                if (position < length && (pattern.charAt(position) == '-' || pattern.charAt(position) == '+')) {
+                    ++position;
+                }
+                skipDigits();
+                return new BackReference(pattern, start, position, pattern.substring(numberStart, position), false);
+            case 'k':
+                if (!inClass && position < length && "{<'".indexOf(pattern.charAt(position)) >= 0) {
+                    final char opening    = pattern.charAt(position);
+                    final char closing    = opening == '{' ? '}' : (opening == '<' ? '>' : '\'');
+                    final int targetStart = position + 1;
+                    skipTo(closing, start);
+                    return new BackReference(pattern, start, position, pattern.substring(targetStart, position - 1), false);
+                }
+                return new Literal(pattern, start, position, escaped);
+            case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
+                if (!inClass) {
+                    skipDigits();
+                    return new BackReference(pattern, start, position, pattern.substring(start + 1, position), false);
+                }
+                /* octal in classes, \8 and \9 are literals */
+                if (escaped > '7') {
+                    return new Literal(pattern, start, position, escaped);
+                }
+                --position;
+                return new Literal(pattern, start, skipOctalDigits(), parseCode(start + 1, 8));
+            case '0':
+                --position;
+                return new Literal(pattern, start, skipOctalDigits(), parseCode(start + 1, 8));
+
+            /* character codes */
+            case 'x':
+                if (position < length && pattern.charAt(position) == '{') {
+                    final int codeStart = position + 1;
+                    skipTo('}', start);
+                    return new Literal(pattern, start, position, parseCode(codeStart, position - 1, 16));
+                }
+                final int hexStart = position;
+                while (position < length && position - hexStart < 2 && Character.digit(pattern.charAt(position), 16) >= 0) {
+                    ++position;
+                }
+                return new Literal(pattern, start, position, hexStart == position ? 0 : parseCode(hexStart, position, 16));
+            case 'o':
+                if (position < length && pattern.charAt(position) == '{') {
+                    final int codeStart = position + 1;
+                    skipTo('}', start);
+                    return new Literal(pattern, start, position, parseCode(codeStart, position - 1, 8));
+                }
+                return new Literal(pattern, start, position, escaped);
+            case 'c':
+                if (position >= length) {
+                    throw new SyntaxException("\\c at end of pattern", start);
+                }
+                ++position;
+                return new Literal(pattern, start, position, Character.toUpperCase(pattern.charAt(position - 1)) ^ 0x40);
+            case 'n':
+                return new Literal(pattern, start, position, '\n');
+            case 'r':
+                return new Literal(pattern, start, position, '\r');
+            case 't':
+                return new Literal(pattern, start, position, '\t');
+            case 'f':
+                return new Literal(pattern, start, position, '\f');
+            case 'e':
+                return new Literal(pattern, start, position, 0x1B);
+            case 'a':
+                return new Literal(pattern, start, position, 0x07);
+            case 'Q':
+            case 'E':
+                /* empty quoting */
+                return null;
+            default:
+                position = start + 1;
+                final int codePoint = pattern.codePointAt(position);
+                position           += Character.charCount(codePoint);
+                return new Literal(pattern, start, position, codePoint);
+        }
+    }
+
+    private void skipDigits() {
+        while (position < length && Character.isDigit(pattern.charAt(position))) {
+            ++position;
+        }
+    }
+
+    /* up to 3 octal digits starting at the position, returns the end offset */
+    private int skipOctalDigits() {
+        final int digitsStart = position;
+        while (position < length && position - digitsStart < 3 && Character.digit(pattern.charAt(position), 8) >= 0) {
+            ++position;
+        }
+        if (digitsStart == position) {
+            ++position;
+        }
+        return position;
+    }
+
+    private int parseCode(int from, int radix) {
+        return parseCode(from, position, radix);
+    }
+
+    private int parseCode(int from, int to, int radix) {
+        try {
+            return Math.min(Character.MAX_CODE_POINT, Integer.parseInt(pattern.substring(from, to).trim(), radix));
+        } catch (NumberFormatException malformed) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Visits regex nodes recursively: overridden methods are processing children by calling super.
+ */
+public abstract class RegexVisitor {
+    public void visitNode(@NotNull RegexNode node) {
+        for (RegexNode child : node.getChildren()) {
+            child.accept(this);
+        }
+    }
+
+    public void visitAlternation(@NotNull Alternation alternation) {
+        visitNode(alternation);
+    }
+
+    public void visitSequence(@NotNull Sequence sequence) {
+        visitNode(sequence);
+    }
+
+    public void visitGroup(@NotNull Group group) {
+        visitNode(group);
+    }
+
+    public void visitQuantifier(@NotNull Quantifier quantifier) {
+        visitNode(quantifier);
+    }
+
+    public void visitCharacterClass(@NotNull CharacterClass characterClass) {
+        visitNode(characterClass);
+    }
+
+    public void visitCharacterRange(@NotNull CharacterRange range) {
+        visitNode(range);
+    }
+
+    public void visitLiteral(@NotNull Literal literal) {
+        visitNode(literal);
+    }
+
+    public void visitClassEscape(@NotNull ClassEscape escape) {
+        visitNode(escape);
+    }
+
+    public void visitPosixClass(@NotNull PosixClass posixClass) {
+        visitNode(posixClass);
+    }
+
+    public void visitAnyCharacter(@NotNull AnyCharacter anyCharacter) {
+        visitNode(anyCharacter);
+    }
+
+    public void visitAnchor(@NotNull Anchor anchor) {
+        visitNode(anchor);
+    }
+
+    public void visitBackReference(@NotNull BackReference reference) {
+        visitNode(reference);
+    }
+
+    public void visitDirective(@NotNull Directive directive) {
+        visitNode(directive);
+    }
+}
@@ -0,0 +1,32 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Consecutive items of a branch (can be empty) */
+final public class Sequence extends RegexNode {
+    private final List<RegexNode> items;
+
+    Sequence(@NotNull String pattern, int startOffset, int endOffset, @NotNull List<RegexNode> items) {
+        super(pattern, startOffset, endOffset);
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    @NotNull
+    public List<RegexNode> getItems() {
+        return items;
+    }
+
+    @NotNull
+    @Override
+    public List<RegexNode> getChildren() {
+        return items;
+    }
+
+    @Override
+    public void accept(@NotNull RegexVisitor visitor) {
+        visitor.visitSequence(this);
+    }
+}
@@ -0,0 +1,10 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Thrown when a pattern can not be analyzed: unsupported constructs, too large automaton or exhausted budget */
+final class AnalysisAbortedException extends RuntimeException {
+    AnalysisAbortedException(@NotNull String reason) {
+        super(reason, null, false, false);
+    }
+}
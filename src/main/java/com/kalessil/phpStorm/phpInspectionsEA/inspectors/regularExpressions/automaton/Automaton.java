@@ -0,0 +1,108 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Epsilon-free NFA of a pattern. Transitions are a multi-set: if the matcher can reach the same character
+ * via different routes (e.g. (a|a) or (a*)*), each route is a separate transition - that's where the
+ * backtracking ambiguity comes from.
+ */
+final class Automaton {
+    static final class Transition {
+        final int id;
+        final int from;
+        final int to;
+        final CodePointSet label;
+        /* passes atomic groups or possessive quantifiers: the matcher never backtracks into alternatives there */
+        final boolean isAtomic;
+
+        Transition(int id, int from, int to, @NotNull CodePointSet label, boolean isAtomic) {
+            this.id       = id;
+            this.from     = from;
+            this.to       = to;
+            this.label    = label;
+            this.isAtomic = isAtomic;
+        }
+
+        /** two transitions can be followed in parallel by different matching attempts */
+        boolean isCompatible(@NotNull Transition other) {
+            return this == other || (!isAtomic && !other.isAtomic);
+        }
+    }
+
+    final int statesCount;
+    final int initialState;
+    /* the implicit leading .* of unanchored patterns, -1 for anchored ones */
+    final int searchState;
+    /* matches when reached, no matter what follows */
+    final BitSet finalStates;
+    /* matches when reached at the subject end ($, \Z, \z) */
+    final BitSet finalAtEndStates;
+    final List<List<Transition>> outgoing;
+    /* characters used by the pattern itself */
+    final CodePointSet alphabet;
+
+    Automaton(
+        int statesCount, int initialState, int searchState,
+        @NotNull BitSet finalStates, @NotNull BitSet finalAtEndStates, @NotNull List<Transition> transitions
+    ) {
+        this.statesCount      = statesCount;
+        this.initialState     = initialState;
+        this.searchState      = searchState;
+        this.finalStates      = finalStates;
+        this.finalAtEndStates = finalAtEndStates;
+
+        this.outgoing = new ArrayList<>(statesCount);
+        for (int state = 0; state < statesCount; ++state) {
+            this.outgoing.add(new ArrayList<Transition>());
+        }
+        CodePointSet alphabet = CodePointSet.EMPTY;
+        for (Transition transition : transitions) {
+            this.outgoing.get(transition.from).add(transition);
+            if (transition.from != searchState || transition.to != searchState) {
+                alphabet = alphabet.union(transition.label);
+            }
+        }
+        this.alphabet = alphabet;
+    }
+
+    @NotNull
+    BitSet step(@NotNull BitSet states, int codePoint) {
+        final BitSet result = new BitSet(statesCount);
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            for (Transition transition : outgoing.get(state)) {
+                if (transition.label.contains(codePoint)) {
+                    result.set(transition.to);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the subject through all paths of the matching attempt started at the subject beginning: a backtracking
+     * matcher explores all of them before moving to the next offset, even if a later attempt succeeds.
+     *
+     * @return true if the attempt fails
+     */
+    boolean isRejected(@NotNull String subject) {
+        BitSet states = new BitSet(statesCount);
+        states.set(initialState);
+        for (int offset = 0; offset < subject.length(); ) {
+            if (states.intersects(finalStates)) {
+                return false;
+            }
+            final int codePoint = subject.codePointAt(offset);
+            states              = step(states, codePoint);
+            offset             += Character.charCount(codePoint);
+            if (-1 != searchState) {
+                states.clear(searchState);
+            }
+        }
+        return !states.intersects(finalStates) && !states.intersects(finalAtEndStates);
+    }
+}
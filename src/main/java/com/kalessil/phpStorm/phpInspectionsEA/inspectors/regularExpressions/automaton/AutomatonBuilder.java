@@ -0,0 +1,319 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Builds a Thompson NFA from the syntax tree and removes epsilon-transitions from it.
+ *
+ * Approximations: look-arounds and word boundaries are ignored, large bounded quantifiers are treated as unbounded.
+ * Back-references, subroutines, conditionals and backtracking control verbs are not supported: the analysis
+ * is aborted.
+ */
+final class AutomatonBuilder {
+    private static final int maxStates      = 1000;
+    private static final int maxRepetitions = 16;
+
+    private static final class Edge {
+        final int to;
+        /* null for epsilon-edges */
+        final CodePointSet label;
+        /* $, \Z and \z: only the subject end can follow */
+        final boolean isEndAssertion;
+
+        Edge(int to, CodePointSet label, boolean isEndAssertion) {
+            this.to             = to;
+            this.label          = label;
+            this.isEndAssertion = isEndAssertion;
+        }
+    }
+
+    private final Budget budget;
+    private final List<List<Edge>> edges = new ArrayList<>();
+    /* innermost atomic region of each state, 0 if none */
+    private final List<Integer> regions  = new ArrayList<>();
+    private int regionsCount             = 0;
+    private int currentRegion            = 0;
+
+    private MatchingOptions options;
+
+    private AutomatonBuilder(@NotNull ParsedRegex regex, @NotNull Budget budget) {
+        this.budget  = budget;
+        this.options = new MatchingOptions(regex);
+    }
+
+    @NotNull
+    static Automaton build(@NotNull ParsedRegex regex, @NotNull Budget budget) {
+        final RegexNode root = regex.getRoot();
+        if (null == root) {
+            throw new AnalysisAbortedException("invalid pattern");
+        }
+        return new AutomatonBuilder(regex, budget).build(root, regex.hasModifier('A') || isAnchored(root, regex.hasModifier('m')));
+    }
+
+    @NotNull
+    private Automaton build(@NotNull RegexNode root, boolean isAnchored) {
+        final int initial = newState();
+        int start         = initial;
+        if (!isAnchored) {
+            /* unanchored patterns are matched from every offset: model it as a leading .* */
+            edges.get(initial).add(new Edge(initial, CodePointSet.ANY, false));
+            start = newState();
+            addEpsilon(initial, start);
+        }
+        final int accept = newState();
+        addEpsilon(build(root, start), accept);
+
+        return eliminateEpsilons(initial, accept, isAnchored ? -1 : initial);
+    }
+
+    static boolean isAnchored(@NotNull RegexNode root, boolean isMultiLine) {
+        final List<RegexNode> branches = root instanceof Alternation ? ((Alternation) root).getBranches() : Collections.singletonList(root);
+        for (RegexNode branch : branches) {
+            final RegexNode first = branch instanceof Sequence && !((Sequence) branch).getItems().isEmpty() ? ((Sequence) branch).getItems().get(0) : branch;
+            if (!(first instanceof Anchor)) {
+                return false;
+            }
+            final char type = ((Anchor) first).getType();
+            if ('A' != type && ('^' != type || isMultiLine)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int newState() {
+        if (edges.size() >= maxStates) {
+            throw new AnalysisAbortedException("automaton is too large");
+        }
+        edges.add(new ArrayList<Edge>());
+        regions.add(currentRegion);
+        return edges.size() - 1;
+    }
+
+    private void addEpsilon(int from, int to) {
+        edges.get(from).add(new Edge(to, null, false));
+    }
+
+
+    /** @return the state where the node fragment ends */
+    private int build(@NotNull RegexNode node, int from) {
+        budget.check();
+
+        if (node instanceof Sequence) {
+            int current = from;
+            for (RegexNode item : ((Sequence) node).getItems()) {
+                current = build(item, current);
+            }
+            return current;
+        }
+        if (node instanceof Alternation) {
+            final int exit = newState();
+            for (RegexNode branch : ((Alternation) node).getBranches()) {
+                final int entry = newState();
+                addEpsilon(from, entry);
+                addEpsilon(build(branch, entry), exit);
+            }
+            return exit;
+        }
+        if (node instanceof Group) {
+            return buildGroup((Group) node, from);
+        }
+        if (node instanceof Quantifier) {
+            final Quantifier quantifier = (Quantifier) node;
+            if (Quantifier.Mode.POSSESSIVE == quantifier.getMode()) {
+                final int savedRegion = currentRegion;
+                currentRegion         = ++regionsCount;
+                final int entry       = newState();
+                addEpsilon(from, entry);
+                final int end         = buildRepetition(quantifier, entry);
+                currentRegion         = savedRegion;
+                final int exit        = newState();
+                addEpsilon(end, exit);
+                return exit;
+            }
+            return buildRepetition(quantifier, from);
+        }
+        final CodePointSet characters = options.getCharacters(node);
+        if (null != characters) {
+            final int to = newState();
+            edges.get(from).add(new Edge(to, characters, false));
+            return to;
+        }
+        if (node instanceof Anchor) {
+            final char type = ((Anchor) node).getType();
+            if ('z' == type || 'Z' == type || ('$' == type && !options.isMultiLine)) {
+                final int exit = newState();
+                edges.get(from).add(new Edge(exit, null, true));
+                return exit;
+            }
+            /* other assertions are only restricting matches: ignoring them makes the automaton more permissive */
+            return from;
+        }
+        if (node instanceof Directive) {
+            options.apply((Directive) node);
+            return from;
+        }
+        if (node instanceof BackReference) {
+            throw new AnalysisAbortedException("back-references and subroutines are not supported");
+        }
+        throw new AnalysisAbortedException("unknown node " + node.getClass().getSimpleName());
+    }
+
+    private int buildGroup(@NotNull Group group, int from) {
+        switch (group.getKind()) {
+            case LOOKAHEAD:
+            case NEGATIVE_LOOKAHEAD:
+            case LOOKBEHIND:
+            case NEGATIVE_LOOKBEHIND:
+                return from;
+            case CONDITIONAL:
+                throw new AnalysisAbortedException("conditional groups are not supported");
+            default:
+                break;
+        }
+
+        final MatchingOptions savedOptions = options;
+        final int savedRegion              = currentRegion;
+        options = options.copy();
+        options.apply(group);
+
+        int entry = from;
+        if (Group.Kind.ATOMIC == group.getKind()) {
+            currentRegion = ++regionsCount;
+            entry         = newState();
+            addEpsilon(from, entry);
+        }
+        int end = build(group.getBody(), entry);
+        if (Group.Kind.ATOMIC == group.getKind()) {
+            currentRegion  = savedRegion;
+            final int exit = newState();
+            addEpsilon(end, exit);
+            end = exit;
+        }
+
+        options = savedOptions;
+        return end;
+    }
+
+    private int buildRepetition(@NotNull Quantifier quantifier, int from) {
+        final RegexNode atom = quantifier.getAtom();
+        final int min        = Math.min(quantifier.getMin(), maxRepetitions);
+        final boolean isLoop = quantifier.isUnbounded() || quantifier.getMax() > maxRepetitions;
+
+        int current = from;
+        for (int index = 0; index < min - (isLoop && min > 0 ? 1 : 0); ++index) {
+            current = build(atom, current);
+        }
+
+        if (isLoop) {
+            /* a fresh entry state: the loop must not return into states of preceding nodes */
+            final int entry = newState();
+            final int exit  = newState();
+            addEpsilon(current, entry);
+            final int end = build(atom, entry);
+            addEpsilon(end, entry);
+            addEpsilon(end, exit);
+            if (0 == min) {
+                addEpsilon(current, exit);
+            }
+            return exit;
+        }
+
+        /* optional repetitions are nested, (x(x)?)? instead of x?x?: otherwise they are ambiguous themselves */
+        final int exit = newState();
+        for (int index = min; index < quantifier.getMax(); ++index) {
+            addEpsilon(current, exit);
+            current = build(atom, current);
+        }
+        addEpsilon(current, exit);
+        return exit;
+    }
+
+    /**
+     * Keeps the initial state and targets of character edges. Every distinct epsilon-path leading to a character
+     * edge becomes a separate transition (two are enough to know it's ambiguous); paths visiting a state twice
+     * are skipped, as PCRE stops repeating a group which matched an empty string.
+     */
+    @NotNull
+    private Automaton eliminateEpsilons(int initial, int accept, int searchState) {
+        final int[] renumbered = new int[edges.size()];
+        Arrays.fill(renumbered, -1);
+        int statesCount = 0;
+        renumbered[initial] = statesCount++;
+        for (List<Edge> stateEdges : edges) {
+            for (Edge edge : stateEdges) {
+                if (null != edge.label && -1 == renumbered[edge.to]) {
+                    renumbered[edge.to] = statesCount++;
+                }
+            }
+        }
+
+        final BitSet finalStates      = new BitSet(statesCount);
+        final BitSet finalAtEndStates = new BitSet(statesCount);
+        final List<Automaton.Transition> transitions = new ArrayList<>();
+        for (int state = 0; state < edges.size(); ++state) {
+            if (-1 == renumbered[state]) {
+                continue;
+            }
+
+            /* paths count per reached character edge, identified by its source state and index */
+            final Map<Long, Integer> pathsCounts = new LinkedHashMap<>();
+            final Map<Long, Boolean> atomicPaths = new HashMap<>();
+            final boolean[] flags                = new boolean[2];
+            collectPaths(state, accept, false, 0 != regions.get(state), new BitSet(edges.size()), pathsCounts, atomicPaths, flags);
+            if (flags[0]) {
+                finalStates.set(renumbered[state]);
+            }
+            if (flags[1]) {
+                finalAtEndStates.set(renumbered[state]);
+            }
+
+            for (Map.Entry<Long, Integer> entry : pathsCounts.entrySet()) {
+                final int source       = (int) (entry.getKey() >> 32);
+                final Edge edge        = edges.get(source).get((int) (long) entry.getKey());
+                final boolean isAtomic = atomicPaths.get(entry.getKey()) || 0 != regions.get(source) || 0 != regions.get(edge.to);
+                for (int index = 0; index < entry.getValue(); ++index) {
+                    transitions.add(new Automaton.Transition(transitions.size(), renumbered[state], renumbered[edge.to], edge.label, isAtomic));
+                }
+            }
+        }
+
+        return new Automaton(
+            statesCount, renumbered[initial], -1 == searchState ? -1 : renumbered[searchState],
+            finalStates, finalAtEndStates, transitions
+        );
+    }
+
+    private void collectPaths(
+        int state, int accept, boolean isAtEnd, boolean isAtomic, @NotNull BitSet visited,
+        @NotNull Map<Long, Integer> pathsCounts, @NotNull Map<Long, Boolean> atomicPaths, @NotNull boolean[] flags
+    ) {
+        budget.check();
+        if (state == accept) {
+            flags[isAtEnd ? 1 : 0] = true;
+        }
+
+        visited.set(state);
+        final List<Edge> stateEdges = edges.get(state);
+        for (int index = 0; index < stateEdges.size(); ++index) {
+            final Edge edge = stateEdges.get(index);
+            if (null != edge.label) {
+                if (!isAtEnd) {
+                    final long key      = ((long) state << 32) | index;
+                    final Integer count = pathsCounts.get(key);
+                    pathsCounts.put(key, null == count ? 1 : Math.min(2, count + 1));
+                    atomicPaths.put(key, isAtomic || Boolean.TRUE.equals(atomicPaths.get(key)));
+                }
+            } else if (!visited.get(edge.to)) {
+                collectPaths(
+                    edge.to, accept, isAtEnd || edge.isEndAssertion, isAtomic || 0 != regions.get(edge.to),
+                    visited, pathsCounts, atomicPaths, flags
+                );
+            }
+        }
+        visited.clear(state);
+    }
+}
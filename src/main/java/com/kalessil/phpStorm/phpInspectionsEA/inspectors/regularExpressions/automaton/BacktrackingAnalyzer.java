@@ -0,0 +1,604 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Finds catastrophic backtracking by checking the pattern automaton for ambiguity:
+ *  - exponential: a state can be left and re-entered by two different paths on the same string;
+ *  - polynomial: states p and q (q follows p) loop on the same string which also leads from p to q,
+ *    the degree is the longest chain of such states.
+ *
+ * A found ambiguity is reported only if a witness (prefix, pumped strings, failing suffix) makes the matching
+ * attempt fail: otherwise the matcher succeeds before exploring the ambiguous paths.
+ */
+final public class BacktrackingAnalyzer {
+    /* the witness pumps are repeated this many times when the witness is verified */
+    private static final int verificationRepetitions = 24;
+
+    private static final Map<ParsedRegex, Vulnerability> cache = new WeakHashMap<>();
+    /* steps which were available to aborted analyses: a smaller budget would be exhausted again */
+    private static final Map<ParsedRegex, Long> aborts = new WeakHashMap<>();
+    /* marks analyzed patterns without vulnerabilities in the cache */
+    private static final Vulnerability none = new Vulnerability(true, 0, "", Collections.<String>emptyList(), Collections.<String>emptyList(), "");
+
+    static final public class Vulnerability {
+        private final boolean isExponential;
+        private final int degree;
+        private final String prefix;
+        private final List<String> pumps;
+        private final List<String> separators;
+        private final String suffix;
+
+        Vulnerability(
+            boolean isExponential, int degree,
+            @NotNull String prefix, @NotNull List<String> pumps, @NotNull List<String> separators, @NotNull String suffix
+        ) {
+            this.isExponential = isExponential;
+            this.degree        = degree;
+            this.prefix        = prefix;
+            this.pumps         = pumps;
+            this.separators    = separators;
+            this.suffix        = suffix;
+        }
+
+        public boolean isExponential() {
+            return isExponential;
+        }
+
+        /** @return the polynomial degree, 0 for exponential vulnerabilities */
+        public int getDegree() {
+            return degree;
+        }
+
+        /** @return the attack string as PHP expression, e.g. 'a' . str_repeat('ab', 32) . '!' */
+        @NotNull
+        public String getAttackExpression(int repetitions) {
+            final List<String> parts = new ArrayList<>();
+            if (!prefix.isEmpty()) {
+                parts.add(toPhpString(prefix));
+            }
+            for (int index = 0; index < pumps.size(); ++index) {
+                parts.add("str_repeat(" + toPhpString(pumps.get(index)) + ", " + repetitions + ')');
+                if (index < separators.size() && !separators.get(index).isEmpty()) {
+                    parts.add(toPhpString(separators.get(index)));
+                }
+            }
+            if (!suffix.isEmpty()) {
+                parts.add(toPhpString(suffix));
+            }
+
+            final StringBuilder expression = new StringBuilder();
+            for (String part : parts) {
+                expression.append(0 == expression.length() ? "" : " . ").append(part);
+            }
+            return expression.toString();
+        }
+
+        @NotNull
+        String getAttack(int repetitions) {
+            final StringBuilder attack = new StringBuilder(prefix);
+            for (int index = 0; index < pumps.size(); ++index) {
+                for (int repetition = 0; repetition < repetitions; ++repetition) {
+                    attack.append(pumps.get(index));
+                }
+                if (index < separators.size()) {
+                    attack.append(separators.get(index));
+                }
+            }
+            return attack.append(suffix).toString();
+        }
+    }
+
+    /**
+     * @return null if the pattern is safe, or it can not be analyzed within the steps budget
+     */
+    @Nullable
+    public static Vulnerability analyze(@NotNull ParsedRegex regex, long budgetSteps) {
+        return analyze(regex, new Budget(budgetSteps));
+    }
+
+    /** the budget can be shared with the caller: aborted analyses are re-run only with more steps available */
+    @Nullable
+    static Vulnerability analyze(@NotNull ParsedRegex regex, @NotNull Budget budget) {
+        if (!regex.isValid()) {
+            return null;
+        }
+        synchronized (cache) {
+            final Vulnerability cached = cache.get(regex);
+            if (null != cached) {
+                return none == cached ? null : cached;
+            }
+            final Long abortedWith = aborts.get(regex);
+            if (null != abortedWith && budget.getRemaining() <= abortedWith) {
+                return null;
+            }
+        }
+
+        final long available = budget.getRemaining();
+        Vulnerability result;
+        try {
+            final Automaton automaton = AutomatonBuilder.build(regex, budget);
+            final BacktrackingAnalyzer analyzer = new BacktrackingAnalyzer(automaton, budget);
+            result = analyzer.findExponential();
+            if (null == result) {
+                result = analyzer.findPolynomial();
+            }
+        } catch (AnalysisAbortedException aborted) {
+            synchronized (cache) {
+                aborts.put(regex, available);
+            }
+            return null;
+        }
+
+        synchronized (cache) {
+            aborts.remove(regex);
+            cache.put(regex, null == result ? none : result);
+        }
+        return result;
+    }
+
+    private final Automaton automaton;
+    private final Budget budget;
+    private final int statesCount;
+    /* states which are reachable and from which a match is possible */
+    private final BitSet useful;
+    private final int[] components;
+    private final int componentsCount;
+    private final boolean[] isCyclic;
+
+    private BacktrackingAnalyzer(@NotNull Automaton automaton, @NotNull Budget budget) {
+        this.automaton   = automaton;
+        this.budget      = budget;
+        this.statesCount = automaton.statesCount;
+        this.useful      = findUsefulStates();
+
+        this.components      = new int[statesCount];
+        this.componentsCount = findComponents();
+        this.isCyclic        = new boolean[componentsCount];
+        for (int state = useful.nextSetBit(0); state >= 0; state = useful.nextSetBit(state + 1)) {
+            for (Automaton.Transition transition : automaton.outgoing.get(state)) {
+                if (components[state] == components[transition.to]) {
+                    isCyclic[components[state]] = true;
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private BitSet findUsefulStates() {
+        final BitSet reachable = new BitSet(statesCount);
+        final Deque<Integer> queue = new ArrayDeque<>();
+        reachable.set(automaton.initialState);
+        queue.add(automaton.initialState);
+        final List<List<Integer>> incoming = new ArrayList<>(statesCount);
+        for (int state = 0; state < statesCount; ++state) {
+            incoming.add(new ArrayList<Integer>());
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (Automaton.Transition transition : automaton.outgoing.get(state)) {
+                incoming.get(transition.to).add(state);
+                if (!reachable.get(transition.to)) {
+                    reachable.set(transition.to);
+                    queue.add(transition.to);
+                }
+            }
+        }
+
+        final BitSet matching = new BitSet(statesCount);
+        matching.or(automaton.finalStates);
+        matching.or(automaton.finalAtEndStates);
+        matching.and(reachable);
+        for (int state = matching.nextSetBit(0); state >= 0; state = matching.nextSetBit(state + 1)) {
+            queue.add(state);
+        }
+        while (!queue.isEmpty()) {
+            for (int predecessor : incoming.get(queue.poll())) {
+                if (!matching.get(predecessor)) {
+                    matching.set(predecessor);
+                    queue.add(predecessor);
+                }
+            }
+        }
+        return matching;
+    }
+
+    /** Tarjan's strongly connected components over useful states, iterative: patterns can be long */
+    private int findComponents() {
+        Arrays.fill(components, -1);
+        final int[] indexes  = new int[statesCount];
+        final int[] lowLinks = new int[statesCount];
+        final int[] cursors  = new int[statesCount];
+        Arrays.fill(indexes, -1);
+        final Deque<Integer> stack     = new ArrayDeque<>();
+        final Deque<Integer> callStack = new ArrayDeque<>();
+        final BitSet onStack           = new BitSet(statesCount);
+        int index = 0, count = 0;
+
+        for (int root = useful.nextSetBit(0); root >= 0; root = useful.nextSetBit(root + 1)) {
+            if (-1 != indexes[root]) {
+                continue;
+            }
+            callStack.push(root);
+            while (!callStack.isEmpty()) {
+                budget.check();
+                final int state = callStack.peek();
+                if (-1 == indexes[state]) {
+                    indexes[state] = lowLinks[state] = index++;
+                    stack.push(state);
+                    onStack.set(state);
+                }
+
+                final List<Automaton.Transition> transitions = automaton.outgoing.get(state);
+                boolean isDescending = false;
+                while (cursors[state] < transitions.size()) {
+                    final int next = transitions.get(cursors[state]++).to;
+                    if (!useful.get(next)) {
+                        continue;
+                    }
+                    if (-1 == indexes[next]) {
+                        callStack.push(next);
+                        isDescending = true;
+                        break;
+                    }
+                    if (onStack.get(next)) {
+                        lowLinks[state] = Math.min(lowLinks[state], indexes[next]);
+                    }
+                }
+                if (isDescending) {
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    final int parent = callStack.peek();
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[state]);
+                }
+                if (lowLinks[state] == indexes[state]) {
+                    int member;
+                    do {
+                        member = stack.pop();
+                        onStack.clear(member);
+                        components[member] = count;
+                    } while (member != state);
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Nullable
+    private Vulnerability findExponential() {
+        for (int component = 0; component < componentsCount; ++component) {
+            if (!isCyclic[component]) {
+                continue;
+            }
+
+            /* pairs of states from the component, both paths must stay inside it to return into the same state */
+            final List<Integer> members = new ArrayList<>();
+            for (int state = useful.nextSetBit(0); state >= 0; state = useful.nextSetBit(state + 1)) {
+                if (component == components[state]) {
+                    members.add(state);
+                }
+            }
+            for (int state : members) {
+                final List<Automaton.Transition> transitions = automaton.outgoing.get(state);
+                for (int first = 0; first < transitions.size(); ++first) {
+                    for (int second = first + 1; second < transitions.size(); ++second) {
+                        final Automaton.Transition left  = transitions.get(first);
+                        final Automaton.Transition right = transitions.get(second);
+                        if (
+                            component != components[left.to] || component != components[right.to] ||
+                            !left.isCompatible(right) || !left.label.intersects(right.label)
+                        ) {
+                            continue;
+                        }
+
+                        /* the paths diverged: can they meet again in the state reading the same string? */
+                        final String loop = findPairPath(left.to, right.to, state, component, left.label.intersect(right.label).sample());
+                        if (null == loop) {
+                            continue;
+                        }
+                        final String prefix = findPrefix(state);
+                        final Vulnerability candidate = verify(
+                            true, 0, prefix, Collections.singletonList(loop), Collections.<String>emptyList()
+                        );
+                        if (null != candidate) {
+                            return candidate;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /** BFS in the product automaton from (left, right) to (target, target) */
+    @Nullable
+    private String findPairPath(int left, int right, int target, int component, int firstCodePoint) {
+        final Map<Long, long[]> visited = new HashMap<>();
+        final Deque<Long> queue         = new ArrayDeque<>();
+        final long start                = pair(left, right);
+        visited.put(start, null);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            budget.check();
+            final long current = queue.poll();
+            final int first    = (int) (current >> 32);
+            final int second   = (int) current;
+            if (first == target && second == target) {
+                final StringBuilder path = new StringBuilder();
+                for (long[] step = visited.get(current); null != step; step = visited.get(step[0])) {
+                    path.appendCodePoint((int) step[1]);
+                }
+                return new StringBuilder().appendCodePoint(firstCodePoint).append(path.reverse()).toString();
+            }
+
+            for (Automaton.Transition one : automaton.outgoing.get(first)) {
+                if (component != components[one.to]) {
+                    continue;
+                }
+                for (Automaton.Transition other : automaton.outgoing.get(second)) {
+                    budget.check();
+                    if (component != components[other.to] || !one.isCompatible(other) || !one.label.intersects(other.label)) {
+                        continue;
+                    }
+                    final long next = pair(one.to, other.to);
+                    if (!visited.containsKey(next)) {
+                        visited.put(next, new long[]{current, one.label.intersect(other.label).sample()});
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    static private long pair(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private Vulnerability findPolynomial() {
+        /* witnesses[from][to]: the pumped string for components pair, the implicit leading .* is not counted */
+        final String[][] witnesses = new String[componentsCount][componentsCount];
+        final int[][] witnessStates = new int[componentsCount][componentsCount];
+        final boolean[][] reaches   = findComponentsReachability();
+        for (int from = 0; from < componentsCount; ++from) {
+            if (!isCyclic[from] || isSearchComponent(from)) {
+                continue;
+            }
+            for (int to = 0; to < componentsCount; ++to) {
+                if (to == from || !isCyclic[to] || !reaches[from][to]) {
+                    continue;
+                }
+                findTriplePath(from, to, witnesses, witnessStates);
+            }
+        }
+
+        /* the longest chain of components connected by witnesses; Tarjan numbers components in reverse topological order */
+        final int[] lengths = new int[componentsCount];
+        final int[] next    = new int[componentsCount];
+        Arrays.fill(next, -1);
+        int best = -1;
+        for (int from = 0; from < componentsCount; ++from) {
+            lengths[from] = 1;
+            for (int to = 0; to < from; ++to) {
+                if (null != witnesses[from][to] && lengths[to] + 1 > lengths[from]) {
+                    lengths[from] = lengths[to] + 1;
+                    next[from]    = to;
+                }
+            }
+            if (lengths[from] > 1 && (-1 == best || lengths[from] > lengths[best])) {
+                best = from;
+            }
+        }
+        if (-1 == best) {
+            return null;
+        }
+
+        /* the witness: reach the first state, pump, move to the next pumped state inside its component, pump, ... */
+        final List<String> pumps      = new ArrayList<>();
+        final List<String> separators = new ArrayList<>();
+        final String prefix           = findPrefix(witnessStates[best][next[best]] >> 16);
+        for (int from = best; -1 != next[from]; from = next[from]) {
+            final int to     = next[from];
+            final int target = witnessStates[from][to] & 0xFFFF;
+            pumps.add(witnesses[from][to]);
+            if (-1 != next[to]) {
+                final String separator = findPath(target, witnessStates[to][next[to]] >> 16, to);
+                if (null == separator) {
+                    return null;
+                }
+                separators.add(separator);
+            }
+        }
+        return verify(false, lengths[best], prefix, pumps, separators);
+    }
+
+    private boolean isSearchComponent(int component) {
+        return -1 != automaton.searchState && components[automaton.searchState] == component;
+    }
+
+    @NotNull
+    private boolean[][] findComponentsReachability() {
+        final boolean[][] reaches = new boolean[componentsCount][componentsCount];
+        /* reverse topological order: successors have lower numbers and are complete when used */
+        final List<Set<Integer>> successors = new ArrayList<>(componentsCount);
+        for (int component = 0; component < componentsCount; ++component) {
+            successors.add(new HashSet<Integer>());
+        }
+        for (int state = useful.nextSetBit(0); state >= 0; state = useful.nextSetBit(state + 1)) {
+            for (Automaton.Transition transition : automaton.outgoing.get(state)) {
+                if (useful.get(transition.to) && components[state] != components[transition.to]) {
+                    successors.get(components[state]).add(components[transition.to]);
+                }
+            }
+        }
+        for (int component = 0; component < componentsCount; ++component) {
+            for (int successor : successors.get(component)) {
+                reaches[component][successor] = true;
+                for (int indirect = 0; indirect < componentsCount; ++indirect) {
+                    reaches[component][indirect] |= reaches[successor][indirect];
+                }
+            }
+        }
+        return reaches;
+    }
+
+    /**
+     * BFS in the triple product from (p, p, q) to (p, q, q): the first path loops in p, the second goes from p to q,
+     * the third loops in q - all reading the same string.
+     */
+    private void findTriplePath(int from, int to, @NotNull String[][] witnesses, @NotNull int[][] witnessStates) {
+        for (int first = useful.nextSetBit(0); first >= 0; first = useful.nextSetBit(first + 1)) {
+            if (from != components[first]) {
+                continue;
+            }
+            for (int second = useful.nextSetBit(0); second >= 0; second = useful.nextSetBit(second + 1)) {
+                budget.check();
+                if (to != components[second]) {
+                    continue;
+                }
+
+                final Map<List<Integer>, Object[]> visited = new HashMap<>();
+                final Deque<List<Integer>> queue           = new ArrayDeque<>();
+                final List<Integer> start                  = Arrays.asList(first, first, second);
+                visited.put(start, null);
+                queue.add(start);
+                while (!queue.isEmpty()) {
+                    budget.check();
+                    final List<Integer> current = queue.poll();
+                    if (current != start && current.get(0) == first && current.get(1) == second && current.get(2) == second) {
+                        final StringBuilder path = new StringBuilder();
+                        for (Object[] step = visited.get(current); null != step; step = visited.get(step[0])) {
+                            path.appendCodePoint((Integer) step[1]);
+                        }
+                        witnesses[from][to]     = path.reverse().toString();
+                        witnessStates[from][to] = (first << 16) | second;
+                        return;
+                    }
+
+                    for (Automaton.Transition one : automaton.outgoing.get(current.get(0))) {
+                        if (from != components[one.to]) {
+                            continue;
+                        }
+                        for (Automaton.Transition two : automaton.outgoing.get(current.get(1))) {
+                            if (!useful.get(two.to) || !one.isCompatible(two) || !one.label.intersects(two.label)) {
+                                continue;
+                            }
+                            final CodePointSet common = one.label.intersect(two.label);
+                            for (Automaton.Transition three : automaton.outgoing.get(current.get(2))) {
+                                budget.check();
+                                if (
+                                    to != components[three.to] || !three.isCompatible(one) || !three.isCompatible(two) ||
+                                    !common.intersects(three.label)
+                                ) {
+                                    continue;
+                                }
+                                final List<Integer> next = Arrays.asList(one.to, two.to, three.to);
+                                if (!visited.containsKey(next)) {
+                                    visited.put(next, new Object[]{current, common.intersect(three.label).sample()});
+                                    queue.add(next);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return the shortest string leading from the initial state to the given one */
+    @NotNull
+    private String findPrefix(int target) {
+        final String prefix = findPath(automaton.initialState, target, -1);
+        return null == prefix ? "" : prefix;
+    }
+
+    /** BFS, restricted to the component if it's not -1 */
+    @Nullable
+    private String findPath(int from, int to, int component) {
+        final Map<Integer, int[]> visited = new HashMap<>();
+        final Deque<Integer> queue        = new ArrayDeque<>();
+        visited.put(from, null);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            budget.check();
+            final int current = queue.poll();
+            if (current == to) {
+                final StringBuilder path = new StringBuilder();
+                for (int[] step = visited.get(current); null != step; step = visited.get(step[0])) {
+                    path.appendCodePoint(step[1]);
+                }
+                return path.reverse().toString();
+            }
+            for (Automaton.Transition transition : automaton.outgoing.get(current)) {
+                final boolean isAllowed = -1 == component ? useful.get(transition.to) : component == components[transition.to];
+                if (isAllowed && !visited.containsKey(transition.to)) {
+                    visited.put(transition.to, new int[]{current, transition.label.sample()});
+                    queue.add(transition.to);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** finds a suffix making all matching attempts fail, so the matcher has to try all ambiguous paths */
+    @Nullable
+    private Vulnerability verify(
+        boolean isExponential, int degree,
+        @NotNull String prefix, @NotNull List<String> pumps, @NotNull List<String> separators
+    ) {
+        final List<String> suffixes = new ArrayList<>();
+        final CodePointSet unused   = automaton.alphabet.complement();
+        if (!unused.isEmpty()) {
+            suffixes.add(new StringBuilder().appendCodePoint(unused.sample()).toString());
+        }
+        suffixes.addAll(Arrays.asList("!", "\n", " ", "0", "a", "_", "\u0000", ""));
+
+        for (String suffix : suffixes) {
+            final Vulnerability candidate = new Vulnerability(isExponential, degree, prefix, pumps, separators, suffix);
+            if (automaton.isRejected(candidate.getAttack(verificationRepetitions))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    static private String toPhpString(@NotNull String value) {
+        boolean isPrintable = true;
+        for (int offset = 0; offset < value.length(); ++offset) {
+            final char character = value.charAt(offset);
+            isPrintable = isPrintable && character >= 0x20 && character < 0x7F;
+        }
+        if (isPrintable) {
+            return '\'' + value.replace("\\", "\\\\").replace("'", "\\'") + '\'';
+        }
+
+        final StringBuilder result = new StringBuilder("\"");
+        for (int offset = 0; offset < value.length(); ) {
+            final int codePoint = value.codePointAt(offset);
+            offset += Character.charCount(codePoint);
+            if ('\n' == codePoint) {
+                result.append("\\n");
+            } else if ('\t' == codePoint) {
+                result.append("\\t");
+            } else if ('\\' == codePoint || '"' == codePoint || '$' == codePoint) {
+                result.append('\\').appendCodePoint(codePoint);
+            } else if (codePoint < 0x20 || 0x7F == codePoint) {
+                result.append(String.format("\\x%02X", codePoint));
+            } else if (codePoint > 0x7F) {
+                result.append(String.format("\\u{%X}", codePoint));
+            } else {
+                result.appendCodePoint(codePoint);
+            }
+        }
+        return result.append('"').toString();
+    }
+}
@@ -0,0 +1,359 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Runs the pattern on synthesized subjects of realistic sizes with a backtracking matcher, counting its steps
+ * (backtracking points and group entries, roughly what PCRE counts against pcre.backtrack_limit).
+ *
+ * Subjects are built from the ambiguity witness when the pattern has one, and from repeated characters of the
+ * pattern followed by a character the pattern doesn't use. PCRE start-up optimizations are modeled only partially
+ * (the required character check), so the steps count is an estimation.
+ */
+final public class BacktrackingSimulator {
+    /* PHP default for pcre.backtrack_limit */
+    public static final long DEFAULT_LIMIT = 1000000;
+
+    private static final int[] subjectLengths      = {1000, 10000, 100000};
+    /* PCRE skips the required character check for longer subjects */
+    private static final int requiredCheckLength   = 5000;
+    private static final int maxGenericCandidates  = 8;
+
+    private static final Map<ParsedRegex, Estimate> cache = new WeakHashMap<>();
+    /* marks simulated patterns without exceeding the limit in the cache */
+    private static final Estimate none = new Estimate(0, 0, 0, "");
+    /* aborted simulations: re-run only with a larger budget or a lower limit */
+    private static final Map<ParsedRegex, Aborted> aborts = new WeakHashMap<>();
+
+    static final private class Aborted {
+        private final long limit;
+        private final long budgetSteps;
+
+        Aborted(long limit, long budgetSteps) {
+            this.limit       = limit;
+            this.budgetSteps = budgetSteps;
+        }
+    }
+
+    static final public class Estimate {
+        private final long limit;
+        private final int subjectLength;
+        private final long steps;
+        private final String subjectExpression;
+
+        Estimate(long limit, int subjectLength, long steps, @NotNull String subjectExpression) {
+            this.limit             = limit;
+            this.subjectLength     = subjectLength;
+            this.steps             = steps;
+            this.subjectExpression = subjectExpression;
+        }
+
+        public int getSubjectLength() {
+            return subjectLength;
+        }
+
+        /** @return steps made before the simulation was stopped, at least the limit */
+        public long getSteps() {
+            return steps;
+        }
+
+        /** @return the subject as PHP expression, e.g. str_repeat(' ', 10000) . 'a' */
+        @NotNull
+        public String getSubjectExpression() {
+            return subjectExpression;
+        }
+    }
+
+    private static final class LimitExceededException extends RuntimeException {
+        LimitExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * @return the shortest of simulated subjects exceeding the limit; null if none does, or the pattern
+     *         can not be simulated within the steps budget
+     */
+    @Nullable
+    public static Estimate findLimitExceeding(@NotNull ParsedRegex regex, long limit, long budgetSteps) {
+        if (!regex.isValid()) {
+            return null;
+        }
+        synchronized (cache) {
+            final Estimate cached = cache.get(regex);
+            if (null != cached && (none == cached || cached.limit == limit)) {
+                return none == cached ? null : cached;
+            }
+            final Aborted aborted = aborts.get(regex);
+            if (null != aborted && budgetSteps <= aborted.budgetSteps && limit >= aborted.limit) {
+                return null;
+            }
+        }
+
+        Estimate result = null;
+        try {
+            final Budget budget   = new Budget(budgetSteps);
+            final Program program = Program.compile(regex, budget);
+            final List<BacktrackingAnalyzer.Vulnerability> candidates = findCandidates(regex, program, budget);
+            for (int length : subjectLengths) {
+                for (BacktrackingAnalyzer.Vulnerability candidate : candidates) {
+                    final int repetitions = getRepetitions(candidate, length);
+                    final String subject  = candidate.getAttack(repetitions);
+                    final long steps      = new BacktrackingSimulator(program, subject.codePoints().toArray(), limit, budget).run();
+                    if (steps > limit) {
+                        result = new Estimate(limit, subject.length(), steps, candidate.getAttackExpression(repetitions));
+                        break;
+                    }
+                }
+                if (null != result) {
+                    break;
+                }
+            }
+        } catch (AnalysisAbortedException aborted) {
+            synchronized (cache) {
+                aborts.put(regex, new Aborted(limit, budgetSteps));
+            }
+            return null;
+        }
+
+        synchronized (cache) {
+            aborts.remove(regex);
+            cache.put(regex, null == result ? none : result);
+        }
+        return result;
+    }
+
+    @NotNull
+    static private List<BacktrackingAnalyzer.Vulnerability> findCandidates(
+        @NotNull ParsedRegex regex, @NotNull Program program, @NotNull Budget budget
+    ) {
+        final List<BacktrackingAnalyzer.Vulnerability> candidates = new ArrayList<>();
+        final BacktrackingAnalyzer.Vulnerability witness = BacktrackingAnalyzer.analyze(regex, budget);
+        if (null != witness) {
+            candidates.add(witness);
+        }
+
+        /* a character of the pattern repeated, then one the pattern doesn't know: the match fails at the very end */
+        final CodePointSet unused = program.alphabet.complement();
+        final String suffix       = unused.isEmpty() ? "" : new StringBuilder().appendCodePoint(unused.sample()).toString();
+        final Set<Integer> pumped = new LinkedHashSet<>();
+        for (CodePointSet characters : program.characters) {
+            if (null != characters && !characters.isEmpty() && pumped.size() < maxGenericCandidates) {
+                pumped.add(characters.sample());
+            }
+        }
+        for (int codePoint : pumped) {
+            final String pump = new StringBuilder().appendCodePoint(codePoint).toString();
+            candidates.add(new BacktrackingAnalyzer.Vulnerability(
+                false, 0, "", Collections.singletonList(pump), Collections.<String>emptyList(), suffix
+            ));
+        }
+        return candidates;
+    }
+
+    static private int getRepetitions(@NotNull BacktrackingAnalyzer.Vulnerability candidate, int length) {
+        final int fixed  = candidate.getAttack(0).length();
+        final int pumped = Math.max(1, candidate.getAttack(1).length() - fixed);
+        return Math.max(1, (length - fixed) / pumped);
+    }
+
+    private final Program program;
+    private final int[] subject;
+    private final long limit;
+    private final Budget budget;
+    private final int[] runStarts;
+    private final int[] runEnds;
+    private long steps = 0;
+    private int attemptStart;
+
+    private BacktrackingSimulator(@NotNull Program program, @NotNull int[] subject, long limit, @NotNull Budget budget) {
+        this.program   = program;
+        this.subject   = subject;
+        this.limit     = limit;
+        this.budget    = budget;
+        this.runStarts = new int[program.operations.length];
+        this.runEnds   = new int[program.operations.length];
+        Arrays.fill(this.runStarts, -1);
+        Arrays.fill(this.runEnds, -1);
+    }
+
+    /** @return steps made by the preg_match call, the limit plus one if it was exceeded */
+    private long run() {
+        if (null != program.required && subject.length < requiredCheckLength && !contains(program.required)) {
+            return 0;
+        }
+        try {
+            for (attemptStart = 0; attemptStart <= subject.length; ++attemptStart) {
+                if (program.isLineStartOnly && attemptStart > 0 && '\n' != subject[attemptStart - 1]) {
+                    continue;
+                }
+                count();
+                if (-1 != match(0, attemptStart, new int[program.registersCount]) || program.isAnchored) {
+                    break;
+                }
+            }
+        } catch (LimitExceededException exceeded) {
+            return limit + 1;
+        }
+        return steps;
+    }
+
+    private boolean contains(@NotNull CodePointSet characters) {
+        for (int codePoint : subject) {
+            if (characters.contains(codePoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count() {
+        if (++steps > limit) {
+            throw new LimitExceededException();
+        }
+    }
+
+    /** @return the position where the program (or sub-program of an atomic group, look-ahead) ended, -1 on failure */
+    private int match(int start, int position, @NotNull int[] registers) {
+        final Deque<int[]> backtracks = new ArrayDeque<>();
+        int pc = start;
+        while (true) {
+            /* every instruction is spent from the budget: PCRE steps are not counting characters matching */
+            budget.check();
+            boolean isFailed = false;
+            switch (program.operations[pc]) {
+                case Program.CHARACTERS:
+                    if (position < subject.length && program.characters[pc].contains(subject[position])) {
+                        ++position;
+                        ++pc;
+                    } else {
+                        isFailed = true;
+                    }
+                    break;
+                case Program.SPLIT:
+                case Program.CHARACTER_SPLIT:
+                    final boolean isDeferred = Program.CHARACTER_SPLIT == program.operations[pc];
+                    if (!isDeferred) {
+                        count();
+                    }
+                    final int[] state = Arrays.copyOf(registers, registers.length + 3);
+                    state[registers.length]     = program.second[pc];
+                    state[registers.length + 1] = position;
+                    state[registers.length + 2] = isDeferred ? 1 : 0;
+                    backtracks.push(state);
+                    pc = program.first[pc];
+                    break;
+                case Program.REPEAT:
+                    final int run = findRunEnd(pc, position);
+                    if (run - position < program.first[pc]) {
+                        isFailed = true;
+                    } else {
+                        position = -1 == program.second[pc] ? run : Math.min(run, position + program.second[pc]);
+                        ++pc;
+                    }
+                    break;
+                case Program.JUMP:
+                    pc = program.first[pc];
+                    break;
+                case Program.MATCH:
+                case Program.SUCCEED:
+                    return position;
+                case Program.ASSERT:
+                    if (isAsserted((char) program.first[pc], position)) {
+                        ++pc;
+                    } else {
+                        isFailed = true;
+                    }
+                    break;
+                case Program.ATOMIC:
+                    count();
+                    final int end = match(pc + 1, position, registers.clone());
+                    if (-1 == end) {
+                        isFailed = true;
+                    } else {
+                        position = end;
+                        pc       = program.second[pc];
+                    }
+                    break;
+                case Program.LOOKAHEAD:
+                case Program.NEGATIVE_LOOKAHEAD:
+                    count();
+                    final boolean isMatched = -1 != match(pc + 1, position, registers.clone());
+                    if (isMatched == (Program.LOOKAHEAD == program.operations[pc])) {
+                        pc = program.second[pc];
+                    } else {
+                        isFailed = true;
+                    }
+                    break;
+                case Program.SAVE_POSITION:
+                    registers[program.first[pc]] = position;
+                    ++pc;
+                    break;
+                case Program.CHECK_PROGRESS:
+                    pc = registers[program.first[pc]] == position ? program.second[pc] : pc + 1;
+                    break;
+                default:
+                    throw new AnalysisAbortedException("unknown instruction");
+            }
+
+            if (isFailed) {
+                if (backtracks.isEmpty()) {
+                    return -1;
+                }
+                final int[] state = backtracks.pop();
+                if (1 == state[state.length - 1]) {
+                    count();
+                }
+                registers = Arrays.copyOf(state, state.length - 3);
+                pc        = state[state.length - 3];
+                position  = state[state.length - 2];
+            }
+        }
+    }
+
+    /** runs are re-scanned from every attempt start: remember where the last one ended to stay linear */
+    private int findRunEnd(int pc, int position) {
+        if (position >= runStarts[pc] && position <= runEnds[pc]) {
+            return runEnds[pc];
+        }
+        int end = position;
+        while (end < subject.length && program.characters[pc].contains(subject[end])) {
+            budget.check();
+            ++end;
+        }
+        runStarts[pc] = position;
+        runEnds[pc]   = end;
+        return end;
+    }
+
+    private boolean isAsserted(char type, int position) {
+        final int length = subject.length;
+        switch (type) {
+            case '^':
+            case 'A':
+                return 0 == position;
+            case 'G':
+                return attemptStart == position;
+            case 'L':
+                return 0 == position || '\n' == subject[position - 1];
+            case 'z':
+                return length == position;
+            case '$':
+            case 'Z':
+                return length == position || (length - 1 == position && '\n' == subject[position]);
+            case 'E':
+                return length == position || '\n' == subject[position];
+            case 'b':
+            case 'B':
+                final boolean before = position > 0 && MatchingOptions.isWordCharacter(subject[position - 1]);
+                final boolean after  = position < length && MatchingOptions.isWordCharacter(subject[position]);
+                return (before != after) == ('b' == type);
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.intellij.openapi.progress.ProgressManager;
+
+/**
+ * Steps budget of a single pattern analysis, checked from the hot loops. Counted in steps rather than time:
+ * results are not depending on the machine load, so the same pattern is always reported (or not) the same way.
+ *
+ * Analyses are running on the highlighting thread: cancellation (typing, write actions) is checked periodically.
+ */
+final class Budget {
+    /* power of 2 minus one: steps between cancellation checks */
+    private static final long cancellationCheckMask = 4095;
+
+    private final long limit;
+    private long steps = 0;
+
+    Budget(long steps) {
+        this.limit = steps;
+    }
+
+    void check() {
+        if (++steps > limit) {
+            throw new AnalysisAbortedException("steps budget exceeded");
+        }
+        if (0 == (steps & cancellationCheckMask)) {
+            ProgressManager.checkCanceled();
+        }
+    }
+
+    long getRemaining() {
+        return Math.max(0, limit - steps);
+    }
+}
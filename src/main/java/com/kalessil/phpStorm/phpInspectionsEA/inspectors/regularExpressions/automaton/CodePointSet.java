@@ -0,0 +1,194 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of code points, stored as sorted and merged inclusive ranges: [from0, to0, from1, to1, ...].
+ */
+final public class CodePointSet {
+    public static final int MAX_CODE_POINT = 0x10FFFF;
+
+    public static final CodePointSet EMPTY    = new CodePointSet(new int[0]);
+    public static final CodePointSet ANY      = range(0, MAX_CODE_POINT);
+    public static final CodePointSet NEW_LINE = of('\n');
+
+    /* code points we prefer in samples: they are readable in messages */
+    private static final String preferredSamples = "a0 !_-.A,;:/x#@";
+
+    private final int[] ranges;
+
+    private CodePointSet(@NotNull int[] ranges) {
+        this.ranges = ranges;
+    }
+
+    @NotNull
+    public static CodePointSet of(int codePoint) {
+        return new CodePointSet(new int[]{codePoint, codePoint});
+    }
+
+    @NotNull
+    public static CodePointSet range(int from, int to) {
+        return from > to ? EMPTY : new CodePointSet(new int[]{from, to});
+    }
+
+    /** @param characters pairs of range boundaries, e.g. "azAZ09" */
+    @NotNull
+    public static CodePointSet ranges(@NotNull String characters) {
+        CodePointSet result = EMPTY;
+        for (int index = 0; index + 1 < characters.length(); index += 2) {
+            result = result.union(range(characters.charAt(index), characters.charAt(index + 1)));
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return 0 == ranges.length;
+    }
+
+    public boolean contains(int codePoint) {
+        for (int index = 0; index < ranges.length; index += 2) {
+            if (codePoint < ranges[index]) {
+                return false;
+            }
+            if (codePoint <= ranges[index + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    public CodePointSet union(@NotNull CodePointSet other) {
+        if (other.isEmpty() || this == other) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+
+        /* merge sorted ranges, then collapse overlapping and adjacent ones */
+        final int[] merged = new int[ranges.length + other.ranges.length];
+        int left = 0, right = 0, size = 0;
+        while (left < ranges.length || right < other.ranges.length) {
+            final boolean takeLeft = right >= other.ranges.length || (left < ranges.length && ranges[left] <= other.ranges[right]);
+            final int from         = takeLeft ? ranges[left] : other.ranges[right];
+            final int to           = takeLeft ? ranges[left + 1] : other.ranges[right + 1];
+            if (takeLeft) {
+                left += 2;
+            } else {
+                right += 2;
+            }
+
+            if (size > 0 && from <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], to);
+            } else {
+                merged[size++] = from;
+                merged[size++] = to;
+            }
+        }
+        return new CodePointSet(Arrays.copyOf(merged, size));
+    }
+
+    @NotNull
+    public CodePointSet intersect(@NotNull CodePointSet other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        if (this == other) {
+            return this;
+        }
+
+        final int[] result = new int[ranges.length + other.ranges.length];
+        int left = 0, right = 0, size = 0;
+        while (left < ranges.length && right < other.ranges.length) {
+            final int from = Math.max(ranges[left], other.ranges[right]);
+            final int to   = Math.min(ranges[left + 1], other.ranges[right + 1]);
+            if (from <= to) {
+                result[size++] = from;
+                result[size++] = to;
+            }
+            if (ranges[left + 1] < other.ranges[right + 1]) {
+                left += 2;
+            } else {
+                right += 2;
+            }
+        }
+        return 0 == size ? EMPTY : new CodePointSet(Arrays.copyOf(result, size));
+    }
+
+    public boolean intersects(@NotNull CodePointSet other) {
+        int left = 0, right = 0;
+        while (left < ranges.length && right < other.ranges.length) {
+            if (Math.max(ranges[left], other.ranges[right]) <= Math.min(ranges[left + 1], other.ranges[right + 1])) {
+                return true;
+            }
+            if (ranges[left + 1] < other.ranges[right + 1]) {
+                left += 2;
+            } else {
+                right += 2;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    public CodePointSet complement() {
+        final int[] result = new int[ranges.length + 2];
+        int size = 0, next = 0;
+        for (int index = 0; index < ranges.length; index += 2) {
+            if (ranges[index] > next) {
+                result[size++] = next;
+                result[size++] = ranges[index] - 1;
+            }
+            next = ranges[index + 1] + 1;
+        }
+        if (next <= MAX_CODE_POINT) {
+            result[size++] = next;
+            result[size++] = MAX_CODE_POINT;
+        }
+        return new CodePointSet(Arrays.copyOf(result, size));
+    }
+
+    /** @return the set extended with ASCII letters of the other case */
+    @NotNull
+    public CodePointSet withOtherCase() {
+        final CodePointSet lower = intersect(range('a', 'z'));
+        final CodePointSet upper = intersect(range('A', 'Z'));
+        return union(lower.shift('A' - 'a')).union(upper.shift('a' - 'A'));
+    }
+
+    @NotNull
+    private CodePointSet shift(int delta) {
+        final int[] result = new int[ranges.length];
+        for (int index = 0; index < ranges.length; ++index) {
+            result[index] = ranges[index] + delta;
+        }
+        return new CodePointSet(result);
+    }
+
+    /** @return a code point from the set, readable ones are preferred; -1 for the empty set */
+    public int sample() {
+        if (isEmpty()) {
+            return -1;
+        }
+        for (int index = 0; index < preferredSamples.length(); ++index) {
+            if (contains(preferredSamples.charAt(index))) {
+                return preferredSamples.charAt(index);
+            }
+        }
+        final CodePointSet printable = intersect(range(0x21, 0x7E));
+        return printable.isEmpty() ? ranges[0] : printable.ranges[0];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CodePointSet && Arrays.equals(ranges, ((CodePointSet) other).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ranges);
+    }
+}
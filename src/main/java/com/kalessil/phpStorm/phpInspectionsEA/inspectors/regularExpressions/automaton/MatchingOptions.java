@@ -0,0 +1,215 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Options defining which characters are matched: modifiers, changed with (?i) and alike inside the pattern.
+ * Unicode properties are over-approximated.
+ */
+final class MatchingOptions {
+    private static final Set<String> startVerbs = new HashSet<>(Arrays.asList(
+        "UTF8", "UTF", "UTF16", "UTF32", "UCP", "CR", "LF", "CRLF", "ANYCRLF", "ANY", "NUL",
+        "BSR_ANYCRLF", "BSR_UNICODE", "NO_START_OPT", "NO_AUTO_POSSESS", "NO_DOTSTAR_ANCHOR", "NO_JIT", "NOTEMPTY", "NOTEMPTY_ATSTART"
+    ));
+
+    private static final CodePointSet digits           = CodePointSet.ranges("09");
+    private static final CodePointSet wordCharacters   = CodePointSet.ranges("09AZaz__");
+    private static final CodePointSet spaces           = CodePointSet.range('\t', '\r').union(CodePointSet.of(' '));
+    private static final CodePointSet horizontalSpaces = CodePointSet.ranges("\t\t  ")
+        .union(CodePointSet.of(0xA0)).union(CodePointSet.of(0x1680)).union(CodePointSet.of(0x180E))
+        .union(CodePointSet.range(0x2000, 0x200A)).union(CodePointSet.of(0x202F)).union(CodePointSet.of(0x205F))
+        .union(CodePointSet.of(0x3000));
+    private static final CodePointSet verticalSpaces   = CodePointSet.range('\n', '\r')
+        .union(CodePointSet.of(0x85)).union(CodePointSet.range(0x2028, 0x2029));
+    private static final CodePointSet nonAscii         = CodePointSet.range(0x80, CodePointSet.MAX_CODE_POINT);
+    private static final Map<String, CodePointSet> posixClasses = new HashMap<>();
+    static {
+        posixClasses.put("alpha",  CodePointSet.ranges("AZaz"));
+        posixClasses.put("digit",  digits);
+        posixClasses.put("alnum",  CodePointSet.ranges("09AZaz"));
+        posixClasses.put("word",   wordCharacters);
+        posixClasses.put("space",  spaces);
+        posixClasses.put("blank",  CodePointSet.ranges("\t\t  "));
+        posixClasses.put("upper",  CodePointSet.ranges("AZ"));
+        posixClasses.put("lower",  CodePointSet.ranges("az"));
+        posixClasses.put("punct",  CodePointSet.ranges("!/:@[`{~"));
+        posixClasses.put("xdigit", CodePointSet.ranges("09AFaf"));
+        posixClasses.put("cntrl",  CodePointSet.range(0, 0x1F).union(CodePointSet.of(0x7F)));
+        posixClasses.put("graph",  CodePointSet.range(0x21, 0x7E));
+        posixClasses.put("print",  CodePointSet.range(0x20, 0x7E));
+        posixClasses.put("ascii",  CodePointSet.range(0, 0x7F));
+    }
+
+    boolean isCaseInsensitive;
+    boolean isDotAll;
+    boolean isMultiLine;
+    final boolean isUnicode;
+
+    MatchingOptions(@NotNull ParsedRegex regex) {
+        this(regex.hasModifier('i'), regex.hasModifier('s'), regex.hasModifier('m'), regex.hasModifier('u'));
+    }
+
+    private MatchingOptions(boolean isCaseInsensitive, boolean isDotAll, boolean isMultiLine, boolean isUnicode) {
+        this.isCaseInsensitive = isCaseInsensitive;
+        this.isDotAll          = isDotAll;
+        this.isMultiLine       = isMultiLine;
+        this.isUnicode         = isUnicode;
+    }
+
+    /** options changed inside a group are reset when the group ends: groups are working with a copy */
+    @NotNull
+    MatchingOptions copy() {
+        return new MatchingOptions(isCaseInsensitive, isDotAll, isMultiLine, isUnicode);
+    }
+
+    /** applies options of (?i:...)-groups, other groups are not changing options */
+    void apply(@NotNull Group group) {
+        if (Group.Kind.OPTIONS == group.getKind()) {
+            final String text = group.getText();
+            apply(text.substring(2, Math.max(2, text.indexOf(':'))));
+        }
+    }
+
+    /** applies (?i)-like settings, throws on backtracking control verbs */
+    void apply(@NotNull Directive directive) {
+        final String text = directive.getText();
+        if (directive.isVerb()) {
+            final String verb = text.substring(2, text.length() - 1).replaceAll("=.*$", "");
+            if (!startVerbs.contains(verb) && !verb.startsWith("LIMIT_")) {
+                throw new AnalysisAbortedException("backtracking control verbs are not supported");
+            }
+            return;
+        }
+        apply(text.substring(2, text.length() - 1));
+    }
+
+    private void apply(@NotNull String options) {
+        boolean isEnabling = true;
+        for (int index = 0; index < options.length(); ++index) {
+            switch (options.charAt(index)) {
+                case '-':
+                    isEnabling = false;
+                    break;
+                case '^':
+                    isCaseInsensitive = isDotAll = isMultiLine = false;
+                    break;
+                case 'i':
+                    isCaseInsensitive = isEnabling;
+                    break;
+                case 's':
+                    isDotAll = isEnabling;
+                    break;
+                case 'm':
+                    isMultiLine = isEnabling;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /** @return characters matched by literals, classes, escapes and dots; null for other nodes */
+    @Nullable
+    CodePointSet getCharacters(@NotNull RegexNode node) {
+        final CodePointSet result;
+        if (node instanceof Literal) {
+            result = CodePointSet.of(((Literal) node).getCodePoint());
+        } else if (node instanceof CharacterClass) {
+            result = getCharacters((CharacterClass) node);
+        } else if (node instanceof ClassEscape) {
+            result = getCharacters((ClassEscape) node);
+        } else if (node instanceof AnyCharacter) {
+            result = isDotAll ? CodePointSet.ANY : CodePointSet.NEW_LINE.complement();
+        } else {
+            return null;
+        }
+        return isCaseInsensitive ? result.withOtherCase() : result;
+    }
+
+    @NotNull
+    private CodePointSet getCharacters(@NotNull CharacterClass characterClass) {
+        CodePointSet result = CodePointSet.EMPTY;
+        for (RegexNode item : characterClass.getItems()) {
+            if (item instanceof Literal) {
+                result = result.union(CodePointSet.of(((Literal) item).getCodePoint()));
+            } else if (item instanceof CharacterRange) {
+                final CharacterRange range = (CharacterRange) item;
+                result = result.union(CodePointSet.range(range.getFrom().getCodePoint(), range.getTo().getCodePoint()));
+            } else if (item instanceof ClassEscape) {
+                result = result.union(getCharacters((ClassEscape) item));
+            } else if (item instanceof PosixClass) {
+                final PosixClass posix   = (PosixClass) item;
+                final CodePointSet known = posixClasses.get(posix.getName());
+                final CodePointSet set   = null == known ? CodePointSet.ANY : known;
+                result = result.union(posix.isNegated() ? set.complement() : set);
+            }
+        }
+        /* PCRE applies case folding before the negation */
+        if (isCaseInsensitive) {
+            result = result.withOtherCase();
+        }
+        return characterClass.isNegated() ? result.complement() : result;
+    }
+
+    @NotNull
+    private CodePointSet getCharacters(@NotNull ClassEscape escape) {
+        final char type = escape.getType();
+        CodePointSet result;
+        switch (Character.toLowerCase(type)) {
+            case 'd':
+                result = isUnicode ? digits.union(nonAscii) : digits;
+                break;
+            case 'w':
+                result = isUnicode ? wordCharacters.union(nonAscii) : wordCharacters;
+                break;
+            case 's':
+                result = isUnicode ? spaces.union(horizontalSpaces).union(verticalSpaces) : spaces;
+                break;
+            case 'h':
+                result = horizontalSpaces;
+                break;
+            case 'v':
+            case 'r':
+                result = verticalSpaces;
+                break;
+            case 'n':
+                result = CodePointSet.NEW_LINE.complement();
+                break;
+            case 'p':
+                result = getProperty(escape.getProperty());
+                break;
+            default:
+                result = CodePointSet.ANY;
+                break;
+        }
+        /* \R, \N and \X have no negated forms */
+        final boolean isNegated = Character.isUpperCase(type) && "RNX".indexOf(type) < 0;
+        return isNegated ? result.complement() : result;
+    }
+
+    @NotNull
+    static private CodePointSet getProperty(@Nullable String property) {
+        final String name = null == property ? "" : property.replace("^", "");
+        final CodePointSet result;
+        if (name.startsWith("L")) {
+            result = CodePointSet.ranges("AZaz").union(nonAscii);
+        } else if (name.startsWith("N")) {
+            result = digits.union(nonAscii);
+        } else if (name.startsWith("Z")) {
+            result = CodePointSet.of(' ').union(nonAscii);
+        } else if (name.startsWith("P")) {
+            result = posixClasses.get("punct").union(nonAscii);
+        } else {
+            return CodePointSet.ANY;
+        }
+        return null != property && property.startsWith("^") ? result.complement() : result;
+    }
+
+    static boolean isWordCharacter(int codePoint) {
+        return wordCharacters.contains(codePoint);
+    }
+}
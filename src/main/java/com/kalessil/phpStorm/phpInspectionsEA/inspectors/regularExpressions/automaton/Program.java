@@ -0,0 +1,311 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A pattern compiled into instructions of a backtracking matcher, the way PCRE interprets it: alternatives and
+ * repetitions are tried in the pattern order, greedy/lazy/possessive semantics are kept.
+ *
+ * Approximations: look-behinds are considered matching; PCRE auto-possessification is applied only to a repeated
+ * character followed by a character which it can not match. Back-references, subroutines, conditionals and
+ * backtracking control verbs are not supported.
+ */
+final class Program {
+    static final int CHARACTERS         = 0;
+    /* try 'first', on failure backtrack to 'second' */
+    static final int SPLIT              = 1;
+    static final int JUMP               = 2;
+    static final int MATCH              = 3;
+    /* 'first' is the assertion type: ^, $, A, z, Z, b, B, G or L/E for multi-line ^/$ */
+    static final int ASSERT             = 4;
+    /* the body follows the instruction and ends with SUCCEED, 'second' is the continuation */
+    static final int ATOMIC             = 5;
+    static final int LOOKAHEAD          = 6;
+    static final int NEGATIVE_LOOKAHEAD = 7;
+    static final int SUCCEED            = 8;
+    /* repetitions of empty matches are stopped, as PCRE does */
+    static final int SAVE_POSITION      = 9;
+    static final int CHECK_PROGRESS     = 10;
+    /* SPLIT giving back a character of a greedy repetition: PCRE doesn't recurse until it backtracks there */
+    static final int CHARACTER_SPLIT    = 11;
+    /* possessive repetition of characters, 'first' and 'second' are min and max (-1 if unbounded) */
+    static final int REPEAT             = 12;
+
+    private static final int maxInstructions = 20000;
+    private static final int maxRepetitions  = 100;
+
+    final int[] operations;
+    final int[] first;
+    final int[] second;
+    final CodePointSet[] characters;
+    final int registersCount;
+    final boolean isAnchored;
+    /* characters used by the pattern */
+    final CodePointSet alphabet;
+    /* starts with .*: PCRE tries matching only at the subject and lines beginnings */
+    final boolean isLineStartOnly;
+    /* a literal which every match contains, PCRE checks if the subject has it before matching; null if none */
+    final CodePointSet required;
+
+    private Program(@NotNull Compiler compiler, boolean isAnchored, boolean isLineStartOnly, @Nullable CodePointSet required) {
+        final int size       = compiler.operations.size();
+        this.operations      = new int[size];
+        this.first           = new int[size];
+        this.second          = new int[size];
+        this.characters      = compiler.characters.toArray(new CodePointSet[size]);
+        this.registersCount  = compiler.registersCount;
+        this.isAnchored      = isAnchored;
+        this.isLineStartOnly = isLineStartOnly;
+        this.required        = required;
+
+        CodePointSet alphabet = CodePointSet.EMPTY;
+        for (int index = 0; index < size; ++index) {
+            this.operations[index] = compiler.operations.get(index);
+            this.first[index]      = compiler.first.get(index);
+            this.second[index]     = compiler.second.get(index);
+            if (null != this.characters[index]) {
+                alphabet = alphabet.union(this.characters[index]);
+            }
+        }
+        this.alphabet = alphabet;
+    }
+
+    @NotNull
+    static Program compile(@NotNull ParsedRegex regex, @NotNull Budget budget) {
+        final RegexNode root = regex.getRoot();
+        if (null == root) {
+            throw new AnalysisAbortedException("invalid pattern");
+        }
+
+        final Compiler compiler = new Compiler(new MatchingOptions(regex), regex.hasModifier('D'), budget);
+        compiler.compile(root, null);
+        compiler.emit(MATCH, 0, 0, null);
+        final boolean isDotStar = startsWithDotStar(root);
+        return new Program(
+            compiler,
+            regex.hasModifier('A') || AutomatonBuilder.isAnchored(root, regex.hasModifier('m')) || (isDotStar && regex.hasModifier('s')),
+            isDotStar,
+            findRequired(root, new MatchingOptions(regex))
+        );
+    }
+
+    static private boolean startsWithDotStar(@NotNull RegexNode root) {
+        final RegexNode first = root instanceof Sequence && !((Sequence) root).getItems().isEmpty() ? ((Sequence) root).getItems().get(0) : root;
+        if (first instanceof Quantifier) {
+            final Quantifier quantifier = (Quantifier) first;
+            return quantifier.isUnbounded() && 0 == quantifier.getMin() && quantifier.getAtom() instanceof AnyCharacter;
+        }
+        return false;
+    }
+
+    /** the last literal of the top-level sequence which can not be skipped, as PCRE picks its "required character" */
+    @Nullable
+    static private CodePointSet findRequired(@NotNull RegexNode root, @NotNull MatchingOptions options) {
+        final List<RegexNode> items = root instanceof Sequence ? ((Sequence) root).getItems() : Collections.singletonList(root);
+        CodePointSet result = null;
+        for (RegexNode item : items) {
+            if (item instanceof Directive) {
+                options.apply((Directive) item);
+            } else if (item instanceof Literal) {
+                result = options.getCharacters(item);
+            } else if (item instanceof Quantifier && ((Quantifier) item).getMin() > 0 && ((Quantifier) item).getAtom() instanceof Literal) {
+                result = options.getCharacters(((Quantifier) item).getAtom());
+            }
+        }
+        return result;
+    }
+
+    private static class Compiler {
+        private final List<Integer> operations      = new ArrayList<>();
+        private final List<Integer> first           = new ArrayList<>();
+        private final List<Integer> second          = new ArrayList<>();
+        private final List<CodePointSet> characters = new ArrayList<>();
+        private final boolean isDollarEndOnly;
+        private final Budget budget;
+        private MatchingOptions options;
+        private int registersCount = 0;
+
+        Compiler(@NotNull MatchingOptions options, boolean isDollarEndOnly, @NotNull Budget budget) {
+            this.options         = options;
+            this.isDollarEndOnly = isDollarEndOnly;
+            this.budget          = budget;
+        }
+
+        int emit(int operation, int firstArgument, int secondArgument, CodePointSet set) {
+            if (operations.size() >= maxInstructions) {
+                throw new AnalysisAbortedException("program is too large");
+            }
+            operations.add(operation);
+            first.add(firstArgument);
+            second.add(secondArgument);
+            characters.add(set);
+            return operations.size() - 1;
+        }
+
+        int next() {
+            return operations.size();
+        }
+
+        /** @param following characters which can follow the node (for auto-possessification), null if unknown */
+        void compile(@NotNull RegexNode node, CodePointSet following) {
+            budget.check();
+
+            if (node instanceof Sequence) {
+                final List<RegexNode> items = ((Sequence) node).getItems();
+                for (int index = 0; index < items.size(); ++index) {
+                    final CodePointSet next = index + 1 < items.size() ? getLeadingCharacters(items.get(index + 1)) : following;
+                    compile(items.get(index), next);
+                }
+                return;
+            }
+            if (node instanceof Alternation) {
+                final List<RegexNode> branches = ((Alternation) node).getBranches();
+                final List<Integer> exits      = new ArrayList<>();
+                for (int index = 0; index < branches.size(); ++index) {
+                    if (index + 1 == branches.size()) {
+                        compile(branches.get(index), following);
+                        break;
+                    }
+                    final int split = emit(SPLIT, 0, 0, null);
+                    first.set(split, next());
+                    compile(branches.get(index), following);
+                    exits.add(emit(JUMP, 0, 0, null));
+                    second.set(split, next());
+                }
+                for (int exit : exits) {
+                    first.set(exit, next());
+                }
+                return;
+            }
+            if (node instanceof Group) {
+                compileGroup((Group) node, following);
+                return;
+            }
+            if (node instanceof Quantifier) {
+                compileQuantifier((Quantifier) node, following);
+                return;
+            }
+            final CodePointSet set = options.getCharacters(node);
+            if (null != set) {
+                emit(CHARACTERS, 0, 0, set);
+                return;
+            }
+            if (node instanceof Anchor) {
+                char type = ((Anchor) node).getType();
+                if ('K' == type) {
+                    return;
+                }
+                if (options.isMultiLine && ('^' == type || '$' == type)) {
+                    type = '^' == type ? 'L' : 'E';
+                } else if (isDollarEndOnly && '$' == type) {
+                    type = 'z';
+                }
+                emit(ASSERT, type, 0, null);
+                return;
+            }
+            if (node instanceof Directive) {
+                options.apply((Directive) node);
+                return;
+            }
+            if (node instanceof BackReference) {
+                throw new AnalysisAbortedException("back-references and subroutines are not supported");
+            }
+            throw new AnalysisAbortedException("unknown node " + node.getClass().getSimpleName());
+        }
+
+        /** @return characters the node must start with (single characters and their repetitions), null if unknown */
+        private CodePointSet getLeadingCharacters(@NotNull RegexNode node) {
+            if (node instanceof Quantifier && ((Quantifier) node).getMin() > 0) {
+                return options.getCharacters(((Quantifier) node).getAtom());
+            }
+            return options.getCharacters(node);
+        }
+
+        private void compileGroup(@NotNull Group group, CodePointSet following) {
+            final Group.Kind kind = group.getKind();
+            if (Group.Kind.LOOKBEHIND == kind || Group.Kind.NEGATIVE_LOOKBEHIND == kind) {
+                return;
+            }
+            if (Group.Kind.CONDITIONAL == kind) {
+                throw new AnalysisAbortedException("conditional groups are not supported");
+            }
+
+            final MatchingOptions savedOptions = options;
+            options = options.copy();
+            options.apply(group);
+            if (Group.Kind.ATOMIC == kind || Group.Kind.LOOKAHEAD == kind || Group.Kind.NEGATIVE_LOOKAHEAD == kind) {
+                final int operation = Group.Kind.ATOMIC == kind ? ATOMIC : (Group.Kind.LOOKAHEAD == kind ? LOOKAHEAD : NEGATIVE_LOOKAHEAD);
+                final int start     = emit(operation, 0, 0, null);
+                first.set(start, next());
+                compile(group.getBody(), null);
+                emit(SUCCEED, 0, 0, null);
+                second.set(start, next());
+            } else {
+                compile(group.getBody(), following);
+            }
+            options = savedOptions;
+        }
+
+        private void compileQuantifier(@NotNull Quantifier quantifier, CodePointSet following) {
+            final RegexNode atom        = quantifier.getAtom();
+            final CodePointSet repeated = options.getCharacters(atom);
+            boolean isPossessive        = Quantifier.Mode.POSSESSIVE == quantifier.getMode();
+            if (!isPossessive && Quantifier.Mode.GREEDY == quantifier.getMode() && null != repeated && null != following) {
+                /* PCRE makes \d+ possessive in \d+: giving characters back can not help to match the colon */
+                isPossessive = !repeated.intersects(following);
+            }
+
+            final int min = Math.min(quantifier.getMin(), maxRepetitions);
+            if (null != repeated && isPossessive) {
+                emit(REPEAT, quantifier.getMin(), quantifier.isUnbounded() ? -1 : quantifier.getMax(), repeated);
+                return;
+            }
+
+            int atomic = -1;
+            if (isPossessive) {
+                atomic = emit(ATOMIC, 0, 0, null);
+                first.set(atomic, next());
+            }
+
+            final boolean isLazy = Quantifier.Mode.LAZY == quantifier.getMode();
+            final int split      = null != repeated && !isLazy ? CHARACTER_SPLIT : SPLIT;
+            for (int index = 0; index < min; ++index) {
+                compile(atom, null);
+            }
+            if (quantifier.isUnbounded() || quantifier.getMax() - min > maxRepetitions) {
+                final int register = registersCount++;
+                final int loop     = emit(split, 0, 0, null);
+                final int body     = emit(SAVE_POSITION, register, 0, null);
+                compile(atom, null);
+                final int check    = emit(CHECK_PROGRESS, register, 0, null);
+                emit(JUMP, loop, 0, null);
+                final int exit     = next();
+                first.set(loop, isLazy ? exit : body);
+                second.set(loop, isLazy ? body : exit);
+                second.set(check, exit);
+            } else {
+                final List<Integer> splits = new ArrayList<>();
+                for (int index = min; index < quantifier.getMax(); ++index) {
+                    splits.add(emit(split, 0, 0, null));
+                    compile(atom, null);
+                }
+                final int exit = next();
+                for (int index : splits) {
+                    first.set(index, isLazy ? exit : index + 1);
+                    second.set(index, isLazy ? index + 1 : exit);
+                }
+            }
+
+            if (isPossessive) {
+                emit(SUCCEED, 0, 0, null);
+                second.set(atomic, next());
+            }
+        }
+    }
+}
@@ -2,12 +2,16 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.cla
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.CharacterClass;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.PosixClass;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.RegexVisitor;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class ShortClassDefinitionStrategy {
     private static final String messagePattern = "'%p%' can be replaced with '%r%' (%h%)";
@@ -29,29 +33,43 @@ public class ShortClassDefinitionStrategy {
         mapping.put("[^\\s]",        "\\S");
     }
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern)) {
-            final boolean isUnicodeMode = !StringUtil.isEmpty(modifiers) && modifiers.indexOf('u') != -1;
-            final String safetyHint     = isUnicodeMode ? "risky, will match extended sets due to /u" : "safe in non-unicode mode";
-
-            /* normalize only first found cases - sufficient for reporting */
-            final String patternAdapted = pattern
-                    .replace("a-zA-Z",    "A-Za-z")
-                    .replace("0-9A-Za-z", "A-Za-z0-9");
-
-            for (Map.Entry<String, String> replacement : mapping.entrySet()) {
-                final String wildcard = replacement.getKey();
-                if (patternAdapted.contains(wildcard)) {
-                    final String message = messagePattern
-                            .replace("%p%", wildcard)
-                            .replace("%r%", replacement.getValue())
-                            .replace("%h%", safetyHint);
-
-                    holder.registerProblem(target, message, ProblemHighlightType.WEAK_WARNING);
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.getPattern().isEmpty()) {
+            return;
+        }
+
+        /* whole classes and POSIX classes inside them, each definition is reported once */
+        final Set<String> wildcards = new LinkedHashSet<>();
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitCharacterClass(@NotNull CharacterClass characterClass) {
+                final String classAdapted = characterClass.getText()
+                        .replace("a-zA-Z",    "A-Za-z")
+                        .replace("0-9A-Za-z", "A-Za-z0-9");
+                if (mapping.containsKey(classAdapted)) {
+                    wildcards.add(classAdapted);
                 }
+                super.visitCharacterClass(characterClass);
             }
 
-            //TODO: handle [0-9,] and similar cases when classes are part of allowed/escaped sets
+            @Override
+            public void visitPosixClass(@NotNull PosixClass posixClass) {
+                if (!posixClass.isNegated() && mapping.containsKey(posixClass.getText())) {
+                    wildcards.add(posixClass.getText());
+                }
+            }
+        });
+
+        if (!wildcards.isEmpty()) {
+            final String safetyHint = regex.hasModifier('u') ? "risky, will match extended sets due to /u" : "safe in non-unicode mode";
+            for (String wildcard : wildcards) {
+                final String message = messagePattern
+                        .replace("%p%", wildcard)
+                        .replace("%r%", mapping.get(wildcard))
+                        .replace("%h%", safetyHint);
+
+                holder.registerProblem(target, message, ProblemHighlightType.WEAK_WARNING);
+            }
         }
     }
 }
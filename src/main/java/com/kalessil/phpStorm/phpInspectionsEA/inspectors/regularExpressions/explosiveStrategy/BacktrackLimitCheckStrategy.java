@@ -0,0 +1,42 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton.BacktrackingSimulator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reports patterns which are running out of pcre.backtrack_limit on subjects of realistic sizes (up to 100 KB):
+ * preg-functions are failing with PREG_BACKTRACK_LIMIT_ERROR then, which is often left unhandled.
+ *
+ * The matching is simulated (see BacktrackingSimulator), so it's an opt-in mode of the inspection.
+ */
+public class BacktrackLimitCheckStrategy {
+    private static final String message = "%f%() fails with PREG_BACKTRACK_LIMIT_ERROR on %n% characters long subjects, e.g. %s%";
+
+    /* simulation steps limit per pattern (matcher instructions, analysis included): aborted simulations are not reported */
+    private static final long budgetSteps = 50000000;
+
+    static public void apply(
+        @NotNull final String functionName,
+        @NotNull final ParsedRegex regex,
+        @NotNull final StringLiteralExpression target,
+        @NotNull final ProblemsHolder holder
+    ) {
+        if (functionName.equals("preg_quote")) {
+            return;
+        }
+
+        final BacktrackingSimulator.Estimate estimate
+                = BacktrackingSimulator.findLimitExceeding(regex, BacktrackingSimulator.DEFAULT_LIMIT, budgetSteps);
+        if (null != estimate) {
+            final String finalMessage = message
+                    .replace("%f%", functionName)
+                    .replace("%n%", String.valueOf(estimate.getSubjectLength()))
+                    .replace("%s%", estimate.getSubjectExpression());
+            holder.registerProblem(target, finalMessage, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.automaton.BacktrackingAnalyzer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reports patterns with exponential or high-degree polynomial backtracking, which are found by analyzing
+ * the pattern automaton (see BacktrackingAnalyzer), together with an attack string.
+ *
+ * Quadratic backtracking is not reported: it's too common, and mostly harmless for short inputs.
+ */
+public class CatastrophicBacktrackingCheckStrategy {
+    private static final String messageExponential = "Exponential backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with %a%";
+    private static final String messagePolynomial  = "O(n^%d%) backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with %a%";
+
+    /* analysis steps limit per pattern, a few milliseconds usually: aborted analyses are not reported */
+    private static final long budgetSteps  = 200000;
+    private static final int minimalDegree = 3;
+
+    static public boolean apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final BacktrackingAnalyzer.Vulnerability vulnerability = BacktrackingAnalyzer.analyze(regex, budgetSteps);
+        if (null == vulnerability) {
+            return false;
+        }
+
+        String message = null;
+        if (vulnerability.isExponential()) {
+            message = messageExponential.replace("%a%", vulnerability.getAttackExpression(32));
+        } else if (vulnerability.getDegree() >= minimalDegree) {
+            message = messagePolynomial
+                    .replace("%d%", String.valueOf(vulnerability.getDegree()))
+                    .replace("%a%", vulnerability.getAttackExpression(1000));
+        }
+        if (null != message) {
+            holder.registerProblem(target, message, ProblemHighlightType.GENERIC_ERROR);
+        }
+        return null != message;
+    }
+}
@@ -2,41 +2,49 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.exp
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashSet;
+import java.util.Set;
 
 public class GreedyCharactersSetCheckStrategy {
     private static final String messagePattern = "[%e%] is 'greedy'. Please remove %c% as it's a subset of %p%";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexGreedyCharacterSet = null;
-    static {
-        // Original regex: \[([^\[\]]+)\]
-        regexGreedyCharacterSet = Pattern.compile("\\[([^\\[\\]]+)\\]");
-    }
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.getPattern().indexOf('[') < 0) {
+            return;
+        }
+
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitCharacterClass(@NotNull CharacterClass characterClass) {
+                /* sets with (escaped) brackets are not reported, as before parsing patterns into the tree */
+                final String set = characterClass.getBodyText();
+                if (set.indexOf('[') >= 0 || set.indexOf(']') >= 0) {
+                    return;
+                }
 
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern) && pattern.indexOf('[') >= 0) {
-            final Matcher regexMatcher = regexGreedyCharacterSet.matcher(pattern);
-            while (regexMatcher.find()) {
-                final String set = regexMatcher.group(1);
-                String message   = null;
+                final Set<Character> escapes = new HashSet<>();
+                for (RegexNode item : characterClass.getItems()) {
+                    if (item instanceof ClassEscape) {
+                        escapes.add(((ClassEscape) item).getType());
+                    }
+                }
 
-                if (set.contains("\\w") && set.contains("\\d")) {
-                   message = messagePattern.replace("%e%", set).replace("%c%", "\\d").replace("%p%", "\\w");
+                String message = null;
+                if (escapes.contains('w') && escapes.contains('d')) {
+                    message = messagePattern.replace("%e%", set).replace("%c%", "\\d").replace("%p%", "\\w");
                 }
-                if (null == message && set.contains("\\W") && set.contains("\\D")) {
-                   message = messagePattern.replace("%e%", set).replace("%c%", "\\D").replace("%p%", "\\W");
+                if (null == message && escapes.contains('W') && escapes.contains('D')) {
+                    message = messagePattern.replace("%e%", set).replace("%c%", "\\D").replace("%p%", "\\W");
                 }
 
                 if (null != message) {
                     holder.registerProblem(target, message, ProblemHighlightType.GENERIC_ERROR);
                 }
             }
-        }
+        });
     }
 }
@@ -2,12 +2,10 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.exp
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Recognize (A+)* pattern.
@@ -26,57 +24,74 @@ import java.util.regex.Pattern;
 public class QuantifierCompoundsQuantifierCheckStrategy {
     private static final String messagePattern = "(...%i%...)%o% might be exploited (ReDoS, Regular Expression Denial of Service)";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexMarker = null;
-    static {
-        // Original regex: [^\+\*]([\+\*]|\{\d\,\}|\{\d{2,}\}|\{\d,\d{2,}\})([^\+\)]|$)
-        regexMarker = Pattern.compile("[^\\+\\*]([\\+\\*]|\\{\\d\\,\\}|\\{\\d{2,}\\}|\\{\\d,\\d{2,}\\})([^\\+\\)]|$)");
-    }
+    /* repetitions from this count on are considered explosive */
+    private static final int explosiveRepetitions = 10;
 
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        final Matcher externalQualifierMatcher = regexMarker.matcher(pattern);
-        while (externalQualifierMatcher.find()) {
-            final int quantifierStart = externalQualifierMatcher.start(1);
-            if (quantifierStart > 0 && pattern.charAt(quantifierStart - 1) == ')') {
-                String patternSegment = null;
+    static public boolean apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final String[] message = {null};
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitGroup(@NotNull Group group) {
+                /* atomic groups are not backtracked into */
+                if (null == message[0] && Group.Kind.ATOMIC != group.getKind()) {
+                    super.visitGroup(group);
+                }
+            }
 
-                /* try extracting inner expression from '(...)<qualifier>' */
-                int nestingLevel = 0;
-                int cursor       = quantifierStart - 1;
-                char character;
-                while (cursor >= 0) {
-                    character = pattern.charAt(cursor);
-                    if (character == ')') {
-                        ++nestingLevel;
-                        --cursor;
-                        continue;
-                    }
+            @Override
+            public void visitQuantifier(@NotNull Quantifier quantifier) {
+                if (null != message[0]) {
+                    return;
+                }
 
-                    if (character == '(') {
-                        --nestingLevel;
-                        if (0 == nestingLevel) {
-                            patternSegment = pattern.substring(cursor + 1, quantifierStart - 1);
-                            break;
-                        }
-                        --cursor;
-                        continue;
+                if (isExplosive(quantifier) && quantifier.getAtom() instanceof Group) {
+                    final Quantifier inner = findExplosive(((Group) quantifier.getAtom()).getBody());
+                    if (null != inner) {
+                        message[0] = messagePattern
+                                .replace("%i%", inner.getQuantifierText())
+                                .replace("%o%", quantifier.getQuantifierText());
+                        return;
                     }
+                }
+                super.visitQuantifier(quantifier);
+            }
+        });
+
+        if (null != message[0]) {
+            holder.registerProblem(target, message[0], ProblemHighlightType.GENERIC_ERROR);
+            return true;
+        }
+        return false;
+    }
 
-                    --cursor;
+    static private boolean isExplosive(@NotNull Quantifier quantifier) {
+        return Quantifier.Mode.POSSESSIVE != quantifier.getMode() &&
+               (quantifier.isUnbounded() || quantifier.getMax() >= explosiveRepetitions);
+    }
+
+    /* the first explosive quantifier in the scope, atomic groups excluded */
+    @Nullable
+    static private Quantifier findExplosive(@NotNull RegexNode scope) {
+        final Quantifier[] found = {null};
+        scope.accept(new RegexVisitor() {
+            @Override
+            public void visitGroup(@NotNull Group group) {
+                if (null == found[0] && Group.Kind.ATOMIC != group.getKind()) {
+                    super.visitGroup(group);
                 }
+            }
 
-                /* extracted,*/
-                if (!StringUtil.isEmpty(patternSegment)) {
-                    final Matcher internalQualifierMatcher = regexMarker.matcher(patternSegment);
-                    if (internalQualifierMatcher.find()) {
-                        final String message = messagePattern
-                                .replace("%i%", internalQualifierMatcher.group(1))
-                                .replace("%o%", externalQualifierMatcher.group(1));
-                        holder.registerProblem(target, message, ProblemHighlightType.GENERIC_ERROR);
+            @Override
+            public void visitQuantifier(@NotNull Quantifier quantifier) {
+                if (null == found[0]) {
+                    if (isExplosive(quantifier)) {
+                        found[0] = quantifier;
                         return;
                     }
+                    super.visitQuantifier(quantifier);
                 }
             }
-        }
+        });
+        return found[0];
     }
 }
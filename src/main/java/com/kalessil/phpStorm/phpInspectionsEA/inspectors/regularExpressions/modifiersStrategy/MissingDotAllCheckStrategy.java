@@ -2,31 +2,48 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class MissingDotAllCheckStrategy {
     private static final String strProblemDescription = "/s modifier is probably missing (nested tags are not recognized)";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexTagContentPattern = null;
-    static {
-        regexTagContentPattern = Pattern.compile(".*>\\.(\\*|\\+)\\?<.*");
-    }
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.hasModifier('s') || regex.getPattern().indexOf('?') == -1) {
+            return;
+        }
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (
-            (StringUtil.isEmpty(modifiers) || modifiers.indexOf('s') == -1) &&
-            !StringUtil.isEmpty(pattern) && pattern.indexOf('?') != -1
-        ) {
-            Matcher regexMatcher = regexTagContentPattern.matcher(pattern);
-            if (regexMatcher.matches()) {
-                holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
+        /* >.*?< or >.+?< */
+        final boolean[] matchesTagContent = {false};
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitSequence(@NotNull Sequence sequence) {
+                final List<RegexNode> items = sequence.getItems();
+                for (int index = 1; index + 1 < items.size() && !matchesTagContent[0]; ++index) {
+                    matchesTagContent[0] = isLazyAnything(items.get(index)) &&
+                                           isCharacter(items.get(index - 1), '>') && isCharacter(items.get(index + 1), '<');
+                }
+                super.visitSequence(sequence);
             }
+        });
+        if (matchesTagContent[0]) {
+            holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
         }
     }
+
+    static private boolean isLazyAnything(@NotNull RegexNode node) {
+        if (node instanceof Quantifier) {
+            final Quantifier quantifier = (Quantifier) node;
+            return quantifier.getAtom() instanceof AnyCharacter && quantifier.isUnbounded() &&
+                   quantifier.getMin() <= 1 && Quantifier.Mode.LAZY == quantifier.getMode();
+        }
+        return false;
+    }
+
+    static private boolean isCharacter(@NotNull RegexNode node, char character) {
+        return node instanceof Literal && ((Literal) node).getCodePoint() == character;
+    }
 }
@@ -2,28 +2,29 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.Literal;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.RegexVisitor;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Pattern;
-
 public class MissingUnicodeModifierStrategy {
     private static final String message = "/u modifier is missing (unicode characters found)";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern unicodeContentPattern = null;
-    static {
-        // Original regex: .*[^\u0000-\u007F]+.*
-        unicodeContentPattern = Pattern.compile(".*[^\\u0000-\\u007F]+.*");
-    }
-
-    static public void apply(String modifiers, String pattern, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
-        if (null == modifiers || modifiers.indexOf('u') != -1 || StringUtil.isEmpty(pattern)) {
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.hasModifier('u') || regex.getPattern().isEmpty()) {
             return;
         }
 
-        if (unicodeContentPattern.matcher(pattern).matches()) {
+        /* characters written as is (also inside ranges), escapes like \xE9 are single bytes */
+        final boolean[] hasUnicodeCharacters = {false};
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitLiteral(@NotNull Literal literal) {
+                hasUnicodeCharacters[0] |= literal.getCodePoint() > 0x7F && !literal.isEscaped();
+            }
+        });
+        if (hasUnicodeCharacters[0]) {
             holder.registerProblem(target, message, ProblemHighlightType.GENERIC_ERROR);
         }
     }
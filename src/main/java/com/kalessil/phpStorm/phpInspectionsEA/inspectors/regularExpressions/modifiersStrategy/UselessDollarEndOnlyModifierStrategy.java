@@ -2,24 +2,33 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.Anchor;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.RegexVisitor;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessDollarEndOnlyModifierStrategy {
     private static final String strProblemDescription = "'D' modifier is ambiguous here (no $ in given pattern)";
     private static final String strProblemIgnored     = "'D' modifier will be ignored because of 'm'";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern) && modifiers.indexOf('D') >= 0) {
-            if (modifiers.indexOf('m') >= 0) {
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.isValid() && !regex.getPattern().isEmpty() && regex.hasModifier('D')) {
+            if (regex.hasModifier('m')) {
                 holder.registerProblem(target, strProblemIgnored, ProblemHighlightType.WEAK_WARNING);
                 return;
             }
 
-            int countEnds = StringUtils.countMatches(pattern, "$") - StringUtils.countMatches(pattern, "\\$");
-            if (0 == countEnds) {
+            final int[] countEnds = {0};
+            regex.accept(new RegexVisitor() {
+                @Override
+                public void visitAnchor(@NotNull Anchor anchor) {
+                    if (anchor.getType() == '$') {
+                        ++countEnds[0];
+                    }
+                }
+            });
+            if (0 == countEnds[0]) {
                 holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
             }
         }
@@ -2,18 +2,26 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.AnyCharacter;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.RegexVisitor;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessDotAllModifierCheckStrategy {
     private static final String strProblemDescription = "'s' modifier is ambiguous here (no . in given pattern)";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern) && modifiers.indexOf('s') >= 0) {
-            int countDots = StringUtils.countMatches(pattern, ".") - StringUtils.countMatches(pattern, "\\.");
-            if (0 == countDots) {
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.isValid() && !regex.getPattern().isEmpty() && regex.hasModifier('s')) {
+            /* dots in character classes are literals */
+            final int[] countDots = {0};
+            regex.accept(new RegexVisitor() {
+                @Override
+                public void visitAnyCharacter(@NotNull AnyCharacter anyCharacter) {
+                    ++countDots[0];
+                }
+            });
+            if (0 == countDots[0]) {
                 holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
             }
         }
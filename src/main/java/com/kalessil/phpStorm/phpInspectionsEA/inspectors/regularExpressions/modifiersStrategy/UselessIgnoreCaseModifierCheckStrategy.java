@@ -2,16 +2,47 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessIgnoreCaseModifierCheckStrategy {
     private static final String message = "'i' modifier is ambiguous here (no alphabet characters in given pattern)";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern)) {
-            if (-1 != modifiers.indexOf('i') && !pattern.matches(".*\\p{L}.*")) {
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.isValid() && !regex.getPattern().isEmpty() && regex.hasModifier('i')) {
+            /* escapes (\d, \w, ...) are not case-sensitive, back-references and properties might be */
+            final boolean[] isCaseSensitive = {false};
+            regex.accept(new RegexVisitor() {
+                @Override
+                public void visitLiteral(@NotNull Literal literal) {
+                    isCaseSensitive[0] |= Character.isLetter(literal.getCodePoint());
+                }
+
+                @Override
+                public void visitCharacterRange(@NotNull CharacterRange range) {
+                    final int from = range.getFrom().getCodePoint();
+                    final int to   = range.getTo().getCodePoint();
+                    /* ranges are overlapping with ASCII letters or might contain non-ASCII ones */
+                    isCaseSensitive[0] |= Character.isLetter(from) || Character.isLetter(to) || (from <= 'z' && to >= 'A') || to > 0x7F;
+                }
+
+                @Override
+                public void visitPosixClass(@NotNull PosixClass posixClass) {
+                    isCaseSensitive[0] |= posixClass.getName().equals("upper") || posixClass.getName().equals("lower");
+                }
+
+                @Override
+                public void visitClassEscape(@NotNull ClassEscape escape) {
+                    isCaseSensitive[0] |= null != escape.getProperty();
+                }
+
+                @Override
+                public void visitBackReference(@NotNull BackReference reference) {
+                    isCaseSensitive[0] = true;
+                }
+            });
+            if (!isCaseSensitive[0]) {
                 holder.registerProblem(target, message, ProblemHighlightType.WEAK_WARNING);
             }
         }
@@ -2,22 +2,32 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.Anchor;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.RegexVisitor;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessMultiLineModifierStrategy {
     private static final String strProblemDescription = "'m' modifier is ambiguous here (no ^ or $ in given pattern)";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern) && modifiers.indexOf('m') >= 0) {
-            int countBegins = StringUtils.countMatches(pattern, "^") - StringUtils.countMatches(pattern, "[^");
-            int countEnds   = StringUtils.countMatches(pattern, "$") - StringUtils.countMatches(pattern, "\\$");
-            if (0 == countBegins || 0 == countEnds) {
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.isValid() && !regex.getPattern().isEmpty() && regex.hasModifier('m')) {
+            final int[] countBegins = {0};
+            final int[] countEnds   = {0};
+            regex.accept(new RegexVisitor() {
+                @Override
+                public void visitAnchor(@NotNull Anchor anchor) {
+                    if (anchor.getType() == '^') {
+                        ++countBegins[0];
+                    } else if (anchor.getType() == '$') {
+                        ++countEnds[0];
+                    }
+                }
+            });
+            if (0 == countBegins[0] || 0 == countEnds[0]) {
                 holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
             }
         }
     }
 }
-
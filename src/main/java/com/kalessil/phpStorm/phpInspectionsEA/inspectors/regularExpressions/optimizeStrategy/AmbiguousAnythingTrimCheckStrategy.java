@@ -5,34 +5,54 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 public class AmbiguousAnythingTrimCheckStrategy {
     private static final String strProblemLeading  = "Leading .* can be removed";
     private static final String strProblemTrailing = "Trailing .* can be removed";
 
     static public void apply(
             final String functionName, @NotNull final FunctionReference reference,
-            final String pattern,
+            @NotNull final ParsedRegex regex,
             @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder
     ) {
         if (
             2 == reference.getParameters().length &&
-            !StringUtil.isEmpty(pattern) &&
+            regex.getRoot() instanceof Sequence &&
             !StringUtil.isEmpty(functionName) && functionName.startsWith("preg_match")
         ) {
-            int countBackRefs = StringUtils.countMatches(pattern, "\\0") - StringUtils.countMatches(pattern, "\\\\0");
-            if (countBackRefs > 0) {
+            /* \0 is an octal escape in patterns, parsed as a literal: only real back-references are counted */
+            final int[] countBackRefs = {0};
+            regex.accept(new RegexVisitor() {
+                @Override
+                public void visitBackReference(@NotNull BackReference reference) {
+                    ++countBackRefs[0];
+                }
+            });
+            if (countBackRefs[0] > 0) {
+                return;
+            }
+
+            final List<RegexNode> items = ((Sequence) regex.getRoot()).getItems();
+            if (items.isEmpty()) {
                 return;
             }
 
-            if (pattern.startsWith(".*")) {
+            if (isAnything(items.get(0))) {
                 holder.registerProblem(target, strProblemLeading, ProblemHighlightType.WEAK_WARNING);
             }
-            if (pattern.endsWith(".*")) {
+            if (isAnything(items.get(items.size() - 1))) {
                 holder.registerProblem(target, strProblemTrailing, ProblemHighlightType.WEAK_WARNING);
             }
         }
     }
+
+    /* .*, .*? and .*+ */
+    static private boolean isAnything(@NotNull RegexNode node) {
+        return node instanceof Quantifier && ((Quantifier) node).getAtom() instanceof AnyCharacter &&
+               0 == ((Quantifier) node).getMin() && ((Quantifier) node).isUnbounded();
+    }
 }
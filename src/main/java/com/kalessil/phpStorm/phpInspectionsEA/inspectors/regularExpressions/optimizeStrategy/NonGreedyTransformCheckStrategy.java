@@ -2,36 +2,53 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opt
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class NonGreedyTransformCheckStrategy {
     private static final String strProblemDescription = "'%p%' can be replaced with '[^%c%]%m%%c%'";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexNonGreedyPattern = null;
-    static {
-        regexNonGreedyPattern = Pattern.compile("\\.(\\*|\\+)\\?([^\\(\\)\\$\\\\]|\\\\.)");
-    }
-
     /**
      * TODO: $content = preg_replace('#<esi\:remove>.*?</esi\:remove>#s', '', $content);
      * nested tags are broken, reflect in message as risky, breaks e.g. nested tags
      */
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern) && pattern.indexOf('?') >= 0) {
-            Matcher regexMatcher = regexNonGreedyPattern.matcher(pattern);
-            if (regexMatcher.find()) {
-                String strError = strProblemDescription
-                        .replace("%p%", regexMatcher.group(0))
-                        .replace("%c%", regexMatcher.group(2))
-                        .replace("%m%", regexMatcher.group(1));
-                holder.registerProblem(target, strError, ProblemHighlightType.WEAK_WARNING);
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.getPattern().indexOf('?') < 0) {
+            return;
+        }
+
+        /* the first .*?x or .+?x, where x is a character */
+        final String[] message = {null};
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitSequence(@NotNull Sequence sequence) {
+                final List<RegexNode> items = sequence.getItems();
+                for (int index = 0; index + 1 < items.size() && null == message[0]; ++index) {
+                    final RegexNode current = items.get(index);
+                    final RegexNode next    = items.get(index + 1);
+                    if (
+                        current instanceof Quantifier && next instanceof Literal &&
+                        ((Quantifier) current).getAtom() instanceof AnyCharacter &&
+                        Quantifier.Mode.LAZY == ((Quantifier) current).getMode() &&
+                        ((Quantifier) current).isUnbounded() && ((Quantifier) current).getMin() <= 1
+                    ) {
+                        message[0] = strProblemDescription
+                                .replace("%p%", regex.getPattern().substring(current.getStartOffset(), next.getEndOffset()))
+                                .replace("%c%", next.getText())
+                                .replace("%m%", ((Quantifier) current).getQuantifierText());
+                    }
+                }
+                if (null == message[0]) {
+                    super.visitSequence(sequence);
+                }
             }
+        });
+
+        if (null != message[0]) {
+            holder.registerProblem(target, message[0], ProblemHighlightType.WEAK_WARNING);
         }
     }
 }
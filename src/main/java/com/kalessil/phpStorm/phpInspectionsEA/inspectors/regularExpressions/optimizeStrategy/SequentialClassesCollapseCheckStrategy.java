@@ -2,31 +2,66 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opt
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class SequentialClassesCollapseCheckStrategy {
     private static final String strProblemDescription = "'%p%' can be replaced with '%r%{...}'";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexRepeatedClasses = null;
-    static {
-        regexRepeatedClasses = Pattern.compile("((\\[([^\\]]+)\\])(\\*|\\+|\\?|\\{[^\\}]+\\})?\\2(\\*|\\+|\\?|\\{[^\\}]+\\})?)+");
-    }
+    static public void apply(@NotNull final ParsedRegex regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (!regex.isValid() || regex.getPattern().indexOf('[') < 0) {
+            return;
+        }
 
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern) && pattern.indexOf('[') >= 0) {
-            Matcher regexMatcher = regexRepeatedClasses.matcher(pattern);
-            if (regexMatcher.find()) {
-                String strError = strProblemDescription
-                        .replace("%p%", regexMatcher.group(0))
-                        .replace("%r%", regexMatcher.group(2));
-                holder.registerProblem(target, strError, ProblemHighlightType.WEAK_WARNING);
+        /* the first run of the same class repeated (optionally quantified) in a sequence */
+        final String[] reported = {null, null};
+        regex.accept(new RegexVisitor() {
+            @Override
+            public void visitSequence(@NotNull Sequence sequence) {
+                final List<RegexNode> items = sequence.getItems();
+                for (int index = 0; index + 1 < items.size() && null == reported[0]; ++index) {
+                    final CharacterClass repeated = getCharacterClass(items.get(index));
+                    if (null == repeated) {
+                        continue;
+                    }
+
+                    int last = index;
+                    while (last + 1 < items.size()) {
+                        final CharacterClass next = getCharacterClass(items.get(last + 1));
+                        if (null == next || !next.getText().equals(repeated.getText())) {
+                            break;
+                        }
+                        ++last;
+                    }
+                    if (last > index) {
+                        reported[0] = regex.getPattern().substring(items.get(index).getStartOffset(), items.get(last).getEndOffset());
+                        reported[1] = repeated.getText();
+                    }
+                }
+                if (null == reported[0]) {
+                    super.visitSequence(sequence);
+                }
             }
+        });
+
+        if (null != reported[0]) {
+            final String message = strProblemDescription
+                    .replace("%p%", reported[0])
+                    .replace("%r%", reported[1]);
+            holder.registerProblem(target, message, ProblemHighlightType.WEAK_WARNING);
+        }
+    }
+
+    /* [...] and [...] with greedy quantifier */
+    @Nullable
+    static private CharacterClass getCharacterClass(@NotNull RegexNode node) {
+        if (node instanceof Quantifier && Quantifier.Mode.GREEDY == ((Quantifier) node).getMode()) {
+            node = ((Quantifier) node).getAtom();
         }
+        return node instanceof CharacterClass ? (CharacterClass) node : null;
     }
 }
@@ -8,6 +8,7 @@ import com.intellij.json.psi.JsonValue;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BaseInspection;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -20,7 +21,7 @@ import org.jetbrains.annotations.Nullable;
  * file that was distributed with this source code.
  */
 
-public class SecurityAdvisoriesInspector extends LocalInspectionTool {
+public class SecurityAdvisoriesInspector extends BaseInspection {
     private static final String message   = "Please add roave/security-advisories:dev-master as a firewall for vulnerable components";
     private static final String useMaster = "Please use dev-master instead";
 
@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.security;
 
-import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
@@ -13,6 +12,7 @@ import com.jetbrains.php.lang.psi.elements.ArrayAccessExpression;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.Variable;
 import com.jetbrains.php.lang.psi.elements.impl.FunctionReferenceImpl;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BaseInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 import org.jetbrains.annotations.NotNull;
@@ -28,7 +28,7 @@ import java.util.*;
  * file that was distributed with this source code.
  */
 
-public class UnserializeExploitsInspector extends LocalInspectionTool {
+public class UnserializeExploitsInspector extends BaseInspection {
     private static final String messageUseSecondArgument = "Please specify classes allowed for unserialization in 2nd argument";
     private static final String messagePattern           = "Perhaps it's possible to exploit the unserialize via: %e%";
 
@@ -2,24 +2,25 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis;
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.Field;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.jetbrains.php.lang.psi.elements.PhpModifier;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassHierarchyIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.FileSystemUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
 import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import java.util.Collection;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -68,12 +69,16 @@ public class ClassOverridesFieldOfSuperClassInspector extends BasePhpInspection
                 final PhpModifier.Access ownFieldAccess  = ownField.getModifier().getAccess();
                 final String ownFieldName                = ownField.getName();
                 final PsiElement ownFieldParent          = ownField.getParent();
-                for (PhpClass parentClass : InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true)) {
-                    /* ensure class and super are explorable */
-                    final String superClassFQN = parentClass.getFQN();
-                    if (clazz == parentClass || parentClass.isInterface() || StringUtil.isEmpty(superClassFQN)) {
+                final PhpIndex index                     = PhpIndex.getInstance(holder.getProject());
+                /* parent classes are taken from the hierarchy index, only their fields are loaded */
+                for (String superClassName : ClassHierarchyIndex.getParentClasses(clazz)) {
+                    /* ensure super is explorable and not ambiguous */
+                    final Collection<PhpClass> parentClasses = index.getClassesByFQN(superClassName);
+                    if (1 != parentClasses.size()) {
                         continue;
                     }
+                    final PhpClass parentClass = parentClasses.iterator().next();
+                    final String superClassFQN = parentClass.getFQN();
 
                     for (Field superclassField : parentClass.getOwnFields()) {
                         if (!superclassField.getName().equals(ownFieldName)) {
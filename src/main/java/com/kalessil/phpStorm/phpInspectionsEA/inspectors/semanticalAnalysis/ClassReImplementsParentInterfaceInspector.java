@@ -12,6 +12,7 @@ import com.intellij.psi.PsiWhiteSpace;
 import com.jetbrains.php.lang.psi.elements.ClassReference;
 import com.jetbrains.php.lang.psi.elements.ImplementsList;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassHierarchyIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
@@ -61,42 +62,27 @@ public class ClassReImplementsParentInterfaceInspector extends BasePhpInspection
                     }
 
 
-                    /* Case 2: re-implementation of parent interfaces */
-                    for (PhpClass objParentClass : clazz.getSupers()) {
-                        /* do not process parent interfaces */
-                        if (objParentClass.isInterface()) {
-                            continue;
-                        }
-
-                        /* ensure implements some interfaces and discoverable properly */
-                        final List<ClassReference> listImplementsParents = objParentClass.getImplementsList().getReferenceElements();
-                        if (listImplementsParents.size() > 0) {
-                            /* check interfaces of a parent class */
-                            final String parentClassFQN = objParentClass.getFQN();
-                            for (ClassReference parentInterfaceRef : listImplementsParents) {
-                                /* ensure we have all identities valid, or skip analyzing */
-                                final String parentInterfaceFQN  = parentInterfaceRef.getFQN();
-                                final String parentInterfaceName = parentInterfaceRef.getName();
-                                if (StringUtil.isEmpty(parentInterfaceFQN) || StringUtil.isEmpty(parentInterfaceName)) {
-                                    continue;
-                                }
-
-                                /* match parents interfaces against class we checking */
-                                for (ClassReference ownInterface : listImplements) {
-                                    /* ensure FQNs matches */
-                                    final String ownInterfaceFQN = ownInterface.getFQN();
-                                    if (!StringUtil.isEmpty(ownInterfaceFQN) && ownInterfaceFQN.equals(parentInterfaceFQN)) {
-                                        final String message = messagePatternReImplementsParent
-                                                .replace("%i%", parentInterfaceName)
-                                                .replace("%c%", parentClassFQN);
-
-                                        holder.registerProblem(ownInterface, message, ProblemHighlightType.LIKE_UNUSED_SYMBOL, new TheLocalFix());
-                                        break;
-                                    }
+                    /* Case 2: re-implementation of parent interfaces, parent class declaration is taken from the hierarchy index */
+                    final List<ClassReference> listExtends = clazz.getExtendsList().getReferenceElements();
+                    final String parentClassFQN            = listExtends.isEmpty() ? null : listExtends.get(0).getFQN();
+                    final ClassHierarchyIndex.Entry parent = StringUtil.isEmpty(parentClassFQN) ? null : ClassHierarchyIndex.getEntry(holder.getProject(), parentClassFQN);
+                    if (null != parent && !parent.isInterface()) {
+                        /* check interfaces of a parent class */
+                        for (String parentInterfaceFQN : parent.getInterfaces()) {
+                            /* match parents interfaces against class we checking */
+                            for (ClassReference ownInterface : listImplements) {
+                                /* ensure FQNs matches */
+                                final String ownInterfaceFQN  = ownInterface.getFQN();
+                                final String ownInterfaceName = ownInterface.getName();
+                                if (!StringUtil.isEmpty(ownInterfaceName) && parentInterfaceFQN.equalsIgnoreCase(ownInterfaceFQN)) {
+                                    final String message = messagePatternReImplementsParent
+                                            .replace("%i%", ownInterfaceName)
+                                            .replace("%c%", parentClassFQN);
+
+                                    holder.registerProblem(ownInterface, message, ProblemHighlightType.LIKE_UNUSED_SYMBOL, new TheLocalFix());
+                                    break;
                                 }
                             }
-
-                            listImplementsParents.clear();
                         }
                     }
 
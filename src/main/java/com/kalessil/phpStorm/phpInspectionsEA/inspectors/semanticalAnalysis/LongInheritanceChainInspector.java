@@ -5,6 +5,7 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassHierarchyIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.FileSystemUtil;
@@ -31,14 +32,8 @@ public class LongInheritanceChainInspector extends BasePhpInspection {
                     return;
                 }
 
-                /* count parents */
-                int intParentsCount   = 0;
-                PhpClass classToCheck = clazz;
-                /* in source code class CAN extend itself, PS will report it but data structure is incorrect still */
-                while (null != classToCheck.getSuperClass() && clazz != classToCheck.getSuperClass()) {
-                    classToCheck = classToCheck.getSuperClass();
-                    ++intParentsCount;
-                }
+                /* count parents: taken from the hierarchy index, cycles (class CAN extend itself) are handled there */
+                final int intParentsCount = ClassHierarchyIndex.getParentClasses(clazz).size();
 
                 if (intParentsCount >= 3 && !clazz.isDeprecated()) {
                     holder.registerProblem(psiClassName, message, ProblemHighlightType.WEAK_WARNING);
@@ -10,18 +10,19 @@ import com.jetbrains.php.codeInsight.controlFlow.PhpControlFlowUtil;
 import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
 import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpEntryPointInstruction;
 import com.jetbrains.php.config.PhpLanguageFeature;
-import com.jetbrains.php.config.PhpLanguageLevel;
-import com.jetbrains.php.config.PhpProjectConfigurationFacade;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.resolve.types.PhpType;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.FunctionSummaryIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionSession;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 public class ReferenceMismatchInspector extends BasePhpInspection {
     final static private String strErrorForeachIntoReference = "Probable bug: variable should be renamed to prevent writing into already existing reference";
@@ -48,12 +49,6 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
         legalizedMismatchingFunctions.add("method_exists");
     }
 
-    private final static ConcurrentHashMap<Function, HashSet<PsiElement>> reportedIssues = new ConcurrentHashMap<>();
-    private static HashSet<PsiElement> getFunctionReportingRegistry(Function key) {
-        reportedIssues.putIfAbsent(key, new HashSet<>());
-        return reportedIssues.get(key);
-    }
-
     @NotNull
     public String getShortName() {
         return "ReferenceMismatchInspection";
@@ -62,37 +57,40 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        /* PHP7 seems to be ref mismatch free, older versions are still affected */
+        final InspectionSession session = InspectionSession.of(holder);
+        if (session.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
         return new BasePhpElementVisitor() {
             /**
              * TODO: checkReferenceReturnedByCallable - ternary operator, argument usages ?
              */
 
-            /* parameters by reference */
-            public void visitPhpMethod(Method method) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
+            /* reported items per function: lives as long as the visitor (one inspection pass over a file) */
+            private final HashMap<Function, HashSet<PsiElement>> reportedIssues = new HashMap<>();
+            private HashSet<PsiElement> getFunctionReportingRegistry(Function key) {
+                HashSet<PsiElement> registry = reportedIssues.get(key);
+                if (null == registry) {
+                    registry = new HashSet<>();
+                    reportedIssues.put(key, registry);
                 }
+                return registry;
+            }
 
-                /* older versions are still affected */
+            /* parameters by reference */
+            public void visitPhpMethod(Method method) {
                 this.checkParameters(method.getParameters(), method);
             }
             public void visitPhpFunction(Function function) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
-                }
-
-                /* older versions are still affected */
                 this.checkParameters(function.getParameters(), function);
             }
             private void checkParameters(Parameter[] arrParameters, Function objScopeHolder) {
                 PhpEntryPointInstruction objEntryPoint = objScopeHolder.getControlFlow().getEntryPoint();
 
                 HashSet<PsiElement> emptyReportedItemsRegistry =
-                        ReferenceMismatchInspector.getFunctionReportingRegistry(objScopeHolder);
+                        this.getFunctionReportingRegistry(objScopeHolder);
 
                 for (Parameter parameter : arrParameters) {
                     /* skip un-discoverable and non-reference parameters */
@@ -109,13 +107,6 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
 
             /* = & variable/property patterns */
             public void visitPhpAssignmentExpression(AssignmentExpression assignmentExpression) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
-                }
-
-                /* older versions are still affected */
                 PsiElement value    = assignmentExpression.getValue();
                 PsiElement variable = assignmentExpression.getVariable();
                 if (
@@ -135,7 +126,7 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                         Function scope = ExpressionSemanticUtil.getScope(assignmentExpression);
                         if (null != scope) {
                             // report items, but ensure no duplicated messages
-                            HashSet<PsiElement> reportedItemsRegistry = ReferenceMismatchInspector.getFunctionReportingRegistry(scope);
+                            HashSet<PsiElement> reportedItemsRegistry = this.getFunctionReportingRegistry(scope);
                             inspectScopeForReferenceMissUsages(scope.getControlFlow().getEntryPoint(), strVariable, reportedItemsRegistry);
                         }
                     }
@@ -144,36 +135,15 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
 
             /* assign reference from function */
             public void visitPhpMethodReference(MethodReference reference) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
-                }
-
-                /* older versions are still affected */
                 this.checkReferenceReturnedByCallable(reference);
             }
             public void visitPhpFunctionCall(FunctionReference reference) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
-                }
-
-                /* older versions are still affected */
                 this.checkReferenceReturnedByCallable(reference);
             }
 
 
             /* aggressive foreach optimization when value is reference */
             public void visitPhpForeach(ForeachStatement foreach) {
-                /* PHP7 seems to be ref mismatch free */
-                final PhpLanguageLevel phpVersion = PhpProjectConfigurationFacade.getInstance(holder.getProject()).getLanguageLevel();
-                if (phpVersion.hasFeature(PhpLanguageFeature.SCALAR_TYPE_HINTS)) { // PHP7 and newer
-                    return;
-                }
-
-                /* older versions are still affected */
                 /* lookup for reference preceding value */
                 Variable objForeachValue = foreach.getValue();
                 if (null != objForeachValue) {
@@ -187,7 +157,7 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                         Function scope = ExpressionSemanticUtil.getScope(foreach);
                         if (null != scope) {
                             // report items, but ensure no duplicated messages
-                            HashSet<PsiElement> reportedItemsRegistry = ReferenceMismatchInspector.getFunctionReportingRegistry(scope);
+                            HashSet<PsiElement> reportedItemsRegistry = this.getFunctionReportingRegistry(scope);
                             reportedItemsRegistry.add(objForeachValue);
                             inspectScopeForReferenceMissUsages(scope.getControlFlow().getEntryPoint(), strVariable, reportedItemsRegistry);
                         }
@@ -233,12 +203,8 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                     if (objExpression instanceof ParameterList && objExpression.getParent() instanceof FunctionReference) {
                         FunctionReference reference = (FunctionReference) objExpression.getParent();
                         /* not resolved or known re-unsafe function */
-                        PsiElement callable = reference.resolve();
-                        if (!(callable instanceof Function)) {
-                            continue;
-                        }
-                        String strCallableName = ((Function) callable).getName();
-                        if (!StringUtil.isEmpty(strCallableName) && legalizedMismatchingFunctions.contains(strCallableName)) {
+                        FunctionSummaryIndex.Summary callable = FunctionSummaryIndex.getSummary(reference);
+                        if (null == callable || legalizedMismatchingFunctions.contains(callable.getName().toLowerCase())) {
                             continue;
                         }
 
@@ -262,13 +228,19 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                             continue;
                         }
 
-                        /* now check what is declared in resolved callable */
-                        Parameter[] usageCallableParameters = ((Function) callable).getParameters();
-                        if (usageCallableParameters.length >= indexInArguments + 1) {
-                            Parameter parameterForAnalysis = usageCallableParameters[indexInArguments];
+                        /* now check what is declared in the callable */
+                        List<FunctionSummaryIndex.ParameterSummary> usageCallableParameters = callable.getParameters();
+                        if (usageCallableParameters.size() >= indexInArguments + 1) {
+                            FunctionSummaryIndex.ParameterSummary parameterForAnalysis = usageCallableParameters.get(indexInArguments);
                             if (!parameterForAnalysis.isPassByRef()) {
                                 /* additionally try filtering types for reducing false-positives on scalars */
-                                PhpType argumentType = parameterForAnalysis.getType().global(holder.getProject());
+                                PhpType argumentType = new PhpType();
+                                for (String type : parameterForAnalysis.getType().split("\\|")) {
+                                    if (!type.isEmpty()) {
+                                        argumentType.add(type);
+                                    }
+                                }
+                                argumentType = argumentType.global(holder.getProject());
                                 if (!PhpType.isSubType(argumentType, legalizedTypesForMismatchingSet)) {
                                     PsiElement itemToBeReported = reference.getParameters()[indexInArguments];
                                     if (!reportedItemsRegistry.contains(itemToBeReported)) {
@@ -316,30 +288,18 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                     /* assignment structure verify */
                     AssignmentExpression assignment = (AssignmentExpression) reference.getParent();
                     if (assignment.getValue() == reference) {
-                        /* try resolving now */
-                        PsiElement callable = reference.resolve();
-                        if (callable instanceof Function) {
-                            /* ensure name discoverable */
-                            Function function         = (Function) callable;
-                            PsiElement nameIdentifier = function.getNameIdentifier();
-                            if (null != nameIdentifier) {
-                                /* is defined like returning reference */
-                                PsiElement prevElement = nameIdentifier.getPrevSibling();
-                                if (prevElement instanceof PsiWhiteSpace) {
-                                    prevElement = prevElement.getPrevSibling();
-                                }
-                                if (null != prevElement && PhpTokenTypes.opBIT_AND == prevElement.getNode().getElementType()) {
-                                    /* check if assignments states reference usage */
-                                    PsiElement operation = reference.getPrevSibling();
-                                    if (operation instanceof PsiWhiteSpace) {
-                                        operation = operation.getPrevSibling();
-                                    }
+                        /* is defined like returning reference */
+                        FunctionSummaryIndex.Summary callable = FunctionSummaryIndex.getSummary(reference);
+                        if (null != callable && callable.isReturningReference()) {
+                            /* check if assignments states reference usage */
+                            PsiElement operation = reference.getPrevSibling();
+                            if (operation instanceof PsiWhiteSpace) {
+                                operation = operation.getPrevSibling();
+                            }
 
-                                    /* report if not */
-                                    if (null != operation && !operation.getText().replaceAll("\\s+","").equals("=&")) {
-                                        holder.registerProblem(reference.getParent(), "Reference mismatch, copy will be stored (for non-objects)", ProblemHighlightType.WEAK_WARNING);
-                                    }
-                                }
+                            /* report if not */
+                            if (null != operation && !operation.getText().replaceAll("\\s+","").equals("=&")) {
+                                holder.registerProblem(reference.getParent(), "Reference mismatch, copy will be stored (for non-objects)", ProblemHighlightType.WEAK_WARNING);
                             }
                         }
                     }
@@ -1,22 +1,27 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis;
 
-import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.jetbrains.php.lang.psi.elements.GroupStatement;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
-import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.MethodBodyFingerprintIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.FileSystemUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
+import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.util.Set;
+
 /*
  * This file is part of the Php Inspections (EA Extended) package.
  *
@@ -29,10 +34,13 @@ import org.jetbrains.annotations.NotNull;
 public class SenselessMethodDuplicationInspector extends BasePhpInspection {
     // configuration flags automatically saved by IDE
     @SuppressWarnings("WeakerAccess")
-    public int MAX_METHOD_SIZE = 20;
-    /* TODO: configurable via drop-down; clean code: 20 lines/method; PMD: 50; Checkstyle: 100 */
+    public boolean REPORT_PROJECT_DUPLICATES = false;
+
+    private static final String messagePattern        = "'%s%' method can be dropped, as it identical to parent's one";
+    private static final String messageProjectPattern = "'%s%' method is identical to '%m%', consider extracting the implementation";
 
-    private static final String messagePattern = "'%s%' method can be dropped, as it identical to parent's one";
+    /* small methods (getters, setters, delegation) are legitimately the same across the project */
+    private static final int minimalProjectDuplicateSize = 3;
 
     @NotNull
     public String getShortName() {
@@ -56,55 +64,67 @@ public class SenselessMethodDuplicationInspector extends BasePhpInspection {
                     return;
                 }
 
-                /* don't take too heavy work */
                 final int countExpressions = ExpressionSemanticUtil.countExpressionsInGroup(body);
-                if (0 == countExpressions || countExpressions > MAX_METHOD_SIZE) {
+                final String fingerprint   = MethodBodyFingerprintIndex.getFingerprint(method);
+                final String member        = MethodBodyFingerprintIndex.getMember(method);
+                if (0 == countExpressions || null == fingerprint || null == member) {
                     return;
                 }
 
-                /* ensure parent, parent methods are existing and contains the same amount of expressions */
-                final PhpClass parent           = clazz.getSuperClass();
-                final Method parentMethod       = null == parent ? null : parent.findMethodByName(method.getName());
-                final GroupStatement parentBody = null == parentMethod ? null : ExpressionSemanticUtil.getGroupStatement(parentMethod);
-                if (null == parentBody || countExpressions != ExpressionSemanticUtil.countExpressionsInGroup(parentBody)) {
+                /* identical implementations are found by fingerprint, no matter how large methods are */
+                final Set<String> duplicates = MethodBodyFingerprintIndex.getMembers(fingerprint, GlobalSearchScope.allScope(holder.getProject()));
+                duplicates.remove(member);
+                if (duplicates.isEmpty()) {
                     return;
                 }
 
-                /* iterate and compare expressions */
-                PhpPsiElement ownExpression    = body.getFirstPsiChild();
-                PhpPsiElement parentExpression = parentBody.getFirstPsiChild();
-                for (int index = 0; index <= countExpressions; ++index) {
-                    /* skip doc-blocks */
-                    while (ownExpression instanceof PhpDocComment) {
-                        ownExpression = ownExpression.getNextPsiSibling();
-                    }
-                    while (parentExpression instanceof PhpDocComment) {
-                        parentExpression = parentExpression.getNextPsiSibling();
-                    }
-                    if (null == ownExpression || null == parentExpression) {
-                        break;
-                    }
+                /* the inherited implementation (can be defined in any of parents) is the same */
+                final PhpClass parent     = clazz.getSuperClass();
+                final Method parentMethod = null == parent ? null : parent.findMethodByName(method.getName());
+                final String parentMember = null == parentMethod ? null : MethodBodyFingerprintIndex.getMember(parentMethod);
+                if (null != parentMember && duplicates.contains(parentMember)) {
+                    final String message = messagePattern.replace("%s%", method.getName());
+                    holder.registerProblem(methodName, message, ProblemHighlightType.WEAK_WARNING);
+                    return;
+                }
 
-                    /* process comparing 2 nodes */
-                    if (!PsiEquivalenceUtil.areElementsEquivalent(ownExpression, parentExpression)) {
-                        boolean mismatched = true;
-                        /* PsiEquivalenceUtil.areElementsEquivalent is not handling assignments properly */
-                        /* FIXME: ugly workaround / https://youtrack.jetbrains.com/issue/WI-34368 */
-                        if (ownExpression.getTextLength() == parentExpression.getTextLength()) {
-                            mismatched = !ownExpression.getText().equals(parentExpression.getText());
-                        }
-
-                        if (mismatched) {
-                            return;
-                        }
+                if (REPORT_PROJECT_DUPLICATES && countExpressions >= minimalProjectDuplicateSize) {
+                    duplicates.retainAll(MethodBodyFingerprintIndex.getMembers(fingerprint, GlobalSearchScope.projectScope(holder.getProject())));
+                    if (!duplicates.isEmpty()) {
+                        final String message = messageProjectPattern
+                                .replace("%s%", method.getName())
+                                .replace("%m%", duplicates.iterator().next());
+                        holder.registerProblem(methodName, message, ProblemHighlightType.WEAK_WARNING);
                     }
-                    ownExpression    = ownExpression.getNextPsiSibling();
-                    parentExpression = parentExpression.getNextPsiSibling();
                 }
-
-                final String message = messagePattern.replace("%s%", method.getName());
-                holder.registerProblem(methodName, message, ProblemHighlightType.WEAK_WARNING);
             }
         };
     }
+
+    public JComponent createOptionsPanel() {
+        return (new SenselessMethodDuplicationInspector.OptionsPanel()).getComponent();
+    }
+
+    public class OptionsPanel {
+        final private JPanel optionsPanel;
+
+        final private JCheckBox reportProjectDuplicates;
+
+        public OptionsPanel() {
+            optionsPanel = new JPanel();
+            optionsPanel.setLayout(new MigLayout());
+
+            reportProjectDuplicates = new JCheckBox("Report identical methods across the project", REPORT_PROJECT_DUPLICATES);
+            reportProjectDuplicates.addChangeListener(new ChangeListener() {
+                public void stateChanged(ChangeEvent e) {
+                    REPORT_PROJECT_DUPLICATES = reportProjectDuplicates.isSelected();
+                }
+            });
+            optionsPanel.add(reportProjectDuplicates, "wrap");
+        }
+
+        public JPanel getComponent() {
+            return optionsPanel;
+        }
+    }
 }
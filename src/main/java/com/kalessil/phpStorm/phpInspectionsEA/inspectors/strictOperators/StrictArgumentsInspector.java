@@ -4,14 +4,14 @@ import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.FunctionSummaryIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.strictOperators.util.PhpExpressionTypes;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
+import java.util.List;
 
 public class StrictArgumentsInspector extends BasePhpInspection {
     private static final String strProblemDescriptionArgumentTypeMismatch = "Argument type of (%t1%) doesn't match parameter type of (%t2%).";
@@ -27,46 +27,29 @@ public class StrictArgumentsInspector extends BasePhpInspection {
         return new BasePhpElementVisitor() {
 
             public void visitPhpMethodReference(MethodReference reference) {
-                PhpIndex objIndex = PhpIndex.getInstance(holder.getProject());
-
-                Collection<? extends PhpNamedElement> methods = objIndex.getBySignature(reference.getSignature());
-                if (methods.size() != 1) {
-                    return;
-                }
-
-                PhpNamedElement method = methods.iterator().next();
-                if (!(method instanceof Method)) {
-                    return;
-                }
-
-                Parameter[] params = ((Method) method).getParameters();
-                PsiElement[] args = reference.getParameters();
-
-                inspectArguments(args, params);
+                this.inspectArguments(reference);
             }
 
             public void visitPhpFunctionCall(FunctionReference reference) {
-                PhpIndex objIndex = PhpIndex.getInstance(holder.getProject());
+                this.inspectArguments(reference);
+            }
 
-                Collection<Function> functions = objIndex.getFunctionsByName(reference.getName());
-                if (functions.size() != 1) {
+            private void inspectArguments(final FunctionReference reference) {
+                /* signatures are read from the index, callees PSI is not loaded */
+                final FunctionSummaryIndex.Summary summary = FunctionSummaryIndex.getSummary(reference);
+                if (null == summary) {
                     return;
                 }
 
-                Parameter[] params = functions.iterator().next().getParameters();
-                PsiElement[] args = reference.getParameters();
-
-                inspectArguments(args, params);
-            }
-
-            private void inspectArguments(final PsiElement[] args, final Parameter[] params) {
-                final int length = Math.min(args.length, params.length);
+                final List<FunctionSummaryIndex.ParameterSummary> params = summary.getParameters();
+                final PsiElement[] args = reference.getParameters();
+                final int length        = Math.min(args.length, params.size());
                 for (int i = 0; i < length; ++i) {
-                    PhpExpressionTypes argType = new PhpExpressionTypes(args[i], holder);
+                    PhpExpressionTypes argType = PhpExpressionTypes.of(args[i], holder);
                     if (argType.isUnknown() && (args[i] instanceof Variable)) {
-                        argType = new PhpExpressionTypes(((Variable) args[i]).getType().toString(), holder);
+                        argType = PhpExpressionTypes.ofTypes(((Variable) args[i]).getType().toString(), holder);
                     }
-                    final PhpExpressionTypes paramType = new PhpExpressionTypes(params[i].getType().toString(), holder);
+                    final PhpExpressionTypes paramType = PhpExpressionTypes.ofTypes(params.get(i).getType(), holder);
 
                     if (!paramType.isMixed()
                             && !argType.equals(paramType)
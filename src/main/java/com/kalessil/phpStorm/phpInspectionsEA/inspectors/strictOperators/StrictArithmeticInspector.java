@@ -32,8 +32,8 @@ public class StrictArithmeticInspector extends BasePhpInspection {
 
                 final String operation = expr.getOperation().getText();
 
-                final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getLeftOperand(), holder);
-                final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getRightOperand(), holder);
+                final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getLeftOperand(), holder);
+                final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getRightOperand(), holder);
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("+")) {
@@ -52,8 +52,8 @@ public class StrictArithmeticInspector extends BasePhpInspection {
 
                 final String operation = expr.getOperation().getText();
 
-                final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getFirstPsiChild(), holder);
-                final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getValue(), holder);
+                final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getFirstPsiChild(), holder);
+                final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getValue(), holder);
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("+=")) {
@@ -31,7 +31,7 @@ public class StrictBitwiseInspector extends BasePhpInspection {
                     return;
                 }
 
-                final PhpExpressionTypes type = new PhpExpressionTypes(expr, holder);
+                final PhpExpressionTypes type = PhpExpressionTypes.of(expr, holder);
 
                 final String operation = expr.getOperation().getText();
                 if (operation.equals("~")) {
@@ -46,8 +46,8 @@ public class StrictBitwiseInspector extends BasePhpInspection {
 
                 final String operation = expr.getOperation().getText();
 
-                final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getLeftOperand(), holder);
-                final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getRightOperand(), holder);
+                final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getLeftOperand(), holder);
+                final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getRightOperand(), holder);
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("&") || operation.equals("|") || operation.equals("^")) {
@@ -64,8 +64,8 @@ public class StrictBitwiseInspector extends BasePhpInspection {
 
                 final String operation = expr.getOperation().getText();
 
-                final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getFirstPsiChild(), holder);
-                final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getValue(), holder);
+                final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getFirstPsiChild(), holder);
+                final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getValue(), holder);
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("&=") || operation.equals("|=") || operation.equals("^=")) {
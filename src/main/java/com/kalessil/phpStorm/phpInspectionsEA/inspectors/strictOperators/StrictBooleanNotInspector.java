@@ -31,7 +31,7 @@ public class StrictBooleanNotInspector extends BasePhpInspection {
                     return;
                 }
 
-                final PhpExpressionTypes type = new PhpExpressionTypes(expr, holder);
+                final PhpExpressionTypes type = PhpExpressionTypes.of(expr, holder);
                 if (type.isBoolean()) {
                     return;
                 }
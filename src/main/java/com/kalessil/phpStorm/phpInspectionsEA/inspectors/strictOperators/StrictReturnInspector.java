@@ -42,8 +42,8 @@ public class StrictReturnInspector extends BasePhpInspection {
                         funcTypeString = container.getFQN();
                     }
                 }
-                final PhpExpressionTypes funcType = new PhpExpressionTypes(funcTypeString, holder);
-                final PhpExpressionTypes returnType = new PhpExpressionTypes(value, holder);
+                final PhpExpressionTypes funcType = PhpExpressionTypes.ofTypes(funcTypeString, holder);
+                final PhpExpressionTypes returnType = PhpExpressionTypes.of(value, holder);
                 if (funcType.isMixed() || funcType.equals(returnType) || returnType.isTrait() || returnType.instanceOf(funcType)) {
                     return;
                 }
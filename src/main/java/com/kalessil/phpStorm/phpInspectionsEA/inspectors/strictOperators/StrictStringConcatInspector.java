@@ -31,8 +31,8 @@ public class StrictStringConcatInspector extends BasePhpInspection {
                     return;
                 }
 
-                final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getLeftOperand(), holder);
-                final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getRightOperand(), holder);
+                final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getLeftOperand(), holder);
+                final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getRightOperand(), holder);
                 if (leftT.isString() && rightT.isString()) {
                     return;
                 }
@@ -31,7 +31,7 @@ public class StrictUnaryMinusInspector extends BasePhpInspection {
                     return;
                 }
 
-                final PhpExpressionTypes type = new PhpExpressionTypes(expr, holder);
+                final PhpExpressionTypes type = PhpExpressionTypes.of(expr, holder);
                 if (type.isNumeric()) {
                     return;
                 }
@@ -3,76 +3,83 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.strictOperators.util;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.jetbrains.php.PhpIndex;
-import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.CompactTypeSet;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.Types;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 public class PhpExpressionTypes {
-    private final HashSet<String> types = new HashSet<>();
-    private boolean isMixed;
+    private final CompactTypeSet types;
+    private final boolean isMixed;
     private final PhpIndex objIndex;
-    final static private String strTypeObject = "object";
-    final static private String strTypeStatic = "static";
-    final static private String strTypeTrue = "true";
-    final static private String strTypeFalse = "false";
     final static private String strTypeNumber = "number";
     final static private String strTypeArrayAccess = "\\ArrayAccess";
 
-    public PhpExpressionTypes(final PsiElement expr, @NotNull final ProblemsHolder holder) {
-        objIndex = PhpIndex.getInstance(holder.getProject());
-
+    /**
+     * Strict operators inspections are visiting the same operators (e.g. arithmetic and concatenation checks):
+     * operands types are memoized by TypeFromPsiResolvingUtil per file, until PSI is modified.
+     */
+    @NotNull
+    public static PhpExpressionTypes of(@Nullable final PsiElement expr, @NotNull final ProblemsHolder holder) {
+        final PhpIndex objIndex        = PhpIndex.getInstance(holder.getProject());
+        final HashSet<String> resolved = new HashSet<>();
         if (expr != null) {
-            final Function objScope = ExpressionSemanticUtil.getScope(expr);
-            TypeFromPsiResolvingUtil.resolveExpressionType(expr, objScope, objIndex, types);
+            TypeFromPsiResolvingUtil.resolveExpressionType(expr, ExpressionSemanticUtil.getScope(expr), objIndex, resolved);
         }
 
-        types.remove(Types.strResolvingAbortedOnPsiLevel);
-        types.remove(Types.strClassNotResolved);
-
-        checkTypes();
+        return new PhpExpressionTypes(CompactTypeSet.of(resolved).withoutBits(CompactTypeSet.ABORTED | CompactTypeSet.NOT_RESOLVED), objIndex);
     }
 
-    public PhpExpressionTypes(@NotNull final String strTypes, @NotNull final ProblemsHolder holder) {
-        objIndex = PhpIndex.getInstance(holder.getProject());
-
+    /** @param strTypes types as declared or reported by PhpType, e.g. "int|\\Foo"; signatures are treated as mixed */
+    @NotNull
+    public static PhpExpressionTypes ofTypes(@NotNull final String strTypes, @NotNull final ProblemsHolder holder) {
+        final CompactTypeSet parsed;
         if ((strTypes.indexOf('?') >= 0) || (strTypes.indexOf('#') >= 0)) {
-            types.add(Types.strMixed);
+            parsed = CompactTypeSet.ofBits(CompactTypeSet.MIXED);
         } else {
+            final List<String> split = new ArrayList<>();
             for (final String str : strTypes.split("\\|")) {
                 if (!str.isEmpty()) {
-                    types.add(Types.getType(str));
+                    split.add(str);
                 }
             }
+            parsed = CompactTypeSet.of(split);
         }
 
-        checkTypes();
+        return new PhpExpressionTypes(parsed, PhpIndex.getInstance(holder.getProject()));
     }
 
-    private void checkTypes() {
-        if (types.contains(Types.strCallable)) {
-            types.add(Types.strString);
-        }
-        if (types.contains(strTypeStatic)) {
-            types.add(strTypeObject);
+    private PhpExpressionTypes(@NotNull final CompactTypeSet types, @NotNull final PhpIndex objIndex) {
+        this.objIndex = objIndex;
+        this.types    = checkTypes(types);
+        this.isMixed  = this.types.containsMixed();
+    }
+
+    /* true/false are normalized into bool when building the set */
+    @NotNull
+    private static CompactTypeSet checkTypes(@NotNull CompactTypeSet types) {
+        int additionalTypes = 0;
+        if (types.hasAnyOf(CompactTypeSet.CALLABLE)) {
+            additionalTypes |= CompactTypeSet.STRING;
         }
-        if (types.contains(strTypeTrue) || types.contains(strTypeFalse)) {
-            types.add(Types.strBoolean);
+        if (types.hasAnyOf(CompactTypeSet.STATIC)) {
+            additionalTypes |= CompactTypeSet.OBJECT;
         }
         if (types.contains(strTypeNumber)) {
-            types.add(Types.strInteger);
-            types.add(Types.strFloat);
+            additionalTypes |= CompactTypeSet.INTEGER | CompactTypeSet.FLOAT;
         }
         if (types.isEmpty()) {
-            types.add(Types.strMixed);
+            additionalTypes |= CompactTypeSet.MIXED;
         }
 
-        isMixed = types.contains(Types.strMixed);
+        return types.withBits(additionalTypes);
     }
 
     public boolean equals(@NotNull final PhpExpressionTypes another) {
@@ -83,26 +90,11 @@ public class PhpExpressionTypes {
             return true;
         }
 
-        final HashSet<String> copy = new HashSet<>(types);
-        copy.retainAll(another.types);
-        return !copy.isEmpty();
-
+        return types.intersects(another.types);
     }
 
     public String toString() {
-        switch (types.size()) {
-            case 0:
-                return "unknown";
-            case 1:
-                return types.iterator().next();
-            default:
-                final StringBuilder sb = new StringBuilder();
-                for (final String s : types) {
-                    sb.append(s);
-                    sb.append('|');
-                }
-                return sb.delete(sb.length() - 1, sb.length()).toString();
-        }
+        return types.isEmpty() ? "unknown" : types.toString();
     }
 
     public boolean contains(final String type) {
@@ -110,8 +102,8 @@ public class PhpExpressionTypes {
     }
 
     public boolean instanceOf(final PhpExpressionTypes base) {
-        final boolean instanceOfObject = base.types.contains(strTypeObject);
-        for (final String type1 : types) {
+        final boolean instanceOfObject = base.types.hasAnyOf(CompactTypeSet.OBJECT);
+        for (final String type1 : types.getClassNames()) {
             if (type1.charAt(0) == '\\') {
                 if (instanceOfObject) {
                     return true;
@@ -120,7 +112,7 @@ public class PhpExpressionTypes {
                 final HashSet<String> extendsList = new HashSet<>();
                 getParentsList(type1, extendsList);
 
-                for (final String type2 : base.types) {
+                for (final String type2 : base.types.getClassNames()) {
                     if (type2.charAt(0) == '\\') {
                         if (extendsList.contains(type2)) {
                             return true;
@@ -133,31 +125,31 @@ public class PhpExpressionTypes {
     }
 
     public boolean isInt() {
-        return isMixed || types.contains(Types.strInteger);
+        return isMixed || types.hasAnyOf(CompactTypeSet.INTEGER);
     }
 
     public boolean isFloat() {
-        return isMixed || types.contains(Types.strFloat);
+        return isMixed || types.hasAnyOf(CompactTypeSet.FLOAT);
     }
 
     public boolean isNumeric() {
-        return isMixed || types.contains(Types.strInteger) || types.contains(Types.strFloat);
+        return isMixed || types.hasAnyOf(CompactTypeSet.INTEGER | CompactTypeSet.FLOAT);
     }
 
     public boolean isString() {
-        return isMixed || types.contains(Types.strString);
+        return isMixed || types.hasAnyOf(CompactTypeSet.STRING);
     }
 
     public boolean isBoolean() {
-        return isMixed || types.contains(Types.strBoolean);
+        return isMixed || types.hasAnyOf(CompactTypeSet.BOOLEAN);
     }
 
     public boolean isArray() {
-        return isMixed || types.contains(Types.strArray);
+        return isMixed || types.hasAnyOf(CompactTypeSet.ARRAY);
     }
 
     public boolean isNull() {
-        return isMixed || types.contains(Types.strNull);
+        return isMixed || types.hasAnyOf(CompactTypeSet.NULL);
     }
 
     public boolean isMixed() {
@@ -169,10 +161,10 @@ public class PhpExpressionTypes {
     }
 
     public boolean isObject() {
-        if (types.contains(strTypeObject)) {
+        if (types.hasAnyOf(CompactTypeSet.OBJECT)) {
             return true;
         }
-        for (final String type : types) {
+        for (final String type : types.getClassNames()) {
             if (type.charAt(0) == '\\') {
                 return true;
             }
@@ -181,7 +173,7 @@ public class PhpExpressionTypes {
     }
 
     public boolean isArrayAccess() {
-        for (final String type : types) {
+        for (final String type : types.getClassNames()) {
             if (type.charAt(0) == '\\') {
                 final HashSet<String> extendsList = new HashSet<>();
                 getParentsList(type, extendsList);
@@ -194,7 +186,7 @@ public class PhpExpressionTypes {
     }
 
     public boolean isTrait() {
-        for (final String type : types) {
+        for (final String type : types.getClassNames()) {
             if (type.charAt(0) == '\\') {
                 for (PhpClass typeClass : objIndex.getAnyByFQN(type)) {
                     if (typeClass.isTrait()) {
@@ -0,0 +1,22 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+
+/** for inspections which are not PhpInspection (e.g. reporting in composer.json): profiled as BasePhpInspection */
+public abstract class BaseInspection extends LocalInspectionTool {
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(
+            @NotNull ProblemsHolder holder,
+            boolean isOnTheFly,
+            @NotNull LocalInspectionToolSession session
+    ) {
+        return InspectionsProfiler.instrument(this.getShortName(), super.buildVisitor(holder, isOnTheFly, session), holder);
+    }
+}
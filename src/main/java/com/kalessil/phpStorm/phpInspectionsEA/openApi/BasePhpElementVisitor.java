@@ -1,11 +1,14 @@
 package com.kalessil.phpStorm.phpInspectionsEA.openApi;
 
+import com.intellij.psi.PsiElement;
 import com.jetbrains.php.lang.psi.elements.PhpEval;
 import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
 import com.jetbrains.php.lang.psi.visitors.PhpElementVisitor;
 import org.jetbrains.annotations.NotNull;
 
 public abstract class BasePhpElementVisitor extends PhpElementVisitor {
+    /* elements without callbacks in the inspection are ending up in visitElement */
+    private boolean isFallbackReached = false;
 
     /** adds PhpEval visitor */
     @Override
@@ -22,4 +25,16 @@ public abstract class BasePhpElementVisitor extends PhpElementVisitor {
         this.visitElement(eval);
     }
 
+    @Override
+    public void visitElement(PsiElement element) {
+        isFallbackReached = true;
+        super.visitElement(element);
+    }
+
+    /** @return false if the inspection has no callback for the element, used for profiling */
+    public boolean dispatch(@NotNull PsiElement element) {
+        isFallbackReached = false;
+        element.accept(this);
+        return !isFallbackReached;
+    }
 }
@@ -1,6 +1,22 @@
 package com.kalessil.phpStorm.phpInspectionsEA.openApi;
 
+import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.inspections.PhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
 
 public abstract class BasePhpInspection extends PhpInspection {
+
+    /** wraps inspections visitors with timings and counters collection, when profiling is enabled */
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(
+            @NotNull ProblemsHolder holder,
+            boolean isOnTheFly,
+            @NotNull LocalInspectionToolSession session
+    ) {
+        return InspectionsProfiler.instrument(this.getShortName(), super.buildVisitor(holder, isOnTheFly, session), holder);
+    }
 }
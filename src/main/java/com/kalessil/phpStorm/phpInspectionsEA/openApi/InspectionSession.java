@@ -0,0 +1,68 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.config.PhpLanguageFeature;
+import com.jetbrains.php.config.PhpLanguageLevel;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FileSystemUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Project facts an inspection needs while visiting a file, taken once in buildVisitor instead of on every
+ * visited element. Inspections requiring an unsupported language feature are returning
+ * PsiElementVisitor.EMPTY_VISITOR right away.
+ *
+ * Lives as long as the visitor: settings changes are restarting inspections, so the snapshot can not get stale.
+ */
+final public class InspectionSession {
+    private final Project project;
+    private final PhpLanguageLevel languageLevel;
+    private final boolean isTestFile;
+    private PhpIndex index = null;
+
+    private InspectionSession(@NotNull ProblemsHolder holder) {
+        this.project       = holder.getProject();
+        this.languageLevel = PhpProjectConfigurationFacade.getInstance(this.project).getLanguageLevel();
+        this.isTestFile    = FileSystemUtil.isTestFile(holder.getFile());
+    }
+
+    @NotNull
+    public static InspectionSession of(@NotNull ProblemsHolder holder) {
+        return new InspectionSession(holder);
+    }
+
+    @NotNull
+    public Project getProject() {
+        return project;
+    }
+
+    @NotNull
+    public PhpLanguageLevel getLanguageLevel() {
+        return languageLevel;
+    }
+
+    public boolean hasFeature(@NotNull PhpLanguageFeature feature) {
+        return languageLevel.hasFeature(feature);
+    }
+
+    /** @return true if the language level is the given one or newer */
+    public boolean isAtLeast(@NotNull PhpLanguageLevel level) {
+        return languageLevel.compareTo(level) >= 0;
+    }
+
+    /** test files naming conventions, the same as FileSystemUtil.isTestClass checks first */
+    public boolean isTestFile() {
+        return isTestFile;
+    }
+
+    /** lazy: most of visitors never reach the index lookups */
+    @NotNull
+    public PhpIndex getIndex() {
+        if (null == index) {
+            index = PhpIndex.getInstance(project);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,66 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters collected for one inspection (identified by its short name). Updated concurrently
+ * from highlighting/batch threads, hence atomics.
+ */
+final public class InspectionStatistics {
+    private final String shortName;
+
+    private final AtomicLong callbacks = new AtomicLong();
+    private final AtomicLong wallNanos = new AtomicLong();
+    private final AtomicLong cpuNanos  = new AtomicLong();
+    private final AtomicLong problems  = new AtomicLong();
+    private final AtomicLong files     = new AtomicLong();
+
+    InspectionStatistics(@NotNull String shortName) {
+        this.shortName = shortName;
+    }
+
+    void fileVisited() {
+        files.incrementAndGet();
+    }
+
+    void elementVisited(boolean isCallback, long wallSpent, long cpuSpent, int problemsRegistered) {
+        if (isCallback) {
+            callbacks.incrementAndGet();
+        }
+        wallNanos.addAndGet(wallSpent);
+        if (cpuSpent > 0) {
+            cpuNanos.addAndGet(cpuSpent);
+        }
+        if (problemsRegistered > 0) {
+            problems.addAndGet(problemsRegistered);
+        }
+    }
+
+    @NotNull
+    public String getShortName() {
+        return shortName;
+    }
+
+    public long getCallbacks() {
+        return callbacks.get();
+    }
+
+    public long getWallNanos() {
+        return wallNanos.get();
+    }
+
+    /** @return estimation: CPU time is sampled, see ProfilingVisitor */
+    public long getCpuNanos() {
+        return cpuNanos.get();
+    }
+
+    public long getProblems() {
+        return problems.get();
+    }
+
+    public long getFiles() {
+        return files.get();
+    }
+}
@@ -0,0 +1,106 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in registry of per-inspection timings and counters. Disabled by default (can be enabled
+ * with -Dea.profiling=true or from the tool window), when disabled visitors are not wrapped at all.
+ * The tool window itself is registered only when the ea.profiling property is set (true or false).
+ */
+final public class InspectionsProfiler {
+    private static final String property    = "ea.profiling";
+    private static volatile boolean enabled = Boolean.getBoolean(property);
+
+    private static final ConcurrentHashMap<String, InspectionStatistics> statistics = new ConcurrentHashMap<>();
+    private static final ThreadMXBean threads                                       = ManagementFactory.getThreadMXBean();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return true if profiling was requested on start-up, so the tool window is shown */
+    public static boolean isAvailable() {
+        return null != System.getProperty(property);
+    }
+
+    public static void setEnabled(boolean enabled) {
+        InspectionsProfiler.enabled = enabled;
+    }
+
+    public static void reset() {
+        statistics.clear();
+    }
+
+    /** wraps the visitor when profiling is enabled, so its callbacks are timed and counted against the given inspection */
+    @NotNull
+    public static PsiElementVisitor instrument(
+            @NotNull String shortName,
+            @NotNull PsiElementVisitor visitor,
+            @NotNull ProblemsHolder holder
+    ) {
+        if (!enabled || visitor == PsiElementVisitor.EMPTY_VISITOR) {
+            return visitor;
+        }
+
+        InspectionStatistics entry = statistics.get(shortName);
+        if (null == entry) {
+            final InspectionStatistics created = new InspectionStatistics(shortName);
+            entry = statistics.putIfAbsent(shortName, created);
+            if (null == entry) {
+                entry = created;
+            }
+        }
+        entry.fileVisited();
+
+        return new ProfilingVisitor(visitor, holder, entry);
+    }
+
+    /** @return -1 if CPU time measurement is not available */
+    static long getCurrentThreadCpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    /** @return statistics sorted by wall time, most expensive first */
+    @NotNull
+    public static List<InspectionStatistics> getSnapshot() {
+        final List<InspectionStatistics> snapshot = new ArrayList<>(statistics.values());
+        Collections.sort(snapshot, new Comparator<InspectionStatistics>() {
+            @Override
+            public int compare(InspectionStatistics first, InspectionStatistics second) {
+                return Long.compare(second.getWallNanos(), first.getWallNanos());
+            }
+        });
+        return snapshot;
+    }
+
+    @NotNull
+    public static String toJson() {
+        final StringBuilder json = new StringBuilder("[\n");
+        boolean isFirst          = true;
+        for (InspectionStatistics entry : getSnapshot()) {
+            if (!isFirst) {
+                json.append(",\n");
+            }
+            isFirst = false;
+
+            json.append("  {\"inspection\": \"").append(entry.getShortName()).append('"')
+                .append(", \"files\": ").append(entry.getFiles())
+                .append(", \"callbacks\": ").append(entry.getCallbacks())
+                .append(", \"problems\": ").append(entry.getProblems())
+                .append(", \"wallNanos\": ").append(entry.getWallNanos())
+                .append(", \"cpuNanos\": ").append(entry.getCpuNanos())
+                .append('}');
+        }
+        return json.append("\n]\n").toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Not being a PhpElementVisitor, this visitor receives every element into visitElement and
+ * re-dispatches it to the wrapped visitor, which keeps all visitPhp* callbacks working as is.
+ *
+ * Only elements reaching a callback of the inspection are counted as callbacks: BasePhpElementVisitor tells
+ * it, the platform default visitor of checkFile() inspections is acting on files only, other visitors can not
+ * tell (there every element is counted). Wall time is measured for every element; CPU time is read for every
+ * n-th element of a file, starting with the first one, and extrapolated.
+ */
+final class ProfilingVisitor extends PsiElementVisitor {
+    static final int cpuSamplingRate = 32;
+
+    private final PsiElementVisitor delegate;
+    private final BasePhpElementVisitor phpDelegate;
+    private final boolean isCheckingFiles;
+    private final ProblemsHolder holder;
+    private final InspectionStatistics statistics;
+    private int elementsCount = 0;
+
+    ProfilingVisitor(@NotNull PsiElementVisitor delegate, @NotNull ProblemsHolder holder, @NotNull InspectionStatistics statistics) {
+        this.delegate        = delegate;
+        this.phpDelegate     = delegate instanceof BasePhpElementVisitor ? (BasePhpElementVisitor) delegate : null;
+        /* the platform default visitor, calling checkFile(), is an anonymous class of LocalInspectionTool */
+        this.isCheckingFiles = LocalInspectionTool.class == delegate.getClass().getEnclosingClass();
+        this.holder          = holder;
+        this.statistics      = statistics;
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        final boolean isSampled  = 0 == elementsCount++ % cpuSamplingRate;
+        final int problemsBefore = holder.getResultCount();
+        final long cpuBefore     = isSampled ? InspectionsProfiler.getCurrentThreadCpuTime() : -1;
+        final long wallBefore    = System.nanoTime();
+        boolean isCallback       = true;
+        try {
+            if (null == phpDelegate) {
+                element.accept(delegate);
+                isCallback = !isCheckingFiles || element instanceof PsiFile;
+            } else {
+                isCallback = phpDelegate.dispatch(element);
+            }
+        } finally {
+            final long wallSpent = System.nanoTime() - wallBefore;
+            final long cpuSpent  = cpuBefore < 0 ? 0 : (InspectionsProfiler.getCurrentThreadCpuTime() - cpuBefore) * cpuSamplingRate;
+            statistics.elementVisited(isCallback, wallSpent, cpuSpent, holder.getResultCount() - problemsBefore);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable compact alternative to HashSet<String> of types: core and pseudo types (incl. resolving
+ * sentinels from {@link Types}) are stored as bits, classes (and other named types) as a sorted
+ * array of names. Checks (contains, intersects, mixed) are allocation-free; union and
+ * intersection are returning existing instances when the result is not changing.
+ *
+ * Names are not interned into a global table: it would grow with every class name of every opened
+ * project, while sets are living no longer than inspection results.
+ */
+final public class CompactTypeSet {
+    final static public int ARRAY         = 1;
+    final static public int STRING        = 1 << 1;
+    final static public int BOOLEAN       = 1 << 2;
+    final static public int INTEGER       = 1 << 3;
+    final static public int FLOAT         = 1 << 4;
+    final static public int NULL          = 1 << 5;
+    final static public int VOID          = 1 << 6;
+    final static public int MIXED         = 1 << 7;
+    final static public int CALLABLE      = 1 << 8;
+    final static public int RESOURCE      = 1 << 9;
+    final static public int STATIC        = 1 << 10;
+    final static public int SELF          = 1 << 11;
+    final static public int OBJECT        = 1 << 12;
+    final static public int EMPTY_SET     = 1 << 13;
+    final static public int ABORTED       = 1 << 14;
+    final static public int NOT_RESOLVED  = 1 << 15;
+
+    /* keep in sync with bits above: index of a name is the bit position */
+    final static private String[] bitNames = {
+        Types.strArray, Types.strString, Types.strBoolean, Types.strInteger, Types.strFloat, Types.strNull,
+        Types.strVoid, Types.strMixed, Types.strCallable, Types.strResource, Types.strStatic, Types.strSelf,
+        Types.strObject, Types.strEmptySet, Types.strResolvingAbortedOnPsiLevel, Types.strClassNotResolved
+    };
+
+    final static private String[] noNames = new String[0];
+    final static public CompactTypeSet EMPTY = new CompactTypeSet(0, noNames);
+
+    private final int bits;
+    private final String[] names;
+
+    private CompactTypeSet(int bits, @NotNull String[] names) {
+        this.bits  = bits;
+        this.names = names;
+    }
+
+    @NotNull
+    public static CompactTypeSet of(@NotNull Collection<String> types) {
+        if (types.isEmpty()) {
+            return EMPTY;
+        }
+
+        int bits       = 0;
+        String[] names = new String[types.size()];
+        int namesCount = 0;
+        for (String type : types) {
+            final String normalized = Types.getType(type);
+            final int bit           = getBit(normalized);
+            if (0 != bit) {
+                bits |= bit;
+            } else {
+                names[namesCount++] = normalized;
+            }
+        }
+
+        return create(bits, names, namesCount);
+    }
+
+    @NotNull
+    public static CompactTypeSet of(@NotNull String type) {
+        final String normalized = Types.getType(type);
+        final int bit           = getBit(normalized);
+        return 0 == bit ? new CompactTypeSet(0, new String[]{normalized}) : new CompactTypeSet(bit, noNames);
+    }
+
+    @NotNull
+    public static CompactTypeSet ofBits(int bits) {
+        return 0 == bits ? EMPTY : new CompactTypeSet(bits, noNames);
+    }
+
+    @NotNull
+    private static CompactTypeSet create(int bits, @NotNull String[] names, int namesCount) {
+        if (0 == namesCount) {
+            return ofBits(bits);
+        }
+
+        Arrays.sort(names, 0, namesCount);
+        int uniqueCount = 1;
+        for (int index = 1; index < namesCount; ++index) {
+            if (!names[index].equals(names[uniqueCount - 1])) {
+                names[uniqueCount++] = names[index];
+            }
+        }
+
+        return new CompactTypeSet(bits, uniqueCount == names.length ? names : Arrays.copyOf(names, uniqueCount));
+    }
+
+    private static int getBit(@NotNull String normalizedType) {
+        for (int index = 0; index < bitNames.length; ++index) {
+            if (bitNames[index].equals(normalizedType)) {
+                return 1 << index;
+            }
+        }
+        return 0;
+    }
+
+    public boolean isEmpty() {
+        return 0 == bits && 0 == names.length;
+    }
+
+    public boolean containsMixed() {
+        return 0 != (bits & MIXED);
+    }
+
+    public boolean hasAnyOf(int bitsToCheck) {
+        return 0 != (bits & bitsToCheck);
+    }
+
+    public boolean hasClasses() {
+        return names.length > 0;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public int size() {
+        return Integer.bitCount(bits) + names.length;
+    }
+
+    public boolean contains(@Nullable String type) {
+        if (null == type) {
+            return false;
+        }
+
+        final String normalized = Types.getType(type);
+        final int bit           = getBit(normalized);
+        if (0 != bit) {
+            return 0 != (bits & bit);
+        }
+
+        return Arrays.binarySearch(names, normalized) >= 0;
+    }
+
+    /** allocation-free check if both sets are sharing at least one type */
+    public boolean intersects(@NotNull CompactTypeSet other) {
+        if (0 != (bits & other.bits)) {
+            return true;
+        }
+
+        int left  = 0;
+        int right = 0;
+        while (left < names.length && right < other.names.length) {
+            final int comparison = names[left].compareTo(other.names[right]);
+            if (0 == comparison) {
+                return true;
+            }
+            if (comparison < 0) {
+                ++left;
+            } else {
+                ++right;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    public CompactTypeSet union(@NotNull CompactTypeSet other) {
+        if (other.isEmpty() || this == other) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+
+        final int mergedBits  = bits | other.bits;
+        final String[] merged = new String[names.length + other.names.length];
+        int count             = 0;
+        int left              = 0;
+        int right             = 0;
+        while (left < names.length || right < other.names.length) {
+            final int comparison = left == names.length ? 1 : (right == other.names.length ? -1 : names[left].compareTo(other.names[right]));
+            if (comparison < 0) {
+                merged[count++] = names[left++];
+            } else if (comparison > 0) {
+                merged[count++] = other.names[right++];
+            } else {
+                merged[count++] = names[left++];
+                ++right;
+            }
+        }
+
+        if (mergedBits == bits && count == names.length) {
+            return this;
+        }
+        if (mergedBits == other.bits && count == other.names.length) {
+            return other;
+        }
+        return new CompactTypeSet(mergedBits, count == merged.length ? merged : Arrays.copyOf(merged, count));
+    }
+
+    @NotNull
+    public CompactTypeSet intersection(@NotNull CompactTypeSet other) {
+        if (this == other) {
+            return this;
+        }
+
+        final int commonBits  = bits & other.bits;
+        final String[] common = new String[Math.min(names.length, other.names.length)];
+        int count             = 0;
+        int left              = 0;
+        int right             = 0;
+        while (left < names.length && right < other.names.length) {
+            final int comparison = names[left].compareTo(other.names[right]);
+            if (0 == comparison) {
+                common[count++] = names[left];
+                ++left;
+                ++right;
+            } else if (comparison < 0) {
+                ++left;
+            } else {
+                ++right;
+            }
+        }
+
+        if (commonBits == bits && count == names.length) {
+            return this;
+        }
+        if (commonBits == other.bits && count == other.names.length) {
+            return other;
+        }
+        return 0 == count ? ofBits(commonBits) : new CompactTypeSet(commonBits, Arrays.copyOf(common, count));
+    }
+
+    @NotNull
+    public CompactTypeSet withBits(int bitsToAdd) {
+        return (bits | bitsToAdd) == bits ? this : new CompactTypeSet(bits | bitsToAdd, names);
+    }
+
+    @NotNull
+    public CompactTypeSet withoutBits(int bitsToRemove) {
+        return 0 == (bits & bitsToRemove) ? this : new CompactTypeSet(bits & ~bitsToRemove, names);
+    }
+
+    /** @return class (and other named types) names, sorted */
+    @NotNull
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /** @return all types as strings: core types first, then classes */
+    @NotNull
+    public List<String> toStrings() {
+        final List<String> result = new ArrayList<>(size());
+        for (int index = 0; index < bitNames.length; ++index) {
+            if (0 != (bits & (1 << index))) {
+                result.add(bitNames[index]);
+            }
+        }
+        result.addAll(getClassNames());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CompactTypeSet)) {
+            return false;
+        }
+
+        final CompactTypeSet otherSet = (CompactTypeSet) other;
+        return bits == otherSet.bits && Arrays.equals(names, otherSet.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * bits + Arrays.hashCode(names);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (String name : toStrings()) {
+            if (builder.length() > 0) {
+                builder.append('|');
+            }
+            builder.append(name);
+        }
+        return builder.toString();
+    }
+}
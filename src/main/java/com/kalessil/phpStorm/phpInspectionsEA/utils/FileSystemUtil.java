@@ -1,13 +1,13 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.psi.PsiFile;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import org.jetbrains.annotations.NotNull;
 
 final public class FileSystemUtil {
     public static boolean isTestClass(@NotNull PhpClass clazz) {
         /* first criteria - file name */
-        final String fileName = clazz.getContainingFile().getName();
-        if (fileName.endsWith("Test.php") || fileName.endsWith("Spec.php") || fileName.endsWith(".phpt")) {
+        if (isTestFile(clazz.getContainingFile())) {
             return true;
         }
 
@@ -15,4 +15,9 @@ final public class FileSystemUtil {
         final String classFqn = clazz.getFQN();
         return classFqn.endsWith("Test") || classFqn.contains("\\Tests\\") || classFqn.contains("\\Test\\");
     }
+
+    public static boolean isTestFile(@NotNull PsiFile file) {
+        final String fileName = file.getName();
+        return fileName.endsWith("Test.php") || fileName.endsWith("Spec.php") || fileName.endsWith(".phpt");
+    }
 }
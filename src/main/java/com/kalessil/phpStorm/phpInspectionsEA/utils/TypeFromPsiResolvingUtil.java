@@ -1,20 +1,46 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.tree.IElementType;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.resolve.types.PhpType;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 final public class TypeFromPsiResolvingUtil {
+    private static final Key<CachedValue<Map<ResolvingKey, Set<String>>>> resolvedTypesKey
+            = Key.create("EA.TypeFromPsiResolvingUtil.resolvedTypes");
+
+    /* resolved types per expression and scope; dropped on any PSI change, as types are depending on other files */
+    @NotNull
+    private static Map<ResolvingKey, Set<String>> getResolvedTypesCache(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, resolvedTypesKey, new CachedValueProvider<Map<ResolvingKey, Set<String>>>() {
+            @Nullable
+            @Override
+            public Result<Map<ResolvingKey, Set<String>>> compute() {
+                final Map<ResolvingKey, Set<String>> cache = new ConcurrentHashMap<>();
+                return Result.create(cache, PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+    }
 
     /** adds type, handling | and #, invoking signatures resolving */
     private static void storeAsTypeWithSignaturesImport(String strTypeToImport, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
@@ -37,10 +63,30 @@ final public class TypeFromPsiResolvingUtil {
         objTypesSet.add(Types.getType(strTypeToImport));
     }
 
-    /** high-level resolving logic */
+    /** high-level resolving logic, memoized per file until PSI is modified */
     public static void resolveExpressionType(PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
         objSubjectExpression = ExpressionSemanticUtil.getExpressionTroughParenthesis(objSubjectExpression);
+        final PsiFile file   = null == objSubjectExpression ? null : objSubjectExpression.getContainingFile();
+        if (null == file || !objSubjectExpression.isPhysical()) {
+            resolveExpressionTypeUncached(objSubjectExpression, objScope, objIndex, objTypesSet);
+            return;
+        }
+
+        final Map<ResolvingKey, Set<String>> cache = getResolvedTypesCache(file);
+        final ResolvingKey key                     = new ResolvingKey(objSubjectExpression, objScope);
+        Set<String> resolved                       = cache.get(key);
+        if (null == resolved) {
+            final HashSet<String> types = new HashSet<>();
+            resolveExpressionTypeUncached(objSubjectExpression, objScope, objIndex, types);
 
+            resolved = Collections.unmodifiableSet(types);
+            cache.put(key, resolved);
+        }
+
+        objTypesSet.addAll(resolved);
+    }
+
+    private static void resolveExpressionTypeUncached(PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
         if (objSubjectExpression instanceof ArrayCreationExpression) {
             objTypesSet.add(Types.strArray);
 
@@ -285,4 +331,33 @@ final public class TypeFromPsiResolvingUtil {
             resolveExpressionType(objSubjectExpression.getFalseVariant(), objScope, objIndex, objTypesSet);
         }
     }
+
+    /* scope is the part of a key: parameters and static are resolved relatively to it */
+    private static final class ResolvingKey {
+        private final PsiElement expression;
+        private final Function scope;
+
+        ResolvingKey(@NotNull PsiElement expression, @Nullable Function scope) {
+            this.expression = expression;
+            this.scope      = scope;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ResolvingKey)) {
+                return false;
+            }
+
+            final ResolvingKey otherKey = (ResolvingKey) other;
+            return expression == otherKey.expression && scope == otherKey.scope;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(expression) + System.identityHashCode(scope);
+        }
+    }
 }
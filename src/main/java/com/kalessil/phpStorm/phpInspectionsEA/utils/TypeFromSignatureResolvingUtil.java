@@ -1,15 +1,55 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 final public class TypeFromSignatureResolvingUtil {
+    private static final int resolvedSignaturesCacheSize = 4096;
+
+    private static final Key<CachedValue<Map<String, Set<String>>>> resolvedSignaturesKey
+            = Key.create("EA.TypeFromSignatureResolvingUtil.resolvedSignatures");
+
+    /* project-wide LRU of scope-independent signatures; dropped on any PSI change (incl. indexed files) */
+    @NotNull
+    private static Map<String, Set<String>> getResolvedSignaturesCache(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, resolvedSignaturesKey, new CachedValueProvider<Map<String, Set<String>>>() {
+            @Nullable
+            @Override
+            public Result<Map<String, Set<String>>> compute() {
+                final Map<String, Set<String>> cache = Collections.synchronizedMap(
+                    new LinkedHashMap<String, Set<String>>(256, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                            return size() > resolvedSignaturesCacheSize;
+                        }
+                    }
+                );
+                return Result.create(cache, PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        }, false);
+    }
+
+    /* state of one top-level resolving: signatures on the current resolving path and if the result depends on the scope */
+    private static final class ResolvingContext {
+        final HashSet<String> path = new HashSet<>();
+        boolean isScopeDependent   = false;
+    }
 
     static public void resolveSignature (String strSignatureToResolve, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> extractedTypesSet) {
         /* do nothing with empty signatures */
@@ -17,10 +57,42 @@ final public class TypeFromSignatureResolvingUtil {
             return;
         }
 
+        /* without scope there is no project reference: resolve without caching */
+        final Map<String, Set<String>> cache = null == objScope ? null : getResolvedSignaturesCache(objScope.getProject());
+        if (null != cache) {
+            final Set<String> cachedTypes = cache.get(strSignatureToResolve);
+            if (null != cachedTypes) {
+                extractedTypesSet.addAll(cachedTypes);
+                return;
+            }
+        }
+
+        final ResolvingContext context       = new ResolvingContext();
+        final HashSet<String> resolvedTypes = new HashSet<>();
+        resolveSignature(strSignatureToResolve, objScope, objIndex, resolvedTypes, context);
+        if (null != cache && !context.isScopeDependent) {
+            cache.put(strSignatureToResolve, Collections.unmodifiableSet(resolvedTypes));
+        }
+
+        extractedTypesSet.addAll(resolvedTypes);
+    }
+
+    static private void resolveSignature (
+            String strSignatureToResolve,
+            @Nullable Function objScope,
+            PhpIndex objIndex,
+            HashSet<String> extractedTypesSet,
+            @NotNull ResolvingContext context
+    ) {
+        /* do nothing with empty signatures */
+        if (StringUtil.isEmpty(strSignatureToResolve)) {
+            return;
+        }
+
         /* re-dispatch poly-variants to single-variant processing */
         if (strSignatureToResolve.contains("|")) {
             for (String strOneVariantFromSplitToResolve : strSignatureToResolve.split("\\|")) {
-                resolveSignature(strOneVariantFromSplitToResolve, objScope, objIndex, extractedTypesSet);
+                resolveSignature(strOneVariantFromSplitToResolve, objScope, objIndex, extractedTypesSet, context);
             }
             return;
         }
@@ -31,7 +103,24 @@ final public class TypeFromSignatureResolvingUtil {
             return;
         }
 
+        /* cycles detection: signatures might be referencing (also indirectly) signatures being resolved */
+        if (!context.path.add(strSignatureToResolve)) {
+            return;
+        }
+        try {
+            resolveSingleVariant(strSignatureToResolve, objScope, objIndex, extractedTypesSet, context);
+        } finally {
+            context.path.remove(strSignatureToResolve);
+        }
+    }
 
+    static private void resolveSingleVariant(
+            String strSignatureToResolve,
+            @Nullable Function objScope,
+            PhpIndex objIndex,
+            HashSet<String> extractedTypesSet,
+            @NotNull ResolvingContext context
+    ) {
         char charTypeOfSignature = ((strSignatureToResolve.length()) >= 2 ? strSignatureToResolve.charAt(1) : '?');
         if (
             charTypeOfSignature == 'D' || /* pre-defined constants type is not resolved */
@@ -49,11 +138,10 @@ final public class TypeFromSignatureResolvingUtil {
             Collection<Function> objFunctionsCollection = objIndex.getFunctionsByName(strFunctionName);
             for (Function objFunction : objFunctionsCollection) {
                 /*
-                 * infinity loop was discovered for drupal 7 (drupal_find_base_themes)
-                 * IDE for some reason resolved type including self-reference of this function
+                 * infinity loop was discovered for drupal 7 (drupal_find_base_themes): IDE for some reason resolved
+                 * type including self-reference of this function; signatures being resolved are skipped for such cases.
                  */
-                String strTypeWithoutLoop = objFunction.getType().toString().replace("#F" + strFunctionName, "");
-                resolveSignature(strTypeWithoutLoop, objScope, objIndex, extractedTypesSet);
+                resolveSignature(objFunction.getType().toString(), objScope, objIndex, extractedTypesSet, context);
             }
             objFunctionsCollection.clear();
 
@@ -64,9 +152,10 @@ final public class TypeFromSignatureResolvingUtil {
         if (charTypeOfSignature == 'V'){
             String strParameterOrVariableName = strSignatureToResolve.replace("#V", "");
             if (null != objScope) {
+                context.isScopeDependent = true;
                 for (Parameter objParam : objScope.getParameters()) {
                     if (objParam.getName().equals(strParameterOrVariableName)) {
-                        resolveSignature(objParam.getType().toString(), objScope, objIndex, extractedTypesSet);
+                        resolveSignature(objParam.getType().toString(), objScope, objIndex, extractedTypesSet, context);
                         return;
                     }
                 }
@@ -81,6 +170,7 @@ final public class TypeFromSignatureResolvingUtil {
         if (charTypeOfSignature == 'C') {
             String typeName = strSignatureToResolve.replace("#C", "");
             if (objScope instanceof Method && typeName.equals("static")) {
+                context.isScopeDependent = true;
                 final PhpClass container = ((Method) objScope).getContainingClass();
                 if (container != null) {
                     typeName = container.getFQN();
@@ -126,8 +216,10 @@ final public class TypeFromSignatureResolvingUtil {
                     continue;
                 }
 
-                /* resolve pair */
+                /* resolve pair; slots are often referencing themselves (recursion) or signatures being resolved */
                 typesOfSlotSet = resolveSlot(strClassResolved, strSlot, objIndex, charTypeOfSignature);
+                typesOfSlotSet.remove("#" + charTypeOfSignature + "#C" + strClassResolved + "." + strSlot);
+                typesOfSlotSet.removeAll(context.path);
 
 
                 /*
@@ -174,7 +266,7 @@ final public class TypeFromSignatureResolvingUtil {
             if (null != typesOfSlotSet && typesOfSlotSet.size() > 0) {
                 /* store resolved types by re-running resolving */
                 for (String strType : typesOfSlotSet) {
-                    resolveSignature(strType, objScope, objIndex, extractedTypesSet);
+                    resolveSignature(strType, objScope, objIndex, extractedTypesSet, context);
                 }
                 typesOfSlotSet.clear();
             }
@@ -193,7 +285,6 @@ final public class TypeFromSignatureResolvingUtil {
 
         /* iterate methods and properties to match slot name */
         boolean isSlotFound;
-        String strTypeExtracted;
 
         char charSlotFirst = strSlot.charAt(0);
         for (PhpClass objClass : objClasses) {
@@ -205,12 +296,7 @@ final public class TypeFromSignatureResolvingUtil {
 
                     /* match first chars and then complete names */
                     if (!StringUtil.isEmpty(strMethodName) && strMethodName.charAt(0) == charSlotFirst && strMethodName.equals(strSlot)) {
-                         /* exclude recursive definition in own signature */
-                        strTypeExtracted = objMethod
-                                .getType().toString()
-                                .replace("#" + type + "#C" + strClass + "." + strSlot, "");
-
-                        Collections.addAll(resolvedTypesSet, strTypeExtracted.split("\\|"));
+                        Collections.addAll(resolvedTypesSet, objMethod.getType().toString().split("\\|"));
 
                         isSlotFound = true;
                         break;
@@ -227,12 +313,7 @@ final public class TypeFromSignatureResolvingUtil {
 
                     /* match first chars and then complete names */
                     if (!StringUtil.isEmpty(strFieldName) && strFieldName.charAt(0) == charSlotFirst && strFieldName.equals(strSlot)) {
-                        /* exclude recursive definition in own signature */
-                        strTypeExtracted = objField
-                                .getType().toString()
-                                .replace("#" + type + "#C" + strClass + "." + strSlot, "");
-
-                        Collections.addAll(resolvedTypesSet, strTypeExtracted.split("\\|"));
+                        Collections.addAll(resolvedTypesSet, objField.getType().toString().split("\\|"));
                         break;
                     }
                 }
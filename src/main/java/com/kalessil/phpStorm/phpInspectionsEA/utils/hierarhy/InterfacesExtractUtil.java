@@ -1,29 +1,66 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy;
 
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.security.InvalidParameterException;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 final public class InterfacesExtractUtil {
+    private static final Key<CachedValue<Set<PhpClass>>> withClassesKey    = Key.create("EA.InterfacesExtractUtil.withClasses");
+    private static final Key<CachedValue<Set<PhpClass>>> interfacesOnlyKey = Key.create("EA.InterfacesExtractUtil.interfacesOnly");
+
+    /**
+     * Inheritance closure of the class (incl. the class itself), cached on the class: hierarchy changes are
+     * out of code blocks modifications, so the closure survives editing of methods bodies.
+     *
+     * @return read-only set
+     */
+    @NotNull
+    public static Set<PhpClass> getCrawlCompleteInheritanceTree(@NotNull final PhpClass objClass, final boolean withClasses) {
+        if (!objClass.isPhysical()) {
+            return crawl(objClass, withClasses);
+        }
+
+        final Key<CachedValue<Set<PhpClass>>> key = withClasses ? withClassesKey : interfacesOnlyKey;
+        return CachedValuesManager.getCachedValue(objClass, key, new CachedValueProvider<Set<PhpClass>>() {
+            @Nullable
+            @Override
+            public Result<Set<PhpClass>> compute() {
+                return Result.create(crawl(objClass, withClasses), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+            }
+        });
+    }
+
     @NotNull
-    public static HashSet<PhpClass> getCrawlCompleteInheritanceTree(@NotNull PhpClass objClass, boolean withClasses) {
-        HashSet<PhpClass> processedItems = new HashSet<>();
+    private static Set<PhpClass> crawl(@NotNull PhpClass objClass, boolean withClasses) {
+        final HashSet<PhpClass> processedItems = new HashSet<>();
 
         if (objClass.isInterface()) {
             processInterface(objClass, processedItems, withClasses);
         } else {
-            processClass(objClass, processedItems, withClasses);
+            processClass(objClass, processedItems, new HashSet<PhpClass>(), withClasses);
         }
 
-        return processedItems;
+        return Collections.unmodifiableSet(processedItems);
     }
 
-    private static void processClass(PhpClass objClass, HashSet<PhpClass> processedItems, boolean withClasses) {
+    private static void processClass(PhpClass objClass, HashSet<PhpClass> processedItems, HashSet<PhpClass> processedClasses, boolean withClasses) {
         if (objClass.isInterface()) {
             throw new InvalidParameterException("Interface shall not be provided");
         }
+        /* in source code class CAN extend itself */
+        if (!processedClasses.add(objClass)) {
+            return;
+        }
 
         if (withClasses) {
             processedItems.add(objClass);
@@ -36,7 +73,7 @@ final public class InterfacesExtractUtil {
 
         /* handle parent class */
         if (null != objClass.getSuperClass()) {
-            processClass(objClass.getSuperClass(), processedItems, withClasses);
+            processClass(objClass.getSuperClass(), processedItems, processedClasses, withClasses);
         }
     }
 
@@ -0,0 +1,136 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocReturnTag;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Structured doc-block of a method: tags, resolved @throws classes, @inheritdoc flag and methods the
+ * documentation is inherited from. Parsed once and cached on the method until PSI is modified
+ * (resolved classes and parents are living in other files).
+ */
+final public class MethodDocBlock {
+    private static final Key<CachedValue<MethodDocBlock>> docBlockKey = Key.create("EA.MethodDocBlock");
+    private static final MethodDocBlock noDocBlock                    = new MethodDocBlock();
+
+    private final boolean isDefined;
+    private final boolean hasInheritDoc;
+    private final List<PhpDocTag> tags;
+    private final Set<PhpClass> throwsClasses;
+    private final List<Method> inheritedFrom;
+
+    @NotNull
+    public static MethodDocBlock of(@NotNull final Method method) {
+        if (!method.isPhysical()) {
+            return parse(method);
+        }
+
+        return CachedValuesManager.getCachedValue(method, docBlockKey, new CachedValueProvider<MethodDocBlock>() {
+            @Nullable
+            @Override
+            public Result<MethodDocBlock> compute() {
+                return Result.create(parse(method), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+    }
+
+    @NotNull
+    private static MethodDocBlock parse(@NotNull Method method) {
+        final PhpDocComment doc = method.getDocComment();
+        if (null == doc) {
+            return noDocBlock;
+        }
+
+        /* one pass over tags: @throws can be combined with @throws, types are written as single tags or pipe concatenated */
+        boolean hasInheritDoc             = false;
+        final List<PhpDocTag> tags        = new ArrayList<>();
+        final Set<PhpClass> throwsClasses = new HashSet<>();
+        for (PhpDocTag tag : PsiTreeUtil.findChildrenOfType(doc, PhpDocTag.class)) {
+            tags.add(tag);
+
+            final String tagName = tag.getName();
+            if (tag instanceof PhpDocReturnTag && tagName.equals("@throws")) {
+                for (PhpDocType type : PsiTreeUtil.findChildrenOfType(tag, PhpDocType.class)) {
+                    final PsiElement typeResolved = type.resolve();
+                    if (typeResolved instanceof PhpClass) {
+                        throwsClasses.add((PhpClass) typeResolved);
+                    }
+                }
+            } else if (tagName.equalsIgnoreCase("@inheritdoc")) {
+                hasInheritDoc = true;
+            }
+        }
+
+        final List<Method> inheritedFrom = new ArrayList<>();
+        final PhpClass clazz             = method.getContainingClass();
+        final String methodName          = method.getName();
+        if (hasInheritDoc && null != clazz && !StringUtil.isEmpty(methodName)) {
+            for (PhpClass parent : clazz.getSupers()) {
+                final Method parentMethod = parent.findMethodByName(methodName);
+                /* in source code class CAN extend itself */
+                if (null != parentMethod && method != parentMethod) {
+                    inheritedFrom.add(parentMethod);
+                }
+            }
+        }
+
+        return new MethodDocBlock(hasInheritDoc, tags, throwsClasses, inheritedFrom);
+    }
+
+    private MethodDocBlock() {
+        this.isDefined     = false;
+        this.hasInheritDoc = false;
+        this.tags          = Collections.emptyList();
+        this.throwsClasses = Collections.emptySet();
+        this.inheritedFrom = Collections.emptyList();
+    }
+
+    private MethodDocBlock(boolean hasInheritDoc, @NotNull List<PhpDocTag> tags, @NotNull Set<PhpClass> throwsClasses, @NotNull List<Method> inheritedFrom) {
+        this.isDefined     = true;
+        this.hasInheritDoc = hasInheritDoc;
+        this.tags          = Collections.unmodifiableList(tags);
+        this.throwsClasses = Collections.unmodifiableSet(throwsClasses);
+        this.inheritedFrom = Collections.unmodifiableList(inheritedFrom);
+    }
+
+    public boolean isDefined() {
+        return isDefined;
+    }
+
+    public boolean hasInheritDoc() {
+        return hasInheritDoc;
+    }
+
+    /** @return all tags in order of definition, read-only */
+    @NotNull
+    public List<PhpDocTag> getTags() {
+        return tags;
+    }
+
+    /** @return classes announced with own @throws tags (inherited docs are not included), read-only */
+    @NotNull
+    public Set<PhpClass> getThrowsClasses() {
+        return throwsClasses;
+    }
+
+    /** @return same-named methods of parent classes and interfaces, if documentation is inherited; read-only */
+    @NotNull
+    public List<Method> getInheritedFrom() {
+        return inheritedFrom;
+    }
+}
@@ -1,221 +1,39 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions;
 
-import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPlatformResolverUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.ThrowsResolveUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * Collects exceptions which can leave the scope, mapped to expressions raising them. The scope is walked
+ * once: every throw site is attributed to its innermost enclosing try (where catches are applied and
+ * escaping exceptions are propagated outwards) or to the scope itself.
+ */
 final public class CollectPossibleThrowsUtil {
-    static public HashMap<PhpClass, HashSet<PsiElement>> collectNestedAndWorkflowExceptions(PsiElement scope, HashSet<PsiElement> processed, @NotNull final ProblemsHolder holder) {
+    static public HashMap<PhpClass, HashSet<PsiElement>> collectNestedAndWorkflowExceptions(PsiElement scope, HashSet<PsiElement> processed) {
         final HashMap<PhpClass, HashSet<PsiElement>> exceptions = new HashMap<>();
-
-        /* recursively invoke and analyse nested try-catches checks */
-        final Collection<Try> tryStatements = PsiTreeUtil.findChildrenOfType(scope, Try.class);
-        if (tryStatements.size() > 0) {
-            for (Try nestedTry : tryStatements) {
-                if (!processed.contains(nestedTry)) {
-                    /* process nested workflow */
-                    final HashMap<PhpClass, HashSet<PsiElement>> nestedTryExceptions = collectNestedAndWorkflowExceptions(nestedTry, processed, holder);
-//holder.registerProblem(nestedTry.getFirstChild(), "Nested: " + nestedTryExceptions.toString(), ProblemHighlightType.WEAK_WARNING);
-                    if (nestedTryExceptions.size() > 0) {
-                        for (Map.Entry<PhpClass, HashSet<PsiElement>> nestedTryExceptionsPair : nestedTryExceptions.entrySet()) {
-                            /* extract pairs Exception class => source expressions */
-                            final PhpClass key                              = nestedTryExceptionsPair.getKey();
-                            final HashSet<PsiElement> expressionsToDispatch = nestedTryExceptionsPair.getValue();
-
-                            if (exceptions.containsKey(key)) {
-                                /* merge entries and release refs */
-                                exceptions.get(key).addAll(expressionsToDispatch);
-                                expressionsToDispatch.clear();
-                            } else {
-                                /* store as it is */
-                                exceptions.put(key, expressionsToDispatch);
-                            }
-                        }
-                        nestedTryExceptions.clear();
-                    }
-                }
-            }
-            tryStatements.clear();
-        }
-
-        /* process try-catch */
-        if (scope instanceof Try) {
-            /* extract workflow exceptions */
-            HashMap<PhpClass, HashSet<PsiElement>> tryWorkflowExceptions = collectTryWorkflowExceptions((Try) scope, processed, holder);
-//holder.registerProblem(scope.getFirstChild(), "Throws: " + tryWorkflowExceptions.toString(), ProblemHighlightType.WEAK_WARNING);
-
-            /* mark processed and exit, as try-catch handled in special way */
-            processed.add(scope);
-            exceptions.clear();
-            return tryWorkflowExceptions;
-        }
-
-
-        /* process new statements: throws, constructors */
-        Collection<NewExpression> newExpressions = PsiTreeUtil.findChildrenOfType(scope, NewExpression.class);
-        if (newExpressions.size() > 0) {
-            for (NewExpression newExpression : newExpressions) {
-                /* skip processed */
-                if (processed.contains(newExpression)) {
-                    continue;
-                }
-//holder.registerProblem(newExpression, "New expression wil be analyzed", ProblemHighlightType.WEAK_WARNING);
-
-                /* skip what can not be resolved */
-                ClassReference newClassRef = newExpression.getClassReference();
-                if (null == newClassRef) {
-                    processed.add(newExpression);
-                    continue;
-                }
-
-                PhpClass newClass;
-                if (newClassRef.resolve() instanceof PhpClass) {
-                    newClass = (PhpClass) newClassRef.resolve();
-                } else if (newClassRef.resolve() instanceof Method) {
-                    newClass = ((Method) newClassRef.resolve()).getContainingClass();
-                } else {
-                    processed.add(newExpression);
-                    continue;
-                }
-//holder.registerProblem(newExpression, "Instantiated class resolved", ProblemHighlightType.WEAK_WARNING);
-
-                /* throws processed */
-                if (newExpression.getParent() instanceof PhpThrow) {
-                    /* put an expression, create container if necessary */
-                    if (!exceptions.containsKey(newClass)) {
-                        exceptions.put(newClass, new HashSet<>());
-                    }
-                    exceptions.get(newClass).add(newExpression.getParent());
-
-                    processed.add(newExpression);
-                    continue;
-                }
-
-                /* process constructors invocation */
-                Method constructor = newClass.getConstructor();
-                if (null != constructor) {
-//holder.registerProblem(newExpression, "Constructor found", ProblemHighlightType.WEAK_WARNING);
-                    /* lookup for annotated exceptions */
-                    final HashSet<PhpClass> constructorExceptions = new HashSet<>();
-                    ThrowsResolveUtil.resolveThrownExceptions(constructor, constructorExceptions);
-
-                    /* link expression with each possible exception */
-                    if (constructorExceptions.size() > 0) {
-                        for (PhpClass constructorException : constructorExceptions) {
-                            /* put an expression, create container if necessary */
-                            if (!exceptions.containsKey(constructorException)) {
-                                exceptions.put(constructorException, new HashSet<>());
-                            }
-                            exceptions.get(constructorException).add(newExpression.getParent());
-                        }
-
-                        constructorExceptions.clear();
-                    }
-                }
-                processed.add(newExpression);
-            }
-            newExpressions.clear();
-        }
-
-        /* process throws - some of them might not use new-expression */
-        PhpIndex objIndex = PhpIndex.getInstance(holder.getProject());
-        Collection<PhpThrow> throwExpressions = PsiTreeUtil.findChildrenOfType(scope, PhpThrow.class);
-        if (throwExpressions.size() > 0) {
-            for (PhpThrow throwExpression : throwExpressions) {
-                /* skip processed */
-                if (processed.contains(throwExpression)) {
-                    continue;
-                }
-
-                /* resolve argument */
-                PsiElement argument = throwExpression.getArgument();
-                if (null != argument) {
-                    /* resolve argument types */
-                    final HashSet<String> types = new HashSet<>();
-                    TypeFromPlatformResolverUtil.resolveExpressionType(argument, types);
-
-                    if (types.size() > 0) {
-                        /* remove extra definition of \Exception unexpectedly added by PhpStorm */
-                        final boolean dropExtraDefinitions = argument instanceof Variable && types.size() > 1 && types.contains("\\Exception");
-                        if (dropExtraDefinitions) {
-                            types.remove("\\Exception");
-                        }
-
-                        for (String type : types) {
-                            if (type.startsWith("\\")) {
-                                /* process classes references */
-                                Collection<PhpClass> classes = objIndex.getClassesByFQN(type);
-                                if (classes.size() > 0) {
-                                    /* put an expression, create container if necessary */
-                                    PhpClass exception = classes.iterator().next();
-                                    if (!exceptions.containsKey(exception)) {
-                                        exceptions.put(exception, new HashSet<>());
-                                    }
-                                    exceptions.get(exception).add(throwExpression);
-                                }
-                            }
-                        }
-                        types.clear();
-                    }
-                }
-
-                processed.add(throwExpression);
-            }
-            throwExpressions.clear();
-        }
-
-        /* process nested calls */
-        Collection<MethodReference> calls = PsiTreeUtil.findChildrenOfType(scope, MethodReference.class);
-        if (calls.size() > 0) {
-            for (MethodReference call : calls) {
-                /* skip processed */
-                if (processed.contains(call)) {
-                    continue;
-                }
-
-                PsiElement methodResolved = call.resolve();
-                if (methodResolved instanceof Method) {
-                    /* lookup for annotated exceptions */
-                    final HashSet<PhpClass> methodExceptions = new HashSet<>();
-                    ThrowsResolveUtil.resolveThrownExceptions((Method) methodResolved, methodExceptions);
-
-                    /* link expression with each possible exception */
-                    if (methodExceptions.size() > 0) {
-                        for (PhpClass methodException : methodExceptions) {
-                            /* put an expression, create container if necessary */
-                            if (!exceptions.containsKey(methodException)) {
-                                exceptions.put(methodException, new HashSet<>());
-                            }
-                            exceptions.get(methodException).add(call);
-                        }
-
-                        methodExceptions.clear();
-                    }
-                }
-                processed.add(call);
-            }
-            calls.clear();
-        }
-
+        scope.accept(new ExceptionsCollector(exceptions, processed, PhpIndex.getInstance(scope.getProject())));
         return exceptions;
     }
 
-    static private HashMap<PhpClass, HashSet<PsiElement>> collectTryWorkflowExceptions(Try scope, HashSet<PsiElement> processed, @NotNull final ProblemsHolder holder) {
+    static private HashMap<PhpClass, HashSet<PsiElement>> collectTryWorkflowExceptions(Try scope, HashSet<PsiElement> processed, PhpIndex objIndex) {
         final HashMap<PhpClass, HashSet<PsiElement>> exceptions = new HashMap<>();
 
         /* resolve try-body */
-        final HashMap<PhpClass, HashSet<PsiElement>> unhandledInTry = collectNestedAndWorkflowExceptions(scope.getStatement(), processed, holder);
+        final HashMap<PhpClass, HashSet<PsiElement>> unhandledInTry = new HashMap<>();
+        if (null != scope.getStatement()) {
+            scope.getStatement().accept(new ExceptionsCollector(unhandledInTry, processed, objIndex));
+        }
 
         /* resolve all catches */
         final HashMap<PhpClass, HashSet<PsiElement>> unhandledInCatches = new HashMap<>();
@@ -228,7 +46,6 @@ final public class CollectPossibleThrowsUtil {
                 }
 
                 final PhpClass caughtClass = (PhpClass) catchClassReference.resolve();
-//holder.registerProblem(catchInTry.getFirstChild(), "Catches: " + caughtClass.toString(), ProblemHighlightType.WEAK_WARNING);
 
                 /* inspect what covered */
                 final HashSet<PhpClass> handledInCurrentCatch = new HashSet<>();
@@ -236,92 +53,186 @@ final public class CollectPossibleThrowsUtil {
 
                 for (PhpClass unhandled : unhandledInTry.keySet()) {
                     /* each potential exception can be caught as a parent as well */
-                    HashSet<PhpClass> unhandledVariants = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(unhandled, true);
-                    unhandledVariants.add(unhandled);
-//holder.registerProblem(catchInTry.getFirstChild(), "Match against: " + unhandledVariants.toString(), ProblemHighlightType.WEAK_WARNING);
-                    if (unhandledVariants.contains(caughtClass)) {
+                    final boolean isCaught = unhandled == caughtClass ||
+                            InterfacesExtractUtil.getCrawlCompleteInheritanceTree(unhandled, true).contains(caughtClass);
+                    if (isCaught) {
                         handledInCurrentCatch.add(unhandled);
                     }
-                    unhandledVariants.clear();
                 }
 
                 /* actualize unhandled in try, they will remain here */
-                if (handledInCurrentCatch.size() > 0) {
-//holder.registerProblem(catchInTry.getFirstChild(), "Exclude thrown: " + handledInCurrentCatch.toString(), ProblemHighlightType.WEAK_WARNING);
+                for (PhpClass oneHandled : handledInCurrentCatch) {
                     /* cleanup info associated with covered exceptions */
-                    for (PhpClass oneHandled : handledInCurrentCatch) {
-//holder.registerProblem(catchInTry.getFirstChild(), "Apply to try: " + unhandledInTry.keySet().toString(), ProblemHighlightType.WEAK_WARNING);
-                        if (unhandledInTry.containsKey(oneHandled)) {
-                            unhandledInTry.get(oneHandled).clear();
-                            unhandledInTry.remove(oneHandled);
-                        }
+                    if (unhandledInTry.containsKey(oneHandled)) {
+                        unhandledInTry.get(oneHandled).clear();
+                        unhandledInTry.remove(oneHandled);
                     }
-                    handledInCurrentCatch.clear();
                 }
+                handledInCurrentCatch.clear();
             }
             catchClassReferences.clear();
 
-            /* resolve catch-body and mark as processed */
-            final HashMap<PhpClass, HashSet<PsiElement>> catchBodyExceptions = collectNestedAndWorkflowExceptions(catchInTry, processed, holder);
-            if (catchBodyExceptions.size() > 0) {
-                for (Map.Entry<PhpClass, HashSet<PsiElement>> catchBodyExceptionsPair : catchBodyExceptions.entrySet()) {
-                    /* extract pairs Exception class => source expressions */
-                    final PhpClass exceptionInCatch                 = catchBodyExceptionsPair.getKey();
-                    final HashSet<PsiElement> expressionsToDispatch = catchBodyExceptionsPair.getValue();
+            /* resolve catch-body */
+            catchInTry.accept(new ExceptionsCollector(unhandledInCatches, processed, objIndex));
+        }
+
+        /* merge unhandled and catch-produced exceptions into result storage */
+        merge(unhandledInTry, exceptions);
+        merge(unhandledInCatches, exceptions);
+
+        return exceptions;
+    }
+
+    /* moves pairs Exception class => source expressions into the target, releasing the source */
+    static private void merge(@NotNull HashMap<PhpClass, HashSet<PsiElement>> source, @NotNull HashMap<PhpClass, HashSet<PsiElement>> target) {
+        for (Map.Entry<PhpClass, HashSet<PsiElement>> pair : source.entrySet()) {
+            final PhpClass exception                        = pair.getKey();
+            final HashSet<PsiElement> expressionsToDispatch = pair.getValue();
+
+            if (target.containsKey(exception)) {
+                /* merge entries and release refs */
+                target.get(exception).addAll(expressionsToDispatch);
+                expressionsToDispatch.clear();
+            } else {
+                /* store as it is */
+                target.put(exception, expressionsToDispatch);
+            }
+        }
+        source.clear();
+    }
+
+    static private void register(@NotNull HashMap<PhpClass, HashSet<PsiElement>> exceptions, @NotNull PhpClass exception, @NotNull PsiElement expression) {
+        /* put an expression, create container if necessary */
+        if (!exceptions.containsKey(exception)) {
+            exceptions.put(exception, new HashSet<>());
+        }
+        exceptions.get(exception).add(expression);
+    }
+
+    /**
+     * Walks a scope, registering exceptions of throw sites into the scope storage. Nested try statements are
+     * processed as a whole (their escaping exceptions are merged), their finally blocks belong to the scope.
+     */
+    static private class ExceptionsCollector extends PsiRecursiveElementWalkingVisitor {
+        private final HashMap<PhpClass, HashSet<PsiElement>> exceptions;
+        private final HashSet<PsiElement> processed;
+        private final PhpIndex objIndex;
+
+        ExceptionsCollector(@NotNull HashMap<PhpClass, HashSet<PsiElement>> exceptions, @NotNull HashSet<PsiElement> processed, @NotNull PhpIndex objIndex) {
+            this.exceptions = exceptions;
+            this.processed  = processed;
+            this.objIndex   = objIndex;
+        }
+
+        @Override
+        public void visitElement(PsiElement element) {
+            if (element instanceof Try) {
+                if (!processed.contains(element)) {
+                    processed.add(element);
 
-                    if (unhandledInCatches.containsKey(exceptionInCatch)) {
-                        /* merge entries and release refs */
-                        unhandledInCatches.get(exceptionInCatch).addAll(expressionsToDispatch);
-                        expressionsToDispatch.clear();
-                    } else {
-                        /* store as it is */
-                        unhandledInCatches.put(exceptionInCatch, expressionsToDispatch);
+                    final Try tryStatement = (Try) element;
+                    merge(collectTryWorkflowExceptions(tryStatement, processed, objIndex), exceptions);
+                    if (null != tryStatement.getFinallyBlock()) {
+                        tryStatement.getFinallyBlock().accept(new ExceptionsCollector(exceptions, processed, objIndex));
                     }
-//holder.registerProblem(catchInTry.getFirstChild(), "Introduced by catches: " + unhandledInCatches.keySet().toString(), ProblemHighlightType.WEAK_WARNING);
                 }
-                catchBodyExceptions.clear();
+                /* the try statement has been walked by the workflow processing */
+                return;
+            }
+
+            if (!processed.contains(element)) {
+                if (element instanceof NewExpression) {
+                    processed.add(element);
+                    collectFromNewExpression((NewExpression) element);
+                } else if (element instanceof PhpThrow) {
+                    processed.add(element);
+                    collectFromThrow((PhpThrow) element);
+                } else if (element instanceof MethodReference) {
+                    processed.add(element);
+                    collectFromCall((MethodReference) element);
+                }
             }
+
+            super.visitElement(element);
         }
 
-        /* merge unhandled and catch-produced exceptions into result storage */
-        if (unhandledInTry.size() > 0) {
-            for (Map.Entry<PhpClass, HashSet<PsiElement>> unhandledInTryPair : unhandledInTry.entrySet()) {
-                /* extract pairs Exception class => source expressions */
-                final PhpClass tryException                     = unhandledInTryPair.getKey();
-                final HashSet<PsiElement> expressionsToDispatch = unhandledInTryPair.getValue();
+        /* process new statements: throws, constructors */
+        private void collectFromNewExpression(@NotNull NewExpression newExpression) {
+            /* skip what can not be resolved */
+            final ClassReference newClassRef = newExpression.getClassReference();
+            if (null == newClassRef) {
+                return;
+            }
 
-                if (exceptions.containsKey(tryException)) {
-                    /* merge entries and release refs */
-                    exceptions.get(tryException).addAll(expressionsToDispatch);
-                    expressionsToDispatch.clear();
-                } else {
-                    /* store as it is */
-                    exceptions.put(tryException, expressionsToDispatch);
+            final PsiElement resolved = newClassRef.resolve();
+            final PhpClass newClass;
+            if (resolved instanceof PhpClass) {
+                newClass = (PhpClass) resolved;
+            } else if (resolved instanceof Method) {
+                newClass = ((Method) resolved).getContainingClass();
+            } else {
+                return;
+            }
+            if (null == newClass) {
+                return;
+            }
+
+            /* throws processed */
+            if (newExpression.getParent() instanceof PhpThrow) {
+                register(exceptions, newClass, newExpression.getParent());
+                return;
+            }
+
+            /* process constructors invocation: link expression with each possible exception */
+            final Method constructor = newClass.getConstructor();
+            if (null != constructor) {
+                for (PhpClass constructorException : MethodThrowsSummary.of(constructor).getDeclaredExceptions()) {
+                    register(exceptions, constructorException, newExpression.getParent());
                 }
             }
-//holder.registerProblem(scope.getFirstChild(), "Try produces: " + unhandledInTry.keySet().toString(), ProblemHighlightType.WEAK_WARNING);
-            unhandledInTry.clear();
         }
 
-        if (unhandledInCatches.size() > 0) {
-            for (Map.Entry<PhpClass, HashSet<PsiElement>> unhandledInCatchesPair : unhandledInCatches.entrySet()) {
-                /* extract pairs Exception class => source expressions */
-                final PhpClass catchException                   = unhandledInCatchesPair.getKey();
-                final HashSet<PsiElement> expressionsToDispatch = unhandledInCatchesPair.getValue();
+        /* process throws - some of them might not use new-expression */
+        private void collectFromThrow(@NotNull PhpThrow throwExpression) {
+            /* resolve argument */
+            final PsiElement argument = throwExpression.getArgument();
+            if (null == argument) {
+                return;
+            }
 
-                if (exceptions.containsKey(catchException)) {
-                    /* merge entries and release refs */
-                    exceptions.get(catchException).addAll(expressionsToDispatch);
-                    expressionsToDispatch.clear();
-                } else {
-                    /* store as it is */
-                    exceptions.put(catchException, expressionsToDispatch);
+            /* resolve argument types */
+            final HashSet<String> types = new HashSet<>();
+            TypeFromPlatformResolverUtil.resolveExpressionType(argument, types);
+            if (types.size() > 0) {
+                /* remove extra definition of \Exception unexpectedly added by PhpStorm */
+                final boolean dropExtraDefinitions = argument instanceof Variable && types.size() > 1 && types.contains("\\Exception");
+                if (dropExtraDefinitions) {
+                    types.remove("\\Exception");
+                }
+
+                for (String type : types) {
+                    if (type.startsWith("\\")) {
+                        /* process classes references */
+                        final Collection<PhpClass> classes = objIndex.getClassesByFQN(type);
+                        if (classes.size() > 0) {
+                            register(exceptions, classes.iterator().next(), throwExpression);
+                        }
+                    }
                 }
+                types.clear();
             }
-//holder.registerProblem(scope.getFirstChild(), "Catches produces: " + unhandledInCatches.keySet().toString(), ProblemHighlightType.WEAK_WARNING);
-            unhandledInCatches.clear();
         }
 
-        return exceptions;
+        /* process nested calls */
+        private void collectFromCall(@NotNull MethodReference call) {
+            final PsiElement methodResolved = call.resolve();
+            if (methodResolved instanceof Method) {
+                /* lookup for annotated exceptions, link expression with each possible exception */
+                final Set<PhpClass> methodExceptions = MethodThrowsSummary.of((Method) methodResolved).getDeclaredExceptions();
+                for (PhpClass methodException : methodExceptions) {
+                    register(exceptions, methodException, call);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.ThrowsResolveUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exceptions of a method: declared in the doc-block (incl. inherited docs) and thrown by its body.
+ * Summaries are cached on the method until PSI is modified, so callers are not re-resolving callee
+ * doc-blocks and bodies for every call site.
+ */
+final public class MethodThrowsSummary {
+    private static final Key<CachedValue<MethodThrowsSummary>> summaryKey = Key.create("EA.MethodThrowsSummary");
+
+    private final Method method;
+    private final ThrowsResolveUtil.ResolveType resolveType;
+    private final Set<PhpClass> declaredExceptions;
+    /* body analysis is needed for analyzed methods only, not for callees: computed on demand */
+    private volatile Map<PhpClass, Set<PsiElement>> thrownExceptions;
+
+    @NotNull
+    public static MethodThrowsSummary of(@NotNull final Method method) {
+        if (!method.isPhysical()) {
+            return new MethodThrowsSummary(method);
+        }
+
+        return CachedValuesManager.getCachedValue(method, summaryKey, new CachedValueProvider<MethodThrowsSummary>() {
+            @Nullable
+            @Override
+            public Result<MethodThrowsSummary> compute() {
+                /* inherited doc-blocks and resolved classes are living in other files */
+                return Result.create(new MethodThrowsSummary(method), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+    }
+
+    private MethodThrowsSummary(@NotNull Method method) {
+        final HashSet<PhpClass> declared = new HashSet<>();
+
+        this.method             = method;
+        this.resolveType        = ThrowsResolveUtil.resolveThrownExceptions(method, declared);
+        this.declaredExceptions = Collections.unmodifiableSet(declared);
+    }
+
+    @NotNull
+    public ThrowsResolveUtil.ResolveType getResolveType() {
+        return resolveType;
+    }
+
+    /** @return exceptions announced with @throws, read-only */
+    @NotNull
+    public Set<PhpClass> getDeclaredExceptions() {
+        return declaredExceptions;
+    }
+
+    /** @return exceptions thrown in the method body mapped to throwing expressions, a modifiable copy */
+    @NotNull
+    public HashMap<PhpClass, HashSet<PsiElement>> getThrownExceptions() {
+        Map<PhpClass, Set<PsiElement>> thrown = thrownExceptions;
+        if (null == thrown) {
+            thrown = new HashMap<>();
+            final HashSet<PsiElement> processedRegistry = new HashSet<>();
+            for (Map.Entry<PhpClass, HashSet<PsiElement>> entry : CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry).entrySet()) {
+                thrown.put(entry.getKey(), Collections.<PsiElement>unmodifiableSet(entry.getValue()));
+            }
+            processedRegistry.clear();
+
+            thrownExceptions = thrown;
+        }
+
+        final HashMap<PhpClass, HashSet<PsiElement>> copy = new HashMap<>();
+        for (Map.Entry<PhpClass, Set<PsiElement>> entry : thrown.entrySet()) {
+            copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return copy;
+    }
+}
@@ -6,6 +6,7 @@ import com.intellij.psi.PsiElement;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassNamesFilter;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpIndexUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
@@ -37,7 +38,8 @@ final public class ClassInStringContextStrategy {
         /* collect classes to check if __toString() is there */
         LinkedList<PhpClass> listClasses = new LinkedList<>();
         for (String strClass : objResolvedTypes) {
-            if (strClass.charAt(0) == '\\') {
+            /* the filter spares index lookups for unknown types */
+            if (strClass.charAt(0) == '\\' && ClassNamesFilter.mightExist(holder.getProject(), strClass)) {
                 listClasses.addAll(PhpIndexUtil.getObjectInterfaces(strClass, objIndex, false));
             }
         }
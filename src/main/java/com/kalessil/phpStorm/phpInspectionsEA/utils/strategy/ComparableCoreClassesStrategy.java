@@ -65,13 +65,11 @@ final public class ComparableCoreClassesStrategy {
 
         /* inspect classes for being a/child of special once */
         for (PhpClass clazz : operandClasses) {
-            final HashSet<PhpClass> hierarchy = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true);
-            for (PhpClass oneClass : hierarchy){
+            for (PhpClass oneClass : InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true)) {
                 if (comparableObjects.contains(oneClass.getFQN())) {
                     return true;
                 }
             }
-            hierarchy.clear();
         }
         operandClasses.clear();
 
@@ -0,0 +1,75 @@
+package com.kalessil.phpStorm.phpInspectionsEA.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Minimal JMH-alike harness: warm-up and measurement iterations over a fixed set of inputs,
+ * reporting average time (ns/op) and allocation rate (B/op) measured on the current thread.
+ *
+ * Enabled only with -Dea.benchmarks=true, so regular test runs are not slowed down.
+ */
+final public class MicroBenchmark {
+    private static final int warmupIterations      = 5;
+    private static final int measurementIterations = 10;
+
+    /* consumes results, so JIT can not eliminate benchmarked calls as dead code */
+    @SuppressWarnings("unused")
+    private static volatile int blackhole;
+
+    public interface Operation<T> {
+        Object run(@NotNull T input);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("ea.benchmarks");
+    }
+
+    @NotNull
+    public static <T> String measure(@NotNull String name, @NotNull List<T> inputs, @NotNull Operation<T> operation) {
+        if (inputs.isEmpty()) {
+            return String.format("%-60s %s", name, "no inputs in corpus");
+        }
+
+        for (int iteration = 0; iteration < warmupIterations; ++iteration) {
+            runIteration(inputs, operation);
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long threadId        = Thread.currentThread().getId();
+
+        final long bytesBefore = getAllocatedBytes(threads, threadId);
+        final long timeBefore  = System.nanoTime();
+        for (int iteration = 0; iteration < measurementIterations; ++iteration) {
+            runIteration(inputs, operation);
+        }
+        final long timeSpent   = System.nanoTime() - timeBefore;
+        final long bytesSpent  = getAllocatedBytes(threads, threadId) - bytesBefore;
+
+        final long operations  = (long) inputs.size() * measurementIterations;
+        final String bytesInfo = bytesBefore < 0 ? "n/a B/op" : String.format("%10.1f B/op", (double) bytesSpent / operations);
+        return String.format("%-60s %12.1f ns/op %s (%d ops)", name, (double) timeSpent / operations, bytesInfo, operations);
+    }
+
+    private static <T> void runIteration(@NotNull List<T> inputs, @NotNull Operation<T> operation) {
+        int accumulator = 0;
+        for (T input : inputs) {
+            final Object result = operation.run(input);
+            accumulator        ^= (null == result ? 0 : System.identityHashCode(result));
+        }
+        blackhole = accumulator;
+    }
+
+    private static long getAllocatedBytes(@NotNull ThreadMXBean threads, long threadId) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+            if (extended.isThreadAllocatedMemorySupported() && extended.isThreadAllocatedMemoryEnabled()) {
+                return extended.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,259 @@
+package com.kalessil.phpStorm.phpInspectionsEA.benchmarks;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostModel;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.ParsedRegex;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.classesStrategy.ShortClassDefinitionStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.CatastrophicBacktrackingCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.GreedyCharactersSetCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.QuantifierCompoundsQuantifierCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.modifiersStrategy.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.SequentialClassesCollapseCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromSignatureResolvingUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.Types;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for shared utilities used by most inspections; PSI is built from the php/ samples corpus.
+ * Run with -Dea.benchmarks=true (and the working directory set to the project root), results are printed to stdout.
+ */
+final public class UtilsHotPathsBenchmarkTest extends CodeInsightFixtureTestCase {
+    private static final String corpusPath = "php";
+
+    private static final Pattern regexWithModifiers = Pattern.compile("^([^\\{])(.*)\\1([a-zA-Z]+)?$");
+
+    private final List<PsiFile> corpus = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        final File root = new File(corpusPath);
+        assertTrue("PHP corpus not found: " + root.getAbsolutePath(), root.isDirectory());
+        for (File file : FileUtil.findFilesByMask(Pattern.compile(".*\\.php"), root)) {
+            corpus.add(myFixture.addFileToProject(FileUtil.getRelativePath(root, file), loadText(file)));
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        corpus.clear();
+        super.tearDown();
+    }
+
+    @NotNull
+    private static String loadText(@NotNull File file) {
+        try {
+            return FileUtil.loadFile(file, "UTF-8");
+        } catch (IOException failure) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    @NotNull
+    private <T extends PsiElement> List<T> collect(@NotNull Class<T> clazz) {
+        final List<T> elements = new ArrayList<>();
+        for (PsiFile file : corpus) {
+            elements.addAll(PsiTreeUtil.findChildrenOfType(file, clazz));
+        }
+        return elements;
+    }
+
+    private static void report(@NotNull String line) {
+        System.out.println(line);
+    }
+
+    public void testTypesGetType() {
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        final List<String> types = new ArrayList<>();
+        for (PhpTypedElement element : collect(PhpTypedElement.class)) {
+            Collections.addAll(types, element.getType().toString().split("\\|"));
+        }
+
+        report(MicroBenchmark.measure("Types.getType", types, new MicroBenchmark.Operation<String>() {
+            @Override
+            public Object run(@NotNull String input) {
+                return Types.getType(input);
+            }
+        }));
+    }
+
+    public void testExpressionCostEstimate() {
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        final List<PsiElement> conditions = new ArrayList<>();
+        for (If ifStatement : collect(If.class)) {
+            if (null != ifStatement.getCondition()) {
+                conditions.add(ifStatement.getCondition());
+            }
+        }
+
+        final ExpressionCostModel costs = ExpressionCostModel.getDefault();
+        report(MicroBenchmark.measure("ExpressionCostEstimateUtil.getExpressionCost", conditions, new MicroBenchmark.Operation<PsiElement>() {
+            @Override
+            public Object run(@NotNull PsiElement input) {
+                return ExpressionCostEstimateUtil.getExpressionCost(input, costs);
+            }
+        }));
+    }
+
+    public void testExpressionSemantic() {
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        final List<PsiElement> conditions = new ArrayList<>();
+        for (If ifStatement : collect(If.class)) {
+            if (null != ifStatement.getCondition()) {
+                conditions.add(ifStatement.getCondition());
+            }
+        }
+        report(MicroBenchmark.measure("ExpressionSemanticUtil.getConditions", conditions, new MicroBenchmark.Operation<PsiElement>() {
+            @Override
+            public Object run(@NotNull PsiElement input) {
+                return ExpressionSemanticUtil.getConditions(input, null);
+            }
+        }));
+
+        final List<ParenthesizedExpression> parenthesized = collect(ParenthesizedExpression.class);
+        report(MicroBenchmark.measure("ExpressionSemanticUtil.getExpressionTroughParenthesis", parenthesized, new MicroBenchmark.Operation<ParenthesizedExpression>() {
+            @Override
+            public Object run(@NotNull ParenthesizedExpression input) {
+                return ExpressionSemanticUtil.getExpressionTroughParenthesis(input);
+            }
+        }));
+    }
+
+    public void testSignatureResolving() {
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        final PhpIndex index = PhpIndex.getInstance(myFixture.getProject());
+        final List<PhpReference> references = new ArrayList<>();
+        references.addAll(collect(MethodReference.class));
+        references.addAll(collect(FieldReference.class));
+        references.addAll(collect(FunctionReference.class));
+
+        /* without scope results are not cached: every iteration is resolving signatures from scratch */
+        report(MicroBenchmark.measure("TypeFromSignatureResolvingUtil.resolveSignature, uncached", references, new MicroBenchmark.Operation<PhpReference>() {
+            @Override
+            public Object run(@NotNull PhpReference input) {
+                final HashSet<String> types = new HashSet<>();
+                TypeFromSignatureResolvingUtil.resolveSignature(input.getSignature(), null, index, types);
+                return types;
+            }
+        }));
+        report(MicroBenchmark.measure("TypeFromSignatureResolvingUtil.resolveSignature, cached", references, new MicroBenchmark.Operation<PhpReference>() {
+            @Override
+            public Object run(@NotNull PhpReference input) {
+                final HashSet<String> types = new HashSet<>();
+                TypeFromSignatureResolvingUtil.resolveSignature(input.getSignature(), ExpressionSemanticUtil.getScope(input), index, types);
+                return types;
+            }
+        }));
+    }
+
+    public void testRegularExpressionStrategies() {
+        if (!MicroBenchmark.isEnabled()) {
+            return;
+        }
+
+        /* collect patterns the same way NotOptimalRegularExpressionsInspector does for plain literals */
+        final List<RegexSample> samples = new ArrayList<>();
+        for (FunctionReference reference : collect(FunctionReference.class)) {
+            final String functionName = reference.getName();
+            final PsiElement[] params = reference.getParameters();
+            if (null == functionName || !functionName.startsWith("preg_") || 0 == params.length) {
+                continue;
+            }
+            if (params[0] instanceof StringLiteralExpression) {
+                final StringLiteralExpression literal = (StringLiteralExpression) params[0];
+                final Matcher matcher                 = regexWithModifiers.matcher(literal.getContents());
+                if (matcher.find()) {
+                    samples.add(new RegexSample(literal, matcher.group(2), matcher.group(3)));
+                }
+            }
+        }
+
+        final InspectionManager manager = InspectionManager.getInstance(myFixture.getProject());
+        report(MicroBenchmark.measure("regularExpressions: modifiers strategies", samples, new MicroBenchmark.Operation<RegexSample>() {
+            @Override
+            public Object run(@NotNull RegexSample input) {
+                final ProblemsHolder holder = new ProblemsHolder(manager, input.target.getContainingFile(), false);
+                DeprecatedModifiersCheckStrategy.apply(input.modifiers, input.target, holder);
+                AllowedModifierCheckStrategy.apply(input.modifiers, input.target, holder);
+                final ParsedRegex parsed    = ParsedRegex.of(input.pattern, input.modifiers);
+                UselessDollarEndOnlyModifierStrategy.apply(parsed, input.target, holder);
+                UselessDotAllModifierCheckStrategy.apply(parsed, input.target, holder);
+                UselessIgnoreCaseModifierCheckStrategy.apply(parsed, input.target, holder);
+                MissingDotAllCheckStrategy.apply(parsed, input.target, holder);
+                MissingUnicodeModifierStrategy.apply(parsed, input.target, holder);
+                return holder;
+            }
+        }));
+        report(MicroBenchmark.measure("regularExpressions: ShortClassDefinitionStrategy", samples, new MicroBenchmark.Operation<RegexSample>() {
+            @Override
+            public Object run(@NotNull RegexSample input) {
+                final ProblemsHolder holder = new ProblemsHolder(manager, input.target.getContainingFile(), false);
+                ShortClassDefinitionStrategy.apply(ParsedRegex.of(input.pattern, input.modifiers), input.target, holder);
+                return holder;
+            }
+        }));
+        report(MicroBenchmark.measure("regularExpressions: SequentialClassesCollapseCheckStrategy", samples, new MicroBenchmark.Operation<RegexSample>() {
+            @Override
+            public Object run(@NotNull RegexSample input) {
+                final ProblemsHolder holder = new ProblemsHolder(manager, input.target.getContainingFile(), false);
+                SequentialClassesCollapseCheckStrategy.apply(ParsedRegex.of(input.pattern, input.modifiers), input.target, holder);
+                return holder;
+            }
+        }));
+        report(MicroBenchmark.measure("regularExpressions: explosive strategies", samples, new MicroBenchmark.Operation<RegexSample>() {
+            @Override
+            public Object run(@NotNull RegexSample input) {
+                final ProblemsHolder holder = new ProblemsHolder(manager, input.target.getContainingFile(), false);
+                final ParsedRegex parsed    = ParsedRegex.of(input.pattern, input.modifiers);
+                GreedyCharactersSetCheckStrategy.apply(parsed, input.target, holder);
+                QuantifierCompoundsQuantifierCheckStrategy.apply(parsed, input.target, holder);
+                CatastrophicBacktrackingCheckStrategy.apply(parsed, input.target, holder);
+                return holder;
+            }
+        }));
+    }
+
+    private static class RegexSample {
+        final StringLiteralExpression target;
+        final String pattern;
+        final String modifiers;
+
+        RegexSample(@NotNull StringLiteralExpression target, String pattern, String modifiers) {
+            this.target    = target;
+            this.pattern   = pattern;
+            this.modifiers = modifiers;
+        }
+    }
+}
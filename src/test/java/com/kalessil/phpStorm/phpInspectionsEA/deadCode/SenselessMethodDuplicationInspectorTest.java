@@ -9,4 +9,13 @@ final public class SenselessMethodDuplicationInspectorTest extends CodeInsightFi
         myFixture.enableInspections(SenselessMethodDuplicationInspector.class);
         myFixture.testHighlighting(true, false, true);
     }
-}
\ No newline at end of file
+
+    public void testProjectDuplicates() {
+        SenselessMethodDuplicationInspector inspector = new SenselessMethodDuplicationInspector();
+        inspector.REPORT_PROJECT_DUPLICATES = true;
+
+        myFixture.configureByFile("fixtures/deadCode/senseless-method-duplication-project.php");
+        myFixture.enableInspections(inspector);
+        myFixture.testHighlighting(true, false, true);
+    }
+}
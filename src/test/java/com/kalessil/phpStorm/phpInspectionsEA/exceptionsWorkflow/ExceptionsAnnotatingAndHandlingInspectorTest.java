@@ -0,0 +1,12 @@
+package com.kalessil.phpStorm.phpInspectionsEA.exceptionsWorkflow;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.exceptionsWorkflow.ExceptionsAnnotatingAndHandlingInspector;
+
+final public class ExceptionsAnnotatingAndHandlingInspectorTest extends CodeInsightFixtureTestCase {
+    public void testIfFindsNestedTryPatterns() {
+        myFixture.configureByFile("fixtures/exceptionsWorkflow/nested-try.php");
+        myFixture.enableInspections(ExceptionsAnnotatingAndHandlingInspector.class);
+        myFixture.testHighlighting(true, false, true);
+    }
+}
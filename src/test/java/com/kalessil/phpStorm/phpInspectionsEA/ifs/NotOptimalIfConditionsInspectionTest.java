@@ -2,6 +2,7 @@ package com.kalessil.phpStorm.phpInspectionsEA.ifs;
 
 import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.NotOptimalIfConditionsInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostModel;
 
 final public class NotOptimalIfConditionsInspectionTest extends CodeInsightFixtureTestCase {
     public void testFalsePositives() {
@@ -19,4 +20,13 @@ final public class NotOptimalIfConditionsInspectionTest extends CodeInsightFixtu
         myFixture.enableInspections(NotOptimalIfConditionsInspection.class);
         myFixture.testHighlighting(true, false, true);
     }
-}
\ No newline at end of file
+    public void testDefaultCostsTable() {
+        final ExpressionCostModel costs = ExpressionCostModel.getDefault();
+        assertEquals("1", costs.getVersion());
+        assertEquals(0, costs.getFunctionCallCost("is_array"));
+        assertEquals(5, costs.getFunctionCallCost("str_replace"));
+        assertEquals(0, costs.getArrayAccessCost(true));
+        assertEquals(1, costs.getArrayAccessCost(false));
+        assertEquals(10, costs.getUnknownCost());
+    }
+}
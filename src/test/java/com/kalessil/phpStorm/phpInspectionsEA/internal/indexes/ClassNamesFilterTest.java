@@ -0,0 +1,64 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.indexes;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassDeclarationsTracker;
+import com.kalessil.phpStorm.phpInspectionsEA.indexes.ClassNamesFilter;
+
+final public class ClassNamesFilterTest extends CodeInsightFixtureTestCase {
+    public void testDeclaredNamesAlwaysPass() {
+        myFixture.configureByText("test.php", "<?php\nnamespace Filter\\Cases;\nclass Declared {}\ninterface DeclaredContract {}");
+        final Project project = myFixture.getProject();
+
+        assertTrue(ClassNamesFilter.mightExist(project, "\\Filter\\Cases\\Declared"));
+        assertTrue(ClassNamesFilter.mightExist(project, "\\filter\\cases\\DECLARED"));
+        assertTrue(ClassNamesFilter.mightExist(project, "Filter\\Cases\\Declared"));
+        assertTrue(ClassNamesFilter.mightExist(project, "\\Filter\\Cases\\DeclaredContract"));
+        assertTrue(ClassNamesFilter.mightExist(project, "filter\\cases\\declaredcontract"));
+    }
+
+    public void testUnknownNamesAreRejected() {
+        myFixture.configureByText("test.php", "<?php\nnamespace Filter\\Cases;\nclass Declared {}");
+        final Project project = myFixture.getProject();
+
+        /* it's a bloom filter: false positives are expected, but rare (~1%) */
+        int rejected = 0;
+        for (int index = 0; index < 100; ++index) {
+            if (!ClassNamesFilter.mightExist(project, "\\Filter\\Cases\\Unknown" + index)) {
+                ++rejected;
+            }
+        }
+        assertTrue(rejected >= 90);
+    }
+
+    public void testRebuiltOnlyOnDeclarationsChanges() {
+        final String content = "<?php\nnamespace Filter\\Cases;\nclass Declared { function get() { return 1; } }\n$config = ['key' => 1];";
+        myFixture.configureByText("test.php", content);
+        final Project project                  = myFixture.getProject();
+        final ClassDeclarationsTracker tracker = ClassDeclarationsTracker.getInstance(project);
+        assertTrue(ClassNamesFilter.mightExist(project, "\\Filter\\Cases\\Declared"));
+
+        /* top-level code and functions bodies */
+        final long count = tracker.getModificationCount();
+        edit(content.replace("'key' => 1", "'key' => 2").replace("return 1;", "return 2;"));
+        assertEquals(count, tracker.getModificationCount());
+
+        edit(content + "\nclass Added extends Declared {}");
+        assertTrue(count < tracker.getModificationCount());
+        assertTrue(ClassNamesFilter.mightExist(project, "\\Filter\\Cases\\Added"));
+    }
+
+    private void edit(final String content) {
+        final Document document = myFixture.getEditor().getDocument();
+        WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
+            @Override
+            public void run() {
+                document.setText(content);
+                PsiDocumentManager.getInstance(myFixture.getProject()).commitDocument(document);
+            }
+        });
+    }
+}
@@ -0,0 +1,149 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.regularExpressions;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.ast.*;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+final public class RegexParserTest extends TestCase {
+    public void testEscapes() {
+        final List<RegexNode> items = parse("\\d+\\.\\x41\\x{263A}\\n\\0\\o{101}\\cA", "");
+        assertEquals(8, items.size());
+        assertEquals('d', ((ClassEscape) ((Quantifier) items.get(0)).getAtom()).getType());
+        assertEquals('.', ((Literal) items.get(1)).getCodePoint());
+        assertEquals('A', ((Literal) items.get(2)).getCodePoint());
+        assertEquals(0x263A, ((Literal) items.get(3)).getCodePoint());
+        assertEquals('\n', ((Literal) items.get(4)).getCodePoint());
+        assertEquals(0, ((Literal) items.get(5)).getCodePoint());
+        assertEquals('A', ((Literal) items.get(6)).getCodePoint());
+        assertEquals(1, ((Literal) items.get(7)).getCodePoint());
+
+        final List<RegexNode> references = parse("(a)\\1\\g{-1}\\k<name>\\g<name>", "");
+        assertEquals("1", ((BackReference) references.get(1)).getTarget());
+        assertEquals("-1", ((BackReference) references.get(2)).getTarget());
+        assertFalse(((BackReference) references.get(2)).isSubroutine());
+        assertEquals("name", ((BackReference) references.get(3)).getTarget());
+        assertTrue(((BackReference) references.get(4)).isSubroutine());
+
+        final List<RegexNode> properties = parse("\\p{Lu}\\PL\\bx\\B", "");
+        assertEquals("Lu", ((ClassEscape) properties.get(0)).getProperty());
+        assertEquals("L", ((ClassEscape) properties.get(1)).getProperty());
+        assertEquals('b', ((Anchor) properties.get(2)).getType());
+        assertEquals('B', ((Anchor) properties.get(4)).getType());
+    }
+
+    public void testCharacterClassesAndRanges() {
+        final CharacterClass negated = (CharacterClass) parse("[^a-z\\d_-]", "").get(0);
+        assertTrue(negated.isNegated());
+        assertEquals(4, negated.getItems().size());
+        final CharacterRange range = (CharacterRange) negated.getItems().get(0);
+        assertEquals('a', range.getFrom().getCodePoint());
+        assertEquals('z', range.getTo().getCodePoint());
+        assertEquals('d', ((ClassEscape) negated.getItems().get(1)).getType());
+        assertEquals('-', ((Literal) negated.getItems().get(3)).getCodePoint());
+
+        /* a class escape can not start a range: the dash is a literal */
+        final CharacterClass escapeAndDash = (CharacterClass) parse("[\\w-z]", "").get(0);
+        assertEquals(3, escapeAndDash.getItems().size());
+        assertEquals('-', ((Literal) escapeAndDash.getItems().get(1)).getCodePoint());
+
+        /* the leading ] is a literal, \b is a backspace and digits are octal codes in classes */
+        final CharacterClass special = (CharacterClass) parse("[]\\b\\1[:alpha:]]", "").get(0);
+        assertEquals(4, special.getItems().size());
+        assertEquals(']', ((Literal) special.getItems().get(0)).getCodePoint());
+        assertEquals('\b', ((Literal) special.getItems().get(1)).getCodePoint());
+        assertEquals(1, ((Literal) special.getItems().get(2)).getCodePoint());
+        assertEquals("alpha", ((PosixClass) special.getItems().get(3)).getName());
+
+        final Quantifier bounded = (Quantifier) parse("[ab]{2,5}?", "").get(0);
+        assertEquals(2, bounded.getMin());
+        assertEquals(5, bounded.getMax());
+        assertEquals(Quantifier.Mode.LAZY, bounded.getMode());
+        assertEquals(5, parse("a{,5}", "").size());
+    }
+
+    public void testQuotingAndExtendedMode() {
+        final List<RegexNode> quoted = parse("\\Qa.b\\E+", "");
+        assertEquals(3, quoted.size());
+        assertEquals('.', ((Literal) quoted.get(1)).getCodePoint());
+        assertEquals('b', ((Literal) ((Quantifier) quoted.get(2)).getAtom()).getCodePoint());
+        assertEquals(3, parse("\\Q(a)\\E", "").size());
+
+        final List<RegexNode> extended = parse("a +  b # comment ( [\nc", "x");
+        assertEquals(3, extended.size());
+        assertEquals('a', ((Literal) ((Quantifier) extended.get(0)).getAtom()).getCodePoint());
+        assertEquals('c', ((Literal) extended.get(2)).getCodePoint());
+
+        /* white-spaces are kept in classes and without the modifier */
+        assertEquals(' ', ((Literal) ((CharacterClass) parse("[ ]", "x").get(0)).getItems().get(0)).getCodePoint());
+        assertEquals(3, parse("a b", "").size());
+    }
+
+    public void testGroups() {
+        final List<RegexNode> named = parse("(?<year>\\d{4})(?P<n>a)(?P=n)(?'q'b)", "");
+        assertEquals(Group.Kind.NAMED, ((Group) named.get(0)).getKind());
+        assertEquals("year", ((Group) named.get(0)).getName());
+        assertEquals(4, ((Quantifier) ((Sequence) ((Group) named.get(0)).getBody()).getItems().get(0)).getMax());
+        assertEquals("n", ((Group) named.get(1)).getName());
+        assertEquals("n", ((BackReference) named.get(2)).getTarget());
+        assertFalse(((BackReference) named.get(2)).isSubroutine());
+        assertEquals("q", ((Group) named.get(3)).getName());
+
+        final List<RegexNode> kinds = parse("(?:a)(?>b+)(?=c)(?<!d)(?|e)(?i:f)", "");
+        assertEquals(Group.Kind.NON_CAPTURING, ((Group) kinds.get(0)).getKind());
+        assertEquals(Group.Kind.ATOMIC, ((Group) kinds.get(1)).getKind());
+        assertEquals(Group.Kind.LOOKAHEAD, ((Group) kinds.get(2)).getKind());
+        assertEquals(Group.Kind.NEGATIVE_LOOKBEHIND, ((Group) kinds.get(3)).getKind());
+        assertEquals(Group.Kind.BRANCH_RESET, ((Group) kinds.get(4)).getKind());
+        assertEquals(Group.Kind.OPTIONS, ((Group) kinds.get(5)).getKind());
+
+        final Group byReference = (Group) parse("(a)?(?(1)b|c)", "").get(1);
+        assertEquals(Group.Kind.CONDITIONAL, byReference.getKind());
+        assertNull(byReference.getCondition());
+        assertEquals(2, ((Alternation) byReference.getBody()).getBranches().size());
+        final Group byAssertion = (Group) parse("(?(?=x)a|b)", "").get(0);
+        assertEquals(Group.Kind.LOOKAHEAD, ((Group) byAssertion.getCondition()).getKind());
+
+        final List<RegexNode> others = parse("(*UTF8)(?i)(?#comment)(?R)(?&name)(?-1)", "");
+        assertEquals(5, others.size());
+        assertTrue(((Directive) others.get(0)).isVerb());
+        assertFalse(((Directive) others.get(1)).isVerb());
+        assertEquals("R", ((BackReference) others.get(2)).getTarget());
+        assertEquals("name", ((BackReference) others.get(3)).getTarget());
+        assertEquals("-1", ((BackReference) others.get(4)).getTarget());
+        assertTrue(((BackReference) others.get(4)).isSubroutine());
+    }
+
+    public void testSyntaxErrors() {
+        assertError("(a", "missing closing parenthesis at offset 0");
+        assertError("a)", "unmatched closing parenthesis at offset 1");
+        assertError("*a", "quantifier does not follow a repeatable item at offset 0");
+        assertError("a|{2}", "quantifier does not follow a repeatable item at offset 2");
+        assertError("[z-a]", "range out of order in character class at offset 1");
+        assertError("[a", "missing terminating ] for character class at offset 0");
+        assertError("a\\", "\\ at end of pattern at offset 1");
+        assertError("(?P-a)", "unrecognized character after (?P at offset 3");
+        assertError("(?<name", "missing terminating > at offset 0");
+        assertError("(?", "unterminated group at offset 0");
+
+        /* not a quantifier: literal curly braces */
+        assertTrue(ParsedRegex.of("{a}", "").isValid());
+    }
+
+    @NotNull
+    private static List<RegexNode> parse(@NotNull String pattern, @NotNull String modifiers) {
+        final ParsedRegex regex = ParsedRegex.of(pattern, modifiers);
+        assertTrue(regex.getError(), regex.isValid());
+
+        final RegexNode root = regex.getRoot();
+        assertTrue(root instanceof Sequence);
+        return ((Sequence) root).getItems();
+    }
+
+    private static void assertError(@NotNull String pattern, @NotNull String error) {
+        final ParsedRegex regex = ParsedRegex.of(pattern, "");
+        assertFalse(regex.isValid());
+        assertEquals(error, regex.getError());
+    }
+}
@@ -0,0 +1,51 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.kalessil.phpStorm.phpInspectionsEA.utils.CompactTypeSet;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.Types;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+final public class CompactTypeSetTest extends TestCase {
+    public void testNormalization() {
+        CompactTypeSet types = CompactTypeSet.of(Arrays.asList("integer", "\\bool", "false", "\\Foo", "\\Foo", "string[]"));
+        assertEquals(4, types.size());
+        assertTrue(types.hasAnyOf(CompactTypeSet.INTEGER));
+        assertTrue(types.hasAnyOf(CompactTypeSet.BOOLEAN));
+        assertTrue(types.hasAnyOf(CompactTypeSet.ARRAY));
+        assertTrue(types.contains("int"));
+        assertTrue(types.contains("\\Foo"));
+        assertFalse(types.contains("\\Bar"));
+        assertFalse(types.containsMixed());
+
+        types = CompactTypeSet.of(Arrays.asList(Types.strMixed, Types.strClassNotResolved));
+        assertTrue(types.containsMixed());
+        assertTrue(types.withoutBits(CompactTypeSet.NOT_RESOLVED).containsMixed());
+        assertEquals(1, types.withoutBits(CompactTypeSet.NOT_RESOLVED).size());
+    }
+
+    public void testSetOperations() {
+        CompactTypeSet first  = CompactTypeSet.of(Arrays.asList("int", "\\Foo", "\\Bar"));
+        CompactTypeSet second = CompactTypeSet.of(Arrays.asList("null", "\\Bar"));
+        CompactTypeSet third  = CompactTypeSet.of(Arrays.asList("string", "\\Baz"));
+
+        assertTrue(first.intersects(second));
+        assertFalse(first.intersects(third));
+
+        assertEquals(CompactTypeSet.of("\\Bar"), first.intersection(second));
+        assertEquals(CompactTypeSet.EMPTY, first.intersection(third));
+        assertEquals(CompactTypeSet.of(Arrays.asList("int", "null", "\\Foo", "\\Bar")), first.union(second));
+
+        /* no new instances when result is not changing */
+        assertSame(first, first.union(CompactTypeSet.of("\\Foo")));
+        assertSame(first, first.union(CompactTypeSet.EMPTY));
+        assertSame(second, first.union(second).intersection(second));
+    }
+
+    public void testClassNamesAreSorted() {
+        CompactTypeSet types = CompactTypeSet.of(Arrays.asList("\\Foo", "int", "\\Bar", "\\Baz"));
+        assertEquals(Arrays.asList("\\Bar", "\\Baz", "\\Foo"), types.getClassNames());
+        assertEquals("int|\\Bar|\\Baz|\\Foo", types.toString());
+        assertEquals(types, CompactTypeSet.of(Arrays.asList("\\Baz", "\\Bar", "int", "\\Foo")));
+    }
+}
@@ -0,0 +1,106 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromSignatureResolvingUtil;
+
+import java.util.HashSet;
+
+final public class TypeFromSignatureResolvingUtilTest extends CodeInsightFixtureTestCase {
+    private static final String classes =
+        "<?php class Node { " +
+            "/** @var Node */ private $next; " +
+            "function getNext() { if ($this->next) { return $this->next; } return $this->getNext(); } " +
+            "function ping() { return $this->pong(); } " +
+            "function pong() { return $this->ping(); } " +
+        "} " +
+        "class Other {} " +
+        "class Factory { function make() { return new Node(); } } " +
+        "class A { function b() { return new B(); } } " +
+        "class B { function c(A $a) { return $a->b(); } } " +
+        "function walk() { return walk(); } " +
+        "function withNode(Node $p) {} " +
+        "function withOther(Other $p) {}";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        myFixture.configureByText("classes.php", classes);
+    }
+
+    private HashSet<String> resolve(String signature, Function scope) {
+        final HashSet<String> types = new HashSet<>();
+        TypeFromSignatureResolvingUtil.resolveSignature(signature, scope, PhpIndex.getInstance(myFixture.getProject()), types);
+        return types;
+    }
+
+    private Function findFunction(String name) {
+        for (Function function : PsiTreeUtil.findChildrenOfType(myFixture.getFile(), Function.class)) {
+            if (name.equals(function.getName())) {
+                return function;
+            }
+        }
+        fail("Function " + name + " is not found");
+        return null;
+    }
+
+    public void testSelfReferencingMethod() {
+        final HashSet<String> types = resolve("#M#C\\Node.getNext", null);
+        assertTrue(types.contains("\\Node"));
+        assertFalse(types.contains("#M#C\\Node.getNext"));
+    }
+
+    public void testSelfReferencingMethodInMiddleOfChain() {
+        /* the self-reference is not a poly-variant: the chain is resolved further */
+        final HashSet<String> types = resolve("#M#C\\Node.getNext.getNext", null);
+        assertTrue(types.contains("\\Node"));
+    }
+
+    public void testMutuallyReferencingMethods() {
+        final HashSet<String> types = resolve("#M#C\\Node.ping", null);
+        assertFalse(types.contains("\\Node"));
+    }
+
+    public void testSelfReferencingFunction() {
+        final HashSet<String> types = resolve("#Fwalk", null);
+        assertTrue(types.isEmpty());
+    }
+
+    public void testChainPairReferencedByLastSlot() {
+        /* B::c() returns A::b(), already resolved in the middle of the chain, but not a cycle */
+        final HashSet<String> types = resolve("#M#C\\A.b.c", null);
+        assertTrue(types.contains("\\B"));
+    }
+
+    public void testScopeDependentResultsAreNotShared() {
+        assertTrue(resolve("#Vp", findFunction("withNode")).contains("\\Node"));
+
+        final HashSet<String> types = resolve("#Vp", findFunction("withOther"));
+        assertTrue(types.contains("\\Other"));
+        assertFalse(types.contains("\\Node"));
+    }
+
+    public void testCachedResultsAreInvalidatedByChanges() {
+        assertTrue(resolve("#M#C\\Factory.make", findFunction("withNode")).contains("\\Node"));
+        /* served from the cache */
+        assertTrue(resolve("#M#C\\Factory.make", findFunction("withOther")).contains("\\Node"));
+
+        final Document document = myFixture.getEditor().getDocument();
+        WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
+            @Override
+            public void run() {
+                document.setText(classes.replace("return new Node();", "return new Other();"));
+                PsiDocumentManager.getInstance(myFixture.getProject()).commitDocument(document);
+            }
+        });
+
+        final HashSet<String> types = resolve("#M#C\\Factory.make", findFunction("withNode"));
+        assertTrue(types.contains("\\Other"));
+        assertFalse(types.contains("\\Node"));
+    }
+}
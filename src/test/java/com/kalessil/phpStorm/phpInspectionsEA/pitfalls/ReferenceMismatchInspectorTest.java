@@ -0,0 +1,96 @@
+package com.kalessil.phpStorm.phpInspectionsEA.pitfalls;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.testFramework.LeakHunter;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.config.PhpLanguageLevel;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
+import com.jetbrains.php.lang.PhpFileType;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.ReferenceMismatchInspector;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+final public class ReferenceMismatchInspectorTest extends CodeInsightFixtureTestCase {
+    private static final int filesCount = 50;
+
+    public void testIfFindsCalleesPatterns() {
+        final PhpProjectConfigurationFacade configuration = PhpProjectConfigurationFacade.getInstance(myFixture.getProject());
+        final PhpLanguageLevel languageLevel              = configuration.getLanguageLevel();
+        configuration.setLanguageLevel(PhpLanguageLevel.PHP560);
+        try {
+            myFixture.configureByFile("fixtures/pitfalls/reference-mismatch-callees.php");
+            myFixture.enableInspections(ReferenceMismatchInspector.class);
+            myFixture.testHighlighting(true, false, true);
+        } finally {
+            configuration.setLanguageLevel(languageLevel);
+        }
+    }
+
+    public void testAnalyzedFilesAreNotRetained() throws Exception {
+        final PhpProjectConfigurationFacade configuration = PhpProjectConfigurationFacade.getInstance(myFixture.getProject());
+        final PhpLanguageLevel languageLevel              = configuration.getLanguageLevel();
+        /* PHP 7 is not affected, the inspection would not visit anything */
+        configuration.setLanguageLevel(PhpLanguageLevel.PHP560);
+        try {
+            /* the platform is re-using inspection instances, while visitors are built per file */
+            final ReferenceMismatchInspector inspector = new ReferenceMismatchInspector();
+            int reportedProblems                       = 0;
+            for (int index = 0; index < filesCount; ++index) {
+                reportedProblems += analyze(inspector, createFile(index));
+            }
+            assertTrue(reportedProblems >= filesCount);
+
+            LeakHunter.checkLeak(inspector, PsiElement.class);
+            checkStaticFields(ReferenceMismatchInspector.class);
+        } finally {
+            configuration.setLanguageLevel(languageLevel);
+        }
+    }
+
+    private PsiFile createFile(int index) {
+        final String content =
+            "<?php\n" +
+            "function collect" + index + "(array &$items, $defaults) {\n" +
+            "    foreach ($defaults as $items) {}\n" +
+            "    $copy = $items;\n" +
+            "    return $copy;\n" +
+            "}\n";
+        return PsiFileFactory.getInstance(myFixture.getProject()).createFileFromText("file" + index + ".php", PhpFileType.INSTANCE, content);
+    }
+
+    private int analyze(ReferenceMismatchInspector inspector, PsiFile file) {
+        final ProblemsHolder holder     = new ProblemsHolder(InspectionManager.getInstance(myFixture.getProject()), file, false);
+        final PsiElementVisitor visitor = inspector.buildVisitor(holder, false);
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                element.accept(visitor);
+                super.visitElement(element);
+            }
+        });
+        return holder.getResultCount();
+    }
+
+    /* static state of the inspection and its nested classes must not reach PSI of analyzed files */
+    private static void checkStaticFields(Class<?> clazz) throws IllegalAccessException {
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                field.setAccessible(true);
+                final Object value = field.get(null);
+                if (null != value) {
+                    LeakHunter.checkLeak(value, PsiElement.class);
+                }
+            }
+        }
+        for (Class<?> nested : clazz.getDeclaredClasses()) {
+            checkStaticFields(nested);
+        }
+    }
+}
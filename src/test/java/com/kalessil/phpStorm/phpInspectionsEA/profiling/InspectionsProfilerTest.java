@@ -0,0 +1,68 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.security.SecurityAdvisoriesInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.security.UnserializeExploitsInspector;
+import org.jetbrains.annotations.NotNull;
+
+final public class InspectionsProfilerTest extends CodeInsightFixtureTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InspectionsProfiler.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            InspectionsProfiler.setEnabled(false);
+            InspectionsProfiler.reset();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testCountsCallbacksOnly() {
+        InspectionsProfiler.setEnabled(true);
+
+        myFixture.configureByText("test.php", "<?php\n$a = unserialize($x);\n$b = strlen($a);\nclass C { public $p; }");
+        myFixture.enableInspections(UnserializeExploitsInspector.class);
+        myFixture.doHighlighting();
+
+        final InspectionStatistics entry = find("UnserializeExploitsInspection");
+        assertNotNull(entry);
+        assertEquals(2, entry.getCallbacks());
+        assertTrue(entry.getFiles() >= 1);
+        assertTrue(entry.getWallNanos() > 0);
+    }
+
+    public void testProfilesCheckFileInspections() {
+        InspectionsProfiler.setEnabled(true);
+
+        myFixture.configureByText("composer.json", "{\"require\": {\"php\": \">=5.6\"}}");
+        myFixture.enableInspections(SecurityAdvisoriesInspector.class);
+        myFixture.doHighlighting();
+
+        final InspectionStatistics entry = find("SecurityAdvisoriesInspection");
+        assertNotNull(entry);
+        assertEquals(entry.getFiles(), entry.getCallbacks());
+    }
+
+    public void testDisabledProfilerCollectsNothing() {
+        myFixture.configureByText("test.php", "<?php\n$a = unserialize($x);");
+        myFixture.enableInspections(UnserializeExploitsInspector.class);
+        myFixture.doHighlighting();
+
+        assertNull(find("UnserializeExploitsInspection"));
+        assertEquals("[\n\n]\n", InspectionsProfiler.toJson());
+    }
+
+    private static InspectionStatistics find(@NotNull String shortName) {
+        for (InspectionStatistics entry : InspectionsProfiler.getSnapshot()) {
+            if (entry.getShortName().equals(shortName)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
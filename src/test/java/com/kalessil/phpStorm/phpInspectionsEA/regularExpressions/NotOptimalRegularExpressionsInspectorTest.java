@@ -22,6 +22,21 @@ final public class NotOptimalRegularExpressionsInspectorTest extends CodeInsight
         myFixture.testHighlighting(true, false, true);
     }
 
+    public void testCatastrophicBacktracking() {
+        myFixture.configureByFile("fixtures/regularExpressions/catastrophic-backtracking.php");
+        myFixture.enableInspections(NotOptimalRegularExpressionsInspector.class);
+        myFixture.testHighlighting(true, false, true);
+    }
+
+    public void testBacktrackLimit() {
+        NotOptimalRegularExpressionsInspector inspector = new NotOptimalRegularExpressionsInspector();
+        inspector.SIMULATE_BACKTRACKING = true;
+
+        myFixture.configureByFile("fixtures/regularExpressions/backtrack-limit.php");
+        myFixture.enableInspections(inspector);
+        myFixture.testHighlighting(true, false, true);
+    }
+
     public void testSenselessIgnoreCaseModifier() {
         myFixture.configureByFile("fixtures/regularExpressions/senseless-i-modifier.php");
         myFixture.enableInspections(NotOptimalRegularExpressionsInspector.class);
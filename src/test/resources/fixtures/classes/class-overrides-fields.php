@@ -39,3 +39,24 @@ class ClassOverridesFieldTest extends ClassOverridesField2 {
     protected $protectedFrom1;
     protected $protectedFrom2;
 }
+
+
+/* class names are case-insensitive */
+class ClassOverridesFieldCaseInsensitive extends classoverridesfield2 {
+    <weak_warning descr="Field 'protectedFrom2' is already defined in \ClassOverridesField2, check our online documentation for options.">protected $protectedFrom2;</weak_warning>
+}
+
+
+/* False-positives: ambiguous parent classes are not checked */
+if (PHP_VERSION_ID >= 70000) {
+    class ClassOverridesFieldAmbiguous {
+        protected $ambiguous;
+    }
+} else {
+    class ClassOverridesFieldAmbiguous {
+        private $ambiguous;
+    }
+}
+class ClassOverridesFieldOfAmbiguous extends ClassOverridesFieldAmbiguous {
+    protected $ambiguous;
+}
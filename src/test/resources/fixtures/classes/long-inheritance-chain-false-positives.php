@@ -14,4 +14,23 @@ class Level4Class extends Level3Class {
 }
 
 class Level4Exception extends Level3Class {
-}
\ No newline at end of file
+}
+/* ambiguous parents are not followed */
+if (PHP_VERSION_ID >= 70000) {
+    class AmbiguousLevel3Class extends Level2Class {
+    }
+} else {
+    class AmbiguousLevel3Class {
+    }
+}
+class AmbiguousLevel4Class extends AmbiguousLevel3Class {
+}
+if (PHP_VERSION_ID < 70000) {
+    class AmbiguousReversedLevel3Class {
+    }
+} else {
+    class AmbiguousReversedLevel3Class extends Level2Class {
+    }
+}
+class AmbiguousReversedLevel4Class extends AmbiguousReversedLevel3Class {
+}
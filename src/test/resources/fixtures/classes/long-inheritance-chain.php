@@ -10,4 +10,14 @@ class Level3Class extends Level2Class {
 }
 
 class <weak_warning descr="Class has 3 or more parent classes, consider using appropriate design patterns.">Level4Class</weak_warning> extends Level3Class {
-}
\ No newline at end of file
+}
+
+/* class names are case-insensitive */
+class CaseLevel1Class {
+}
+class CaseLevel2Class extends caselevel1class {
+}
+class CaseLevel3Class extends CASELEVEL2CLASS {
+}
+class <weak_warning descr="Class has 3 or more parent classes, consider using appropriate design patterns.">CaseLevel4Class</weak_warning> extends caseLevel3Class {
+}
@@ -26,3 +26,19 @@ class ClassImplementsSameInterfaceTwice
         <error descr="\IParent2 is already announced. Duplicate announcements causing Fatal error.">IParent2</error>
 {
 }
+
+
+/* class names are case-insensitive */
+class CParent3 extends aparent1
+    implements <error descr="iparent1 is already announced in \aparent1.">iparent1</error>
+{ }
+
+/* the visited declaration is checked, not the first of duplicated ones */
+if (PHP_VERSION_ID >= 70000) {
+    class CDuplicated implements IParent1
+    { }
+} else {
+    class CDuplicated extends AParent1
+        implements <error descr="IParent1 is already announced in \AParent1.">IParent1</error>
+    { }
+}
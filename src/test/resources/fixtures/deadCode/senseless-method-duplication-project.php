@@ -0,0 +1,42 @@
+<?php
+
+    class FirstRepository {
+        public function <weak_warning descr="'findActive' method is identical to '\SecondRepository::findActive', consider extracting the implementation">findActive</weak_warning>(array $rows) {
+            $result = [];
+            foreach ($rows as $row) {
+                if ($row['active']) {
+                    $result[] = $row;
+                }
+            }
+            return $result;
+        }
+
+        public function getName() {
+            return 'first';
+        }
+    }
+
+    class SecondRepository {
+        public function <weak_warning descr="'findActive' method is identical to '\FirstRepository::findActive', consider extracting the implementation">findActive</weak_warning>(array $rows) {
+            $result = [];
+            /* the same implementation, formatted differently */
+            foreach ($rows as $row) { if ($row['active']) { $result[] = $row; } }
+            return $result;
+        }
+
+        /* too small to be reported */
+        public function getName() {
+            return 'first';
+        }
+
+        /* parameters are different */
+        public function findActiveTyped(iterable $rows) {
+            $result = [];
+            foreach ($rows as $row) {
+                if ($row['active']) {
+                    $result[] = $row;
+                }
+            }
+            return $result;
+        }
+    }
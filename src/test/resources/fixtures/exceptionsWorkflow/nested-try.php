@@ -0,0 +1,74 @@
+<?php
+
+class OuterException extends \Exception {}
+class InnerException extends \Exception {}
+class EscapingException extends \Exception {}
+
+class NestedTryContainer
+{
+    /**
+     * Nested try is in the try body: escaping exceptions are matched against outer catches.
+     */
+    public function caughtByOuterCatch()
+    {
+        try {
+            try {
+                throw new OuterException();
+            } catch (InnerException $inner) {
+                return;
+            }
+        } catch (OuterException $outer) {
+            return;
+        }
+    }
+
+    /**
+     * Exceptions thrown in the nested catch are matched against outer catches as well.
+     */
+    public function thrownInNestedCatch()
+    {
+        try {
+            try {
+                throw new InnerException();
+            } catch (InnerException $inner) {
+                throw new OuterException();
+            }
+        } catch (OuterException $outer) {
+            return;
+        }
+    }
+
+    /**
+     * Escaping both catches.
+     */
+    public function escapingBothCatches()
+    {
+        try {
+            try {
+                <weak_warning descr="Throws a non-annotated/unhandled exception: '\EscapingException'">throw new EscapingException();</weak_warning>
+            } catch (InnerException $inner) {
+                return;
+            }
+        } catch (OuterException $outer) {
+            return;
+        }
+    }
+
+    /**
+     * Escaping both catches, but annotated.
+     *
+     * @throws EscapingException
+     */
+    public function escapingAndAnnotated()
+    {
+        try {
+            try {
+                throw new EscapingException();
+            } catch (InnerException $inner) {
+                return;
+            }
+        } catch (OuterException $outer) {
+            return;
+        }
+    }
+}
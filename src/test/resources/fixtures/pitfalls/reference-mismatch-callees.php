@@ -0,0 +1,48 @@
+<?php
+
+    function consume(array $items) {}
+    if (!function_exists('consumeOnce')) {
+        function consumeOnce(array $items) {}
+    } else {
+        function consumeOnce(array &$items) {}
+    }
+    function &getRegistry() {
+        static $registry = [];
+        return $registry;
+    }
+
+    class ParentStorage {
+        public function store(array $items) {}
+        public function &get() { return $this->items; }
+    }
+    trait StorageTrait {
+        public function store(array &$items) {}
+    }
+    class Storage extends ParentStorage {
+        use StorageTrait;
+    }
+
+    function dispatchArguments(array &$items) {
+        consume(<weak_warning descr="Reference mismatch, copy will be dispatched into function">$items</weak_warning>);
+
+        $parent = new ParentStorage();
+        $parent->store(<weak_warning descr="Reference mismatch, copy will be dispatched into function">$items</weak_warning>);
+
+        /* false-positives: trait methods are taking precedence over inherited ones, re-unsafe functions in any case */
+        $storage = new Storage();
+        $storage->store($items);
+        COUNT($items);
+        /* false-positives: conditionally declared functions are ambiguous */
+        consumeOnce($items);
+    }
+
+    function storeReturnedReferences() {
+        <weak_warning descr="Reference mismatch, copy will be stored (for non-objects)">$copy = getRegistry()</weak_warning>;
+
+        $storage = new Storage();
+        <weak_warning descr="Reference mismatch, copy will be stored (for non-objects)">$items = $storage->get()</weak_warning>;
+
+        /* false-positives: stored as references */
+        $registry = &getRegistry();
+        $items    = &$storage->get();
+    }
@@ -0,0 +1,15 @@
+<?php
+
+    preg_match(<warning descr="preg_match() fails with PREG_BACKTRACK_LIMIT_ERROR on 10000 characters long subjects, e.g. str_repeat(' ', 9999) . 'a'">'/\s+$/'</warning>, '');
+    preg_replace(<warning descr="preg_replace() fails with PREG_BACKTRACK_LIMIT_ERROR on 10000 characters long subjects, e.g. '0' . str_repeat('0', 9998) . 'a'">'/^[-+]?\d*\.?\d+$/'</warning>, '', '');
+    preg_split(<warning descr="preg_split() fails with PREG_BACKTRACK_LIMIT_ERROR on 10000 characters long subjects, e.g. str_repeat('a', 9999) . '0'">'/(?:a|b)*c/'</warning>, '');
+
+    /* linear: anchored, or repetitions are made possessive */
+    preg_match('/^\s+$/', '');
+    preg_match('/\d+:/', '');
+    preg_match('/<[^>]*>/', '');
+    preg_match('/\w+@\w+\.com/', '');
+    /* reported as catastrophic backtracking */
+    preg_match(<error descr="Exponential backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with 'a' . str_repeat('aa', 32) . '0'">'/(a|a)*b/'</error>, '');
+    /* back-references are not simulated */
+    preg_match('/^(\w+)\s\1$/', '');
@@ -0,0 +1,16 @@
+<?php
+
+    preg_match(<error descr="Exponential backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with 'a' . str_repeat('aa', 32) . '0'">'/(a|a)*b/'</error>, '');
+    preg_match(<error descr="Exponential backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with 'a' . str_repeat('aa', 32) . '0'">'/^(a|a?)+$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with 'a' . str_repeat('0a', 32) . ' '">'/(\w|\d)+$/'</error>, '');
+    preg_match(<error descr="O(n^3) backtracking might be exploited (ReDoS, Regular Expression Denial of Service), e.g. with '0' . str_repeat('0', 1000) . str_repeat('0', 1000) . 'a'">'/\d+\d+\d+x/'</error>, '');
+
+    /* matches before the ambiguity can be explored */
+    preg_match('/(a|a)*/', '');
+    /* atomic groups and possessive quantifiers are not backtracked into */
+    preg_match('/(?>a|a)*b/', '');
+    preg_match('/^(\w++\s?)*$/', '');
+    /* quadratic backtracking is not reported */
+    preg_match('/^[-+]?\d*\.?\d+$/', '');
+    /* back-references are not analyzed */
+    preg_match('/^(\w+)\s\1$/', '');